@@ -40,6 +40,7 @@ public enum DeoptimizationReason {
     ArithmeticException,
     RuntimeConstraint,
     LoopLimitCheck,
+    LoopPredicate,
     Aliasing,
     TransferToInterpreter,
 }
@@ -157,6 +157,19 @@ public class AMD64Assembler extends Assembler {
         private static final int REXWRXB = 0x4F;
     }
 
+    /**
+     * Constants for the fields of a VEX prefix.
+     */
+    private static class VexPrefix {
+
+        private static final int SIMD_NONE = 0x0;
+        private static final int SIMD_66 = 0x1;
+        private static final int SIMD_F3 = 0x2;
+
+        private static final int OPCODE_0F = 0x1;
+        private static final int OPCODE_0F38 = 0x2;
+    }
+
     /**
      * The register to which {@link Register#Frame} and {@link Register#CallerFrame} are bound.
      */
@@ -1585,6 +1598,44 @@ public class AMD64Assembler extends Assembler {
         emitByte(0xC0 | encode);
     }
 
+    public final void paddd(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0x66);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0xFE);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void paddq(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0x66);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0xD4);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pand(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0x66);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0xDB);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pmulld(Register dst, Register src) {
+        assert supports(CPUFeature.SSE4_1);
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0x66);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0x38);
+        emitByte(0x40);
+        emitByte(0xC0 | encode);
+    }
+
     public final void pop(Register dst) {
         int encode = prefixAndEncode(dst.encoding);
         emitByte(0x58 | encode);
@@ -1594,6 +1645,33 @@ public class AMD64Assembler extends Assembler {
         emitByte(0x9D);
     }
 
+    public final void por(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0x66);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0xEB);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void psubd(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0x66);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0xFA);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void psubq(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0x66);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0xFB);
+        emitByte(0xC0 | encode);
+    }
+
     public final void ptest(Register dst, Register src) {
         assert supports(CPUFeature.SSE4_1);
         emitByte(0x66);
@@ -1925,6 +2003,19 @@ public class AMD64Assembler extends Assembler {
         emitByte(0xC0 | encode);
     }
 
+    public final void addpd(Register dst, Register src) {
+        emitByte(0x66);
+        addps(dst, src);
+    }
+
+    public final void addps(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0x58);
+        emitByte(0xC0 | encode);
+    }
+
     public final void andpd(Register dst, Register src) {
         emitByte(0x66);
         andps(dst, src);
@@ -1951,6 +2042,32 @@ public class AMD64Assembler extends Assembler {
         emitOperandHelper(dst, src);
     }
 
+    public final void divpd(Register dst, Register src) {
+        emitByte(0x66);
+        divps(dst, src);
+    }
+
+    public final void divps(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0x5E);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void mulpd(Register dst, Register src) {
+        emitByte(0x66);
+        mulps(dst, src);
+    }
+
+    public final void mulps(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0x59);
+        emitByte(0xC0 | encode);
+    }
+
     public final void orpd(Register dst, Register src) {
         emitByte(0x66);
         orps(dst, src);
@@ -1977,6 +2094,19 @@ public class AMD64Assembler extends Assembler {
         emitOperandHelper(dst, src);
     }
 
+    public final void subpd(Register dst, Register src) {
+        emitByte(0x66);
+        subps(dst, src);
+    }
+
+    public final void subps(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0x5C);
+        emitByte(0xC0 | encode);
+    }
+
     public final void xorpd(Register dst, Register src) {
         emitByte(0x66);
         xorps(dst, src);
@@ -2003,6 +2133,148 @@ public class AMD64Assembler extends Assembler {
         emitOperandHelper(dst, src);
     }
 
+    /*
+     * The following AVX instructions operate on the full 256 bit YMM registers. The XMM registers
+     * are their lower halves and have the same encodings.
+     */
+
+    public final void vaddpd(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F);
+        emitByte(0x58);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vaddps(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_NONE, VexPrefix.OPCODE_0F);
+        emitByte(0x58);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vdivpd(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F);
+        emitByte(0x5E);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vdivps(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_NONE, VexPrefix.OPCODE_0F);
+        emitByte(0x5E);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vmovdqu(Register dst, AMD64Address src) {
+        assert supports(CPUFeature.AVX);
+        vexPrefix(src, 0, dst, VexPrefix.SIMD_F3, VexPrefix.OPCODE_0F);
+        emitByte(0x6F);
+        emitOperandHelper(dst, src);
+    }
+
+    public final void vmovdqu(AMD64Address dst, Register src) {
+        assert supports(CPUFeature.AVX);
+        vexPrefix(dst, 0, src, VexPrefix.SIMD_F3, VexPrefix.OPCODE_0F);
+        emitByte(0x7F);
+        emitOperandHelper(src, dst);
+    }
+
+    public final void vmulpd(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F);
+        emitByte(0x59);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vmulps(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_NONE, VexPrefix.OPCODE_0F);
+        emitByte(0x59);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vpaddd(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX2);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F);
+        emitByte(0xFE);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vpaddq(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX2);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F);
+        emitByte(0xD4);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vpand(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX2);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F);
+        emitByte(0xDB);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vpmulld(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX2);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F38);
+        emitByte(0x40);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vpor(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX2);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F);
+        emitByte(0xEB);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vpsubd(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX2);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F);
+        emitByte(0xFA);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vpsubq(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX2);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F);
+        emitByte(0xFB);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vpxor(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX2);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F);
+        emitByte(0xEF);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vsubpd(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_66, VexPrefix.OPCODE_0F);
+        emitByte(0x5C);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void vsubps(Register dst, Register nds, Register src) {
+        assert supports(CPUFeature.AVX);
+        int encode = vexPrefixAndEncode(dst, nds, src, VexPrefix.SIMD_NONE, VexPrefix.OPCODE_0F);
+        emitByte(0x5C);
+        emitByte(0xC0 | encode);
+    }
+
+    /**
+     * Zeroes the upper halves of all YMM registers. This avoids the penalty of switching between
+     * 256 bit AVX code and legacy SSE code.
+     */
+    public final void vzeroupper() {
+        assert supports(CPUFeature.AVX);
+        emitByte(0xC5);
+        emitByte(0xF8);
+        emitByte(0x77);
+    }
+
     protected final void decl(Register dst) {
         // Use two-byte form (one-byte form is a REX prefix in 64-bit mode)
         int encode = prefixAndEncode(dst.encoding);
@@ -2097,6 +2369,39 @@ public class AMD64Assembler extends Assembler {
         return regEnc << 3 | rmEnc;
     }
 
+    /**
+     * Emits a VEX prefix for an instruction with a vector length of 256 bits. The two byte form is
+     * used if none of the X, B and W bits is needed and the opcode is in the 0F map.
+     *
+     * @param rexR the extension of the register part of the ModRM-Byte
+     * @param rexX the extension of the index register
+     * @param rexB the extension of the r/m part of the ModRM-Byte or the base register
+     * @param ndsEncoding the encoding of the additional source register, 0 if there is none
+     * @param simd the implied SIMD prefix of the instruction
+     * @param opcodeMap the implied leading opcode bytes of the instruction
+     */
+    private void emitVexPrefix(boolean rexR, boolean rexX, boolean rexB, int ndsEncoding, int simd, int opcodeMap) {
+        int vectorLength = 1 << 2;
+        int vvvv = (~ndsEncoding & 0xF) << 3;
+        if (!rexX && !rexB && opcodeMap == VexPrefix.OPCODE_0F) {
+            emitByte(0xC5);
+            emitByte((rexR ? 0 : 0x80) | vvvv | vectorLength | simd);
+        } else {
+            emitByte(0xC4);
+            emitByte((rexR ? 0 : 0x80) | (rexX ? 0 : 0x40) | (rexB ? 0 : 0x20) | opcodeMap);
+            emitByte(vvvv | vectorLength | simd);
+        }
+    }
+
+    private int vexPrefixAndEncode(Register dst, Register nds, Register src, int simd, int opcodeMap) {
+        emitVexPrefix(dst.encoding >= 8, false, src.encoding >= 8, nds.encoding, simd, opcodeMap);
+        return (dst.encoding & 0x7) << 3 | (src.encoding & 0x7);
+    }
+
+    private void vexPrefix(AMD64Address adr, int ndsEncoding, Register reg, int simd, int opcodeMap) {
+        emitVexPrefix(reg.encoding >= 8, needsRex(adr.getIndex()), needsRex(adr.getBase()), ndsEncoding, simd, opcodeMap);
+    }
+
     private static boolean needsRex(Register reg) {
         return reg.encoding >= MinEncodingNeedsRex;
     }
@@ -2483,6 +2788,14 @@ public class AMD64Assembler extends Assembler {
         emitOperandHelper(dst, src);
     }
 
+    public final void movdqu(AMD64Address dst, Register src) {
+        emitByte(0xF3);
+        prefix(dst, src);
+        emitByte(0x0F);
+        emitByte(0x7F);
+        emitOperandHelper(src, dst);
+    }
+
     public final void movslq(AMD64Address dst, int imm32) {
         prefixq(dst);
         emitByte(0xC7);
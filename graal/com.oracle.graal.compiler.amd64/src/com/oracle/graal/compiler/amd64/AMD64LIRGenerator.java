@@ -1068,6 +1068,11 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
         return result;
     }
 
+    @Override
+    public void emitArrayArithmetic(ArrayArithmeticOperation op, Kind kind, Value result, Value array1, Value array2, Value start, Value length) {
+        append(new AMD64ArrayArithmeticOp(this, op, kind, load(result), load(array1), load(array2), load(start), load(length)));
+    }
+
     @Override
     public void emitReturn(Value input) {
         AllocatableValue operand = Value.ILLEGAL;
@@ -92,6 +92,10 @@ public final class GraalOptions {
     // graph caching
     @Option(help = "")
     public static final OptionValue<Boolean> CacheGraphs = new OptionValue<>(false);
+    @Option(help = "Share the bytecode graphs parsed for inlining between all compilations")
+    public static final OptionValue<Boolean> SharedGraphCache = new OptionValue<>(false);
+    @Option(help = "Maximum number of graphs kept in the shared graph cache")
+    public static final OptionValue<Integer> SharedGraphCacheSize = new OptionValue<>(2048);
 
     //loop transform settings TODO (gd) tune
     @Option(help = "")
@@ -108,6 +112,14 @@ public final class GraalOptions {
     public static final OptionValue<Integer> ExactFullUnrollMaxNodes = new OptionValue<>(1200);
     @Option(help = "")
     public static final OptionValue<Float> MinimumPeelProbability = new OptionValue<>(0.35f);
+    @Option(help = "Partially unroll hot counted loops with small bodies in the low tier")
+    public static final OptionValue<Boolean> PartialUnroll = new OptionValue<>(true);
+    @Option(help = "Maximum number of iterations a partially unrolled loop body covers")
+    public static final OptionValue<Integer> PartialUnrollMaxFactor = new OptionValue<>(4);
+    @Option(help = "Maximum number of nodes a loop may grow to by partial unrolling, including the remainder loop")
+    public static final OptionValue<Integer> PartialUnrollMaxNodes = new OptionValue<>(200);
+    @Option(help = "Minimum profiled loop frequency for a loop to be partially unrolled")
+    public static final OptionValue<Float> PartialUnrollMinFrequency = new OptionValue<>(16f);
     @Option(help = "")
     public static final OptionValue<Integer> LoopMaxUnswitch = new OptionValue<>(3);
     @Option(help = "")
@@ -116,6 +128,10 @@ public final class GraalOptions {
     public static final OptionValue<Integer> LoopUnswitchUncertaintyBoost = new OptionValue<>(5);
     @Option(help = "")
     public static final OptionValue<Boolean> UseLoopLimitChecks = new OptionValue<>(true);
+    @Option(help = "Replace array bounds checks on the induction variable of a counted loop by a check before the loop")
+    public static final OptionValue<Boolean> LoopPredication = new OptionValue<>(true);
+    @Option(help = "Compute element-wise array arithmetic in counted loops with packed SIMD instructions on targets that support it")
+    public static final OptionValue<Boolean> VectorizeLoops = new OptionValue<>(true);
 
     // debugging settings
     @Option(help = "")
@@ -124,6 +140,8 @@ public final class GraalOptions {
     public static final OptionValue<Boolean> DeoptALot = new OptionValue<>(false);
     @Option(help = "")
     public static final OptionValue<Boolean> VerifyPhases = new OptionValue<>(false);
+    @Option(help = "Profile time, CPU time, allocation and node counts of each compiler phase and LIR stage and print a report at shutdown")
+    public static final OptionValue<Boolean> ProfileCompilerPhases = new OptionValue<>(false);
 
     @Option(help = "")
     public static final OptionValue<String> PrintFilter = new OptionValue<>(null);
@@ -131,11 +149,21 @@ public final class GraalOptions {
     // Debug settings:
     @Option(help = "")
     public static final OptionValue<Boolean> BootstrapReplacements = new OptionValue<>(false);
+    @Option(help = "Create the snippet and method substitution graphs on a background thread after startup instead of on first use")
+    public static final OptionValue<Boolean> PrepareReplacementsInBackground = new OptionValue<>(false);
     @Option(help = "")
     public static final OptionValue<Integer> GCDebugStartCycle = new OptionValue<>(-1);
     // Ideal graph visualizer output settings
     @Option(help = "Dump IdealGraphVisualizer output in binary format")
     public static final OptionValue<Boolean> PrintBinaryGraphs = new OptionValue<>(true);
+    @Option(help = "Serialize binary graph dumps on the compiling thread but write them to the file or network on a background thread")
+    public static final OptionValue<Boolean> PrintBinaryGraphsAsync = new OptionValue<>(false);
+    @Option(help = "Maximum number of serialized graphs per dump file or connection waiting for the background graph writer")
+    public static final OptionValue<Integer> PrintBinaryGraphsQueueSize = new OptionValue<>(64);
+    @Option(help = "Drop graph dumps instead of waiting when the background graph writer queue is full")
+    public static final OptionValue<Boolean> PrintBinaryGraphsDropWhenFull = new OptionValue<>(false);
+    @Option(help = "Compress binary graph files with gzip")
+    public static final OptionValue<Boolean> PrintBinaryGraphsCompressed = new OptionValue<>(false);
     @Option(help = "Output probabilities for fixed nodes during binary graph dumping")
     public static final OptionValue<Boolean> PrintGraphProbabilities = new OptionValue<>(false);
     @Option(help = "Enable dumping to the C1Visualizer. Enabling this option implies PrintBackendCFG.")
@@ -258,6 +286,8 @@ public final class GraalOptions {
     public static final OptionValue<Boolean> OptLoopTransform = new OptionValue<>(true);
     @Option(help = "")
     public static final OptionValue<Boolean> OptFloatingReads = new OptionValue<>(true);
+    @Option(help = "Merge equivalent floating nodes, including floating reads and pis, after reads have been floated.")
+    public static final OptionValue<Boolean> OptGlobalValueNumbering = new OptionValue<>(true);
     @Option(help = "")
     public static final OptionValue<Boolean> OptTailDuplication = new OptionValue<>(true);
     @Option(help = "")
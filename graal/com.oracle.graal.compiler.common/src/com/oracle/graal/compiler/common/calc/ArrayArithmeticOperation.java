@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.common.calc;
+
+import com.oracle.graal.api.meta.*;
+
+/**
+ * Binary operations that can be applied element-wise to whole array ranges, see
+ * {@code LIRGeneratorTool#emitArrayArithmetic}.
+ */
+public enum ArrayArithmeticOperation {
+    ADD,
+    SUB,
+    MUL,
+    DIV,
+    AND,
+    OR,
+    XOR;
+
+    /**
+     * Determines if this operation is defined for arrays with the given element kind. Integer
+     * division is excluded since it may throw an exception.
+     */
+    public boolean isSupportedFor(Kind kind) {
+        switch (kind) {
+            case Int:
+            case Long:
+                return this != DIV;
+            case Float:
+            case Double:
+                return this == ADD || this == SUB || this == MUL || this == DIV;
+            default:
+                return false;
+        }
+    }
+}
@@ -797,6 +797,11 @@ public class PTXLIRGenerator extends LIRGenerator {
         throw GraalInternalError.unimplemented();
     }
 
+    @Override
+    public void emitArrayArithmetic(ArrayArithmeticOperation op, Kind kind, Value result, Value array1, Value array2, Value start, Value length) {
+        throw GraalInternalError.unimplemented();
+    }
+
     @Override
     public void emitReturn(Value input) {
         if (input != null) {
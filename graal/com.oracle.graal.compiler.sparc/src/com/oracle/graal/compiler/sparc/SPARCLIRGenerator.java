@@ -504,6 +504,11 @@ public abstract class SPARCLIRGenerator extends LIRGenerator {
         return result;
     }
 
+    @Override
+    public void emitArrayArithmetic(ArrayArithmeticOperation op, Kind kind, Value result, Value array1, Value array2, Value start, Value length) {
+        throw GraalInternalError.unimplemented();
+    }
+
     @Override
     public Value emitNegate(Value input) {
         switch (input.getKind().getStackKind()) {
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.printer.*;
+
+/**
+ * Checks that {@link BinaryGraphPrinter} writes the same stream whether it writes graphs itself or
+ * hands them to a background writer.
+ */
+public class BinaryGraphPrinterTest extends GraalCompilerTest {
+
+    public static int sumSnippet(int[] a) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static Object selectSnippet(Object a, Object b, boolean c) {
+        return c ? a.toString() : b.hashCode();
+    }
+
+    @Test
+    public void testAsyncMatchesSync() throws IOException {
+        List<StructuredGraph> graphs = Arrays.asList(parseEager("sumSnippet"), parseEager("selectSnippet"), parseEager("sumSnippet"));
+
+        ByteArrayOutputStream sync = new ByteArrayOutputStream();
+        print(new BinaryGraphPrinter(Channels.newChannel(sync)), graphs);
+
+        ByteArrayOutputStream async = new ByteArrayOutputStream();
+        BinaryGraphPrinter asyncPrinter = new BinaryGraphPrinter(Channels.newChannel(async), 1, false);
+        print(asyncPrinter, graphs);
+
+        Assert.assertEquals(0, asyncPrinter.getDroppedGraphs());
+        Assert.assertTrue(sync.size() > 0);
+        Assert.assertArrayEquals(sync.toByteArray(), async.toByteArray());
+    }
+
+    private static void print(BinaryGraphPrinter printer, List<StructuredGraph> graphs) throws IOException {
+        for (StructuredGraph graph : graphs) {
+            printer.beginGroup(graph.toString(), graph.method().getName(), graph.method(), -1);
+            printer.print(graph, "After parsing", null);
+            printer.print(graph, "Again", null);
+            printer.endGroup();
+        }
+        printer.close();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.compiler.common.type.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.spi.*;
+import com.oracle.graal.phases.common.*;
+import com.oracle.graal.phases.tiers.*;
+
+public class GlobalValueNumberingTest extends GraalCompilerTest {
+
+    public static class Container {
+
+        public int a;
+    }
+
+    public static Object piSnippet(Object o) {
+        return o;
+    }
+
+    @Test
+    public void testPi() {
+        try (Scope s = Debug.scope("GlobalValueNumberingTest", new DebugDumpScope("piSnippet"))) {
+            StructuredGraph graph = parseEager("piSnippet");
+            ParameterNode o = graph.getParameter(0);
+            Stamp nonNull = StampFactory.objectNonNull();
+            Stamp container = StampFactory.declaredNonNull(getMetaAccess().lookupJavaType(Container.class));
+            graph.unique(PiNode.create(o, nonNull, graph.start()));
+            graph.unique(PiNode.create(o, nonNull, graph.start()));
+            graph.unique(PiNode.create(o, container, graph.start()));
+            Assert.assertEquals(3, graph.getNodes().filter(PiNode.class).count());
+
+            new GlobalValueNumberingPhase().apply(graph);
+
+            // the pis with different stamps must stay apart
+            Assert.assertEquals(2, graph.getNodes().filter(PiNode.class).count());
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+
+    public static int readTwiceSnippet(Container c) {
+        return c.a + c.a;
+    }
+
+    @Test
+    public void testFloatingReads() {
+        Assert.assertEquals(1, countReadsAfterGVN("readTwiceSnippet"));
+        test("readTwiceSnippet", new Container());
+    }
+
+    public static int readWriteReadSnippet(Container c, Container d, int x) {
+        int t = c.a;
+        d.a = x;
+        return t + c.a;
+    }
+
+    @Test
+    public void testFloatingReadsAcrossWrite() {
+        // d may alias c so the second read has to see the write
+        Assert.assertEquals(2, countReadsAfterGVN("readWriteReadSnippet"));
+        Container c = new Container();
+        test("readWriteReadSnippet", c, c, 42);
+        test("readWriteReadSnippet", new Container(), new Container(), 42);
+    }
+
+    private int countReadsAfterGVN(String snippet) {
+        try (Scope s = Debug.scope("GlobalValueNumberingTest", new DebugDumpScope(snippet))) {
+            StructuredGraph graph = parseEager(snippet);
+            PhaseContext context = new PhaseContext(getProviders(), new Assumptions(false));
+            CanonicalizerPhase canonicalizer = new CanonicalizerPhase(true);
+            new LoweringPhase(canonicalizer, LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, context);
+            canonicalizer.apply(graph, context);
+            new FloatingReadPhase().apply(graph);
+            Assert.assertEquals(2, graph.getNodes().filter(FloatingReadNode.class).count());
+
+            new GlobalValueNumberingPhase().apply(graph);
+
+            Debug.dump(graph, "After global value numbering");
+            return graph.getNodes().filter(FloatingReadNode.class).count();
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.nodes.*;
+
+/**
+ * Tests {@link com.oracle.graal.loop.phases.LoopPartialUnrollPhase}. All loops are made hot so
+ * that the unroll factor is only limited by the options and the loop size.
+ */
+public class LoopPartialUnrollTest extends GraalCompilerTest {
+
+    @Override
+    protected StructuredGraph parseForCompile(ResolvedJavaMethod method) {
+        StructuredGraph graph = super.parseForCompile(method);
+        for (LoopBeginNode loopBegin : graph.getNodes(LoopBeginNode.class)) {
+            loopBegin.setLoopFrequency(1000);
+        }
+        return graph;
+    }
+
+    /**
+     * Runs {@code name} with {@code args} and checks whether the compiled code contains the
+     * remainder loop that unrolling leaves behind.
+     */
+    private void testUnrolled(boolean unrolled, String name, Object... args) {
+        test(name, args);
+        if (getCodeCache() != null) {
+            Assert.assertEquals(unrolled ? 2 : 1, lastCompiledGraph.getNodes(LoopBeginNode.class).count());
+        }
+    }
+
+    public static int upSnippet(int start, int n) {
+        int s = 1;
+        for (int i = start; i < n; i++) {
+            s = s * 31 + i;
+        }
+        return s;
+    }
+
+    @Test
+    public void testTripCounts() {
+        // trip counts that are not a multiple of the unroll factor leave work for the remainder
+        for (int n = 0; n <= 9; n++) {
+            testUnrolled(true, "upSnippet", 0, n);
+        }
+        testUnrolled(true, "upSnippet", 5, 3);
+        testUnrolled(true, "upSnippet", -7, 6);
+    }
+
+    public static int downSnippet(int n) {
+        int s = 1;
+        for (int i = n; i > 0; i--) {
+            s = s * 31 + i;
+        }
+        return s;
+    }
+
+    @Test
+    public void testNegativeStride() {
+        for (int n = -1; n <= 9; n++) {
+            testUnrolled(true, "downSnippet", n);
+        }
+    }
+
+    public static int strideNearOverflowSnippet(int start, int n) {
+        int s = 1;
+        for (int i = start; i < n; i += 3) {
+            s = s * 31 + i;
+        }
+        return s;
+    }
+
+    @Test
+    public void testIntNearOverflow() {
+        // the counter of the last unrolled copy would wrap around in 32-bit arithmetic
+        testUnrolled(true, "strideNearOverflowSnippet", Integer.MAX_VALUE - 10, Integer.MAX_VALUE);
+        testUnrolled(true, "strideNearOverflowSnippet", Integer.MAX_VALUE - 9, Integer.MAX_VALUE - 1);
+        testUnrolled(true, "strideNearOverflowSnippet", Integer.MIN_VALUE, Integer.MIN_VALUE + 7);
+    }
+
+    public static long longSnippet(long start, long n) {
+        long s = 1;
+        for (long i = start; i < n; i++) {
+            s = s * 31 + i;
+        }
+        return s;
+    }
+
+    @Test
+    public void testLongNearOverflow() {
+        // only loops with int counters are unrolled
+        testUnrolled(false, "longSnippet", Long.MAX_VALUE - 10, Long.MAX_VALUE);
+        testUnrolled(false, "longSnippet", Long.MAX_VALUE - 9, Long.MAX_VALUE);
+        testUnrolled(false, "longSnippet", Long.MIN_VALUE, Long.MIN_VALUE + 7);
+    }
+
+    public static int sideExitSnippet(int[] a, int key, int n) {
+        for (int i = 0; i < n; i++) {
+            if (a[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testSideExit() {
+        // loops that can be left other than through the counted exit are not unrolled
+        int[] a = {3, 1, 4, 1, 5, 9, 2, 6, 5};
+        testUnrolled(false, "sideExitSnippet", a, 9, a.length);
+        testUnrolled(false, "sideExitSnippet", a, 7, a.length);
+        testUnrolled(false, "sideExitSnippet", a, 5, 4);
+    }
+}
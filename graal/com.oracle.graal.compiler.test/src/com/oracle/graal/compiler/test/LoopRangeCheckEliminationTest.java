@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.*;
+
+import com.oracle.graal.api.meta.*;
+
+/**
+ * Compiles loops with array accesses for arguments that stay in bounds and then runs the compiled
+ * code with arguments that do not, checking that the exception is still thrown and that the
+ * expected guard caused the deoptimization.
+ */
+public class LoopRangeCheckEliminationTest extends GraalCompilerTest {
+
+    public static int sumSnippet(int[] a, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testHoisted() {
+        int[] a = {1, 2, 3, 4};
+        test("sumSnippet", a, 4);
+        test("sumSnippet", a, 0);
+        // the check before the loop fails and the interpreter throws the exception
+        testOutOfBounds("sumSnippet", DeoptimizationReason.LoopPredicate, a, 5);
+    }
+
+    public static int exitValueSnippet(int[] a, int n) {
+        int sum = 0;
+        int i = 0;
+        for (;;) {
+            sum += a[i];
+            if (i >= n) {
+                break;
+            }
+            i++;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testExitValue() {
+        int[] a = {1, 2, 3, 4};
+        test("exitValueSnippet", a, 3);
+        // a[n] is read before the exit test, so its check must stay in the loop
+        testOutOfBounds("exitValueSnippet", DeoptimizationReason.BoundsCheckException, a, 4);
+    }
+
+    /**
+     * Runs the code compiled by a previous {@link #test} call with arguments that index outside
+     * the array and checks that it deoptimizes for {@code reason} and throws the same exception as
+     * the interpreter.
+     */
+    private void testOutOfBounds(String name, DeoptimizationReason reason, Object... args) {
+        ResolvedJavaMethod method = getResolvedJavaMethod(name);
+        if (getCodeCache() == null) {
+            return;
+        }
+        Result expect = executeExpected(method, null, args);
+        Assert.assertTrue(expect.exception instanceof ArrayIndexOutOfBoundsException);
+        int deopts = method.getProfilingInfo().getDeoptimizationCount(reason);
+        Result actual = executeActual(method, null, args);
+        assertEquals(expect, actual);
+        Assert.assertEquals(deopts + 1, method.getProfilingInfo().getDeoptimizationCount(reason));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.loop.phases.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.tiers.*;
+
+public class LoopVectorizationTest extends GraalCompilerTest {
+
+    private static int[] ints(int length) {
+        int[] array = new int[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = i * 0x9E3779B9;
+        }
+        return array;
+    }
+
+    private static double[] doubles(int length) {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = i * 1.25 + 1;
+        }
+        return array;
+    }
+
+    public static void addSnippet(int[] result, int[] x, int[] y, int n) {
+        for (int i = 0; i < n; i++) {
+            result[i] = x[i] + y[i];
+        }
+    }
+
+    public static void shiftedSnippet(int[] result, int[] x, int[] y, int n) {
+        for (int i = 0; i < n; i++) {
+            result[i + 1] = x[i] + y[i];
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static void extraLoadSnippet(int[] result, int[] x, int[] y, int[] z, int n) {
+        for (int i = 0; i < n; i++) {
+            int t = z[i];
+            result[i] = x[i] + y[i];
+        }
+    }
+
+    public static int[] extraLoadCheckedSnippet(int length, int zLength, int limit) {
+        int[] x = ints(length);
+        int[] y = ints(length);
+        int[] z = zLength < 0 ? null : ints(zLength);
+        int[] result = new int[length];
+        extraLoadSnippet(result, x, y, z, limit);
+        return result;
+    }
+
+    public static int[] subIntsSnippet(int length, int start, int limit) {
+        int[] x = ints(length);
+        int[] y = ints(length + 3);
+        int[] result = new int[length];
+        for (int i = start; i < limit; i++) {
+            result[i] = x[i] - y[i];
+        }
+        return result;
+    }
+
+    public static int[] mulIntsInPlaceSnippet(int length, int limit) {
+        int[] x = ints(length);
+        for (int i = 0; i < limit; i++) {
+            x[i] = x[i] * x[i];
+        }
+        return x;
+    }
+
+    public static double[] divDoublesSnippet(int length, int start, int limit) {
+        double[] x = doubles(length);
+        double[] y = doubles(length);
+        for (int i = start; i < limit; i++) {
+            x[i] = x[i] / y[i];
+        }
+        return x;
+    }
+
+    @Test
+    public void testVectorized() {
+        Assert.assertEquals(1, vectorize("addSnippet"));
+    }
+
+    @Test
+    public void testNotVectorized() {
+        Assert.assertEquals(0, vectorize("shiftedSnippet"));
+    }
+
+    @Test
+    public void testExtraLoad() {
+        Assert.assertEquals(0, vectorize("extraLoadSnippet"));
+        test("extraLoadCheckedSnippet", 8, 8, 8);
+        test("extraLoadCheckedSnippet", 8, 4, 8);
+        test("extraLoadCheckedSnippet", 8, -1, 8);
+    }
+
+    @Test
+    public void testSubInts() {
+        for (int length : new int[]{0, 1, 7, 8, 9, 33}) {
+            test("subIntsSnippet", length, 0, length);
+            test("subIntsSnippet", length, 1, length);
+            test("subIntsSnippet", length, 0, length + 1);
+            test("subIntsSnippet", length, -1, length);
+        }
+    }
+
+    @Test
+    public void testMulIntsInPlace() {
+        for (int length : new int[]{0, 3, 16, 17, 100}) {
+            test("mulIntsInPlaceSnippet", length, length);
+            test("mulIntsInPlaceSnippet", length, length / 2);
+        }
+    }
+
+    @Test
+    public void testDivDoubles() {
+        for (int length : new int[]{0, 2, 5, 64}) {
+            test("divDoublesSnippet", length, 0, length);
+            test("divDoublesSnippet", length, 1, length + 2);
+        }
+    }
+
+    private int vectorize(String snippet) {
+        StructuredGraph graph = parseEager(snippet);
+        HighTierContext context = new HighTierContext(getProviders(), new Assumptions(false), null, getDefaultGraphBuilderSuite(), OptimisticOptimizations.ALL);
+        new LoopVectorizationPhase().apply(graph, context);
+        return graph.getNodes().filter(ArrayArithmeticNode.class).count();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.inlining;
+
+import static com.oracle.graal.compiler.common.GraalOptions.*;
+
+import java.lang.reflect.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.options.*;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.common.inlining.*;
+import com.oracle.graal.phases.tiers.*;
+import com.oracle.graal.test.*;
+
+/**
+ * Tests the hit, invalidation and eviction paths of {@link ParsedGraphCache} with methods whose
+ * deoptimization count is controlled by the test.
+ */
+public class ParsedGraphCacheTest extends GraalTest {
+
+    /**
+     * Creates a method whose profile reports {@code deoptimizations[0]} deoptimizations for
+     * {@link DeoptimizationReason#NullCheckException} and none for any other reason.
+     */
+    private static ResolvedJavaMethod createMethod(final int[] deoptimizations) {
+        final ProfilingInfo profilingInfo = (ProfilingInfo) Proxy.newProxyInstance(ParsedGraphCacheTest.class.getClassLoader(), new Class<?>[]{ProfilingInfo.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getDeoptimizationCount")) {
+                    return args[0] == DeoptimizationReason.NullCheckException ? deoptimizations[0] : 0;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        return (ResolvedJavaMethod) Proxy.newProxyInstance(ParsedGraphCacheTest.class.getClassLoader(), new Class<?>[]{ResolvedJavaMethod.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "getProfilingInfo":
+                        return profilingInfo;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "TestMethod@" + Integer.toHexString(System.identityHashCode(proxy));
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        });
+    }
+
+    private final HighTierContext context = new HighTierContext(null, null, null, null, null, null, new PhaseSuite<HighTierContext>(), OptimisticOptimizations.ALL);
+
+    private StructuredGraph parse(ResolvedJavaMethod method) {
+        StructuredGraph graph = new StructuredGraph(method);
+        ParsedGraphCache.put(graph, context, ParsedGraphCache.getDeoptimizationCount(method));
+        return graph;
+    }
+
+    @Before
+    @After
+    public void clearCache() {
+        ParsedGraphCache.clear();
+    }
+
+    @Test
+    public void testHit() {
+        ResolvedJavaMethod method = createMethod(new int[1]);
+        Assert.assertNull(ParsedGraphCache.get(method, context));
+        StructuredGraph graph = parse(method);
+        Assert.assertTrue(graph.isFrozen());
+        Assert.assertSame(graph, ParsedGraphCache.get(method, context));
+        Assert.assertSame(graph, ParsedGraphCache.get(method, context));
+
+        // a different graph builder suite must not see the graph
+        HighTierContext other = new HighTierContext(null, null, null, null, null, null, new PhaseSuite<HighTierContext>(), OptimisticOptimizations.ALL);
+        Assert.assertNull(ParsedGraphCache.get(method, other));
+    }
+
+    @Test
+    public void testDeoptimizationInvalidates() {
+        int[] deoptimizations = new int[1];
+        ResolvedJavaMethod method = createMethod(deoptimizations);
+        parse(method);
+        deoptimizations[0]++;
+        Assert.assertNull(ParsedGraphCache.get(method, context));
+
+        // the stale graph was dropped, so the old count does not revive it
+        deoptimizations[0]--;
+        Assert.assertNull(ParsedGraphCache.get(method, context));
+
+        deoptimizations[0]++;
+        StructuredGraph graph = parse(method);
+        Assert.assertSame(graph, ParsedGraphCache.get(method, context));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        try (OverrideScope s = OptionValue.override(SharedGraphCacheSize, 2)) {
+            ResolvedJavaMethod a = createMethod(new int[1]);
+            ResolvedJavaMethod b = createMethod(new int[1]);
+            ResolvedJavaMethod c = createMethod(new int[1]);
+            StructuredGraph graphA = parse(a);
+            parse(b);
+
+            // touching a makes b the least recently used graph
+            Assert.assertSame(graphA, ParsedGraphCache.get(a, context));
+            StructuredGraph graphC = parse(c);
+
+            Assert.assertNull(ParsedGraphCache.get(b, context));
+            Assert.assertSame(graphA, ParsedGraphCache.get(a, context));
+            Assert.assertSame(graphC, ParsedGraphCache.get(c, context));
+        }
+    }
+}
@@ -63,6 +63,12 @@ public class GraalCompiler {
     private static final DebugTimer FrontEnd = Debug.timer("FrontEnd");
     private static final DebugTimer BackEnd = Debug.timer("BackEnd");
 
+    /**
+     * Number of LIR instructions after all LIR optimizations. Can be made unconditional to track
+     * the LIR size of individual compilations.
+     */
+    public static final DebugMetric LIRInstructions = Debug.metric("LIRInstructions");
+
     /**
      * The set of positive filters specified by the {@code -G:IntrinsificationsEnabled} option. To
      * enable a fast path in {@link #shouldIntrinsify(JavaMethod)}, this field is {@code null} when
@@ -277,7 +283,7 @@ public class GraalCompiler {
         try (TimerCloseable a = BackEnd.start()) {
             LIRGenerationResult lirGen = null;
             lirGen = emitLIR(backend, target, schedule, graph, stub, cc, registerConfig);
-            try (Scope s = Debug.scope("CodeGen", lirGen)) {
+            try (Scope s = Debug.scope("CodeGen", lirGen); PhaseProfiler.Sample p = PhaseProfiler.start("CodeGen", null)) {
                 emitCode(backend, assumptions, lirGen, compilationResult, installedCodeOwner, factory);
             } catch (Throwable e) {
                 throw Debug.handle(e);
@@ -326,7 +332,7 @@ public class GraalCompiler {
             LIRGeneratorTool lirGen = backend.newLIRGenerator(cc, lirGenRes);
             NodeLIRBuilderTool nodeLirGen = backend.newNodeLIRBuilder(graph, lirGen);
 
-            try (Scope s = Debug.scope("LIRGen", lirGen)) {
+            try (Scope s = Debug.scope("LIRGen", lirGen); PhaseProfiler.Sample p = PhaseProfiler.start("LIRGen", graph)) {
                 for (Block b : linearScanOrder) {
                     emitBlock(nodeLirGen, lirGenRes, b, graph, schedule.getBlockToNodesMap());
                 }
@@ -338,7 +344,7 @@ public class GraalCompiler {
             }
 
             if (ConstantLoadOptimization.Options.ConstantLoadOptimization.getValue()) {
-                try (Scope s = Debug.scope("ConstantLoadOptimization", lir)) {
+                try (Scope s = Debug.scope("ConstantLoadOptimization", lir); PhaseProfiler.Sample p = PhaseProfiler.start("ConstantLoadOptimization", null)) {
                     ConstantLoadOptimization.optimize(lirGenRes.getLIR(), lirGen);
                     Debug.dump(lir, "After constant load optimization");
                 } catch (Throwable e) {
@@ -346,7 +352,7 @@ public class GraalCompiler {
                 }
             }
 
-            try (Scope s = Debug.scope("Allocator", nodeLirGen)) {
+            try (Scope s = Debug.scope("Allocator", nodeLirGen); PhaseProfiler.Sample p = PhaseProfiler.start("LinearScan", null)) {
                 if (backend.shouldAllocateRegisters()) {
                     LinearScan.allocate(target, lirGenRes);
                 } else {
@@ -358,17 +364,31 @@ public class GraalCompiler {
             }
 
             try (Scope s = Debug.scope("ControlFlowOptimizations")) {
-                EdgeMoveOptimizer.optimize(lir);
-                ControlFlowOptimizer.optimize(lir, codeEmittingOrder);
+                try (PhaseProfiler.Sample p = PhaseProfiler.start("EdgeMoveOptimizer", null)) {
+                    EdgeMoveOptimizer.optimize(lir);
+                }
+                try (PhaseProfiler.Sample p = PhaseProfiler.start("ControlFlowOptimizer", null)) {
+                    ControlFlowOptimizer.optimize(lir, codeEmittingOrder);
+                }
                 if (lirGen.canEliminateRedundantMoves()) {
-                    RedundantMoveElimination.optimize(lir, frameMapBuilder);
+                    try (PhaseProfiler.Sample p = PhaseProfiler.start("RedundantMoveElimination", null)) {
+                        RedundantMoveElimination.optimize(lir, frameMapBuilder);
+                    }
+                }
+                try (PhaseProfiler.Sample p = PhaseProfiler.start("NullCheckOptimizer", null)) {
+                    NullCheckOptimizer.optimize(lir, target.implicitNullCheckLimit);
                 }
-                NullCheckOptimizer.optimize(lir, target.implicitNullCheckLimit);
 
                 Debug.dump(lir, "After control flow optimization");
             } catch (Throwable e) {
                 throw Debug.handle(e);
             }
+
+            if (Debug.isMeterEnabled() || !LIRInstructions.isConditional()) {
+                for (Block b : linearScanOrder) {
+                    LIRInstructions.add(lir.getLIRforBlock(b).size());
+                }
+            }
             return lirGenRes;
         } catch (Throwable e) {
             throw Debug.handle(e);
@@ -58,6 +58,8 @@ public class GraalDebugConfig implements DebugConfig {
                    "Complete - aggregate by qualified name%n" +
                    "Thread - aggregate by qualified name and thread")
     public static final OptionValue<String> DebugValueSummary = new OptionValue<>("Name");
+    @Option(help = "Print metric and timing values aggregated by name every this many milliseconds while the VM runs (requires DebugValueSummary=Name)")
+    public static final OptionValue<Integer> DebugValueExportPeriod = new OptionValue<>(0);
     @Option(help = "Omit reporting 0-value metrics")
     public static final OptionValue<Boolean> SuppressZeroDebugValues = new OptionValue<>(false);
     @Option(help = "Send Graal IR to dump handlers on error")
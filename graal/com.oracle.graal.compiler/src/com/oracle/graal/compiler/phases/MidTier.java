@@ -55,6 +55,10 @@ public class MidTier extends PhaseSuite<MidTierContext> {
         }
         appendPhase(new RemoveValueProxyPhase());
 
+        if (OptGlobalValueNumbering.getValue()) {
+            appendPhase(new GlobalValueNumberingPhase());
+        }
+
         if (OptCanonicalizer.getValue()) {
             appendPhase(canonicalizer);
         }
@@ -75,6 +79,8 @@ public class MidTier extends PhaseSuite<MidTierContext> {
             appendPhase(canonicalizer);
         }
 
+        appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopRangeCheckEliminationPhase()));
+
         appendPhase(new IncrementalCanonicalizerPhase<>(canonicalizer, new LoopSafepointEliminationPhase()));
 
         appendPhase(new LoopSafepointInsertionPhase());
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import com.oracle.graal.debug.*;
+
+public class DebugMetricTest {
+
+    @Test
+    public void testTotalValue() throws InterruptedException {
+        DebugMetric metric = Debug.metric("TotalValueTestMetric");
+        long[] totals = new long[2];
+        Thread thread = new Thread(() -> {
+            DebugConfig debugConfig = Debug.fixedConfig(0, 0, true, false, false, false, null, null, System.out);
+            try (DebugConfigScope dcs = new DebugConfigScope(debugConfig); Debug.Scope s = Debug.scope("DebugMetricTest")) {
+                totals[0] = metric.getTotalValue();
+                metric.add(2);
+                try (Debug.Scope s2 = Debug.scope("Nested")) {
+                    metric.add(3);
+                    try (Debug.Scope s3 = Debug.scope("MoreNested")) {
+                        metric.add(4);
+                    }
+                }
+                totals[1] = metric.getTotalValue();
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertEquals(9, totals[1] - totals[0]);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import com.oracle.graal.debug.*;
+import com.oracle.graal.debug.internal.*;
+
+public class DebugValueSlabTest {
+
+    private boolean wasEnabled;
+
+    @Before
+    public void enableSlabs() {
+        wasEnabled = DebugValueSlab.isEnabled();
+        DebugValueSlab.enable();
+    }
+
+    @After
+    public void restoreSlabs() {
+        if (!wasEnabled) {
+            DebugValueSlab.disable();
+        }
+    }
+
+    @Test
+    public void testSnapshot() throws InterruptedException {
+        DebugMetric metric = Debug.metric("SlabTestMetric");
+        long[] scopeValue = new long[1];
+        Thread thread = new Thread(() -> {
+            DebugConfig debugConfig = Debug.fixedConfig(0, 0, true, false, false, false, null, null, System.out);
+            try (DebugConfigScope dcs = new DebugConfigScope(debugConfig); Debug.Scope s = Debug.scope("DebugValueSlabTest")) {
+                metric.add(2);
+                try (Debug.Scope s2 = Debug.scope("Nested")) {
+                    metric.add(3);
+                    // values are no longer kept per scope
+                    scopeValue[0] = metric.getCurrentValue();
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertEquals(5, scopeValue[0]);
+        long[] snapshot = DebugValueSlab.snapshot();
+        int index = ((DebugValue) metric).getIndex();
+        assertTrue(index < snapshot.length);
+        assertEquals(5, snapshot[index]);
+    }
+
+    @Test
+    public void testDeadThreads() throws InterruptedException {
+        DebugMetric metric = Debug.metric("SlabTestDeadThreadMetric");
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                DebugConfig debugConfig = Debug.fixedConfig(0, 0, true, false, false, false, null, null, System.out);
+                try (DebugConfigScope dcs = new DebugConfigScope(debugConfig); Debug.Scope s = Debug.scope("DebugValueSlabTest")) {
+                    metric.add(1);
+                }
+            });
+            thread.start();
+            thread.join();
+        }
+
+        // The slabs of the dead threads are merged, so their values survive
+        int index = ((DebugValue) metric).getIndex();
+        assertEquals(4, DebugValueSlab.snapshot()[index]);
+        assertEquals(4, DebugValueSlab.snapshot()[index]);
+    }
+}
@@ -1062,6 +1062,10 @@ public class Debug {
         public long getCurrentValue() {
             return 0L;
         }
+
+        public long getTotalValue() {
+            return 0L;
+        }
     };
 
     private static final DebugMemUseTracker VOID_MEM_USE_TRACKER = new DebugMemUseTracker() {
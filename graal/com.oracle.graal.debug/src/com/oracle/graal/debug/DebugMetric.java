@@ -55,4 +55,10 @@ public interface DebugMetric {
      * Gets the current value of this metric.
      */
     long getCurrentValue();
+
+    /**
+     * Gets the value of this metric in the current scope and all scopes nested in it. Use this to
+     * measure a call that opens its own scopes.
+     */
+    long getTotalValue();
 }
@@ -95,6 +95,12 @@ public final class DebugScope implements Debug.Scope {
     private final Object[] context;
 
     private final DebugValueMap valueMap;
+
+    /**
+     * The values of this thread if they are not recorded per scope, shared by all scopes of a
+     * thread.
+     */
+    private final DebugValueSlab valueSlab;
     private final String qualifiedName;
 
     private static final char SCOPE_SEP = '.';
@@ -145,6 +151,11 @@ public final class DebugScope implements Debug.Scope {
         assert context != null;
 
         if (parent != null) {
+            this.valueSlab = parent.valueSlab;
+            if (valueSlab != null) {
+                this.valueMap = null;
+                return;
+            }
             for (DebugValueMap child : parent.getValueMap().getChildren()) {
                 if (child.getName().equals(name)) {
                     this.valueMap = child;
@@ -154,6 +165,7 @@ public final class DebugScope implements Debug.Scope {
             this.valueMap = new DebugValueMap(name);
             parent.getValueMap().addChild(this.valueMap);
         } else {
+            this.valueSlab = DebugValueSlab.isEnabled() ? new DebugValueSlab() : null;
             this.valueMap = new DebugValueMap(name);
         }
     }
@@ -327,11 +339,34 @@ public final class DebugScope implements Debug.Scope {
     }
 
     long getCurrentValue(int index) {
+        if (valueSlab != null) {
+            return valueSlab.get(index);
+        }
         return getValueMap().getCurrentValue(index);
     }
 
+    long getTotalValue(int index) {
+        if (valueSlab != null) {
+            return valueSlab.get(index);
+        }
+        return getValueMap().getTotalValue(index);
+    }
+
     void setCurrentValue(int index, long l) {
-        getValueMap().setCurrentValue(index, l);
+        if (valueSlab != null) {
+            valueSlab.set(index, l);
+        } else {
+            getValueMap().setCurrentValue(index, l);
+        }
+    }
+
+    void addToCurrentValue(int index, long delta) {
+        if (valueSlab != null) {
+            valueSlab.add(index, delta);
+        } else {
+            DebugValueMap map = getValueMap();
+            map.setCurrentValue(index, map.getCurrentValue(index) + delta);
+        }
     }
 
     private DebugScope createChild(String newName, Object[] newContext) {
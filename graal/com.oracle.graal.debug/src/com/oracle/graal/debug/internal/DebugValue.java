@@ -43,6 +43,14 @@ public abstract class DebugValue implements Comparable<DebugValue> {
         return DebugScope.getInstance().getCurrentValue(index);
     }
 
+    /**
+     * Gets the value recorded in the current scope and all scopes nested in it.
+     */
+    public long getTotalValue() {
+        ensureInitialized();
+        return DebugScope.getInstance().getTotalValue(index);
+    }
+
     protected void setCurrentValue(long l) {
         ensureInitialized();
         DebugScope.getInstance().setCurrentValue(index, l);
@@ -63,7 +71,8 @@ public abstract class DebugValue implements Comparable<DebugValue> {
     }
 
     protected void addToCurrentValue(long value) {
-        setCurrentValue(getCurrentValue() + value);
+        ensureInitialized();
+        DebugScope.getInstance().addToCurrentValue(index, value);
     }
 
     /**
@@ -49,6 +49,19 @@ public class DebugValueMap {
         return values[index];
     }
 
+    /**
+     * Gets the sum of the value at {@code index} in this map and all maps nested in it.
+     */
+    public long getTotalValue(int index) {
+        long total = values != null && index < values.length ? values[index] : 0L;
+        if (children != null) {
+            for (DebugValueMap child : children) {
+                total += child.getTotalValue(index);
+            }
+        }
+        return total;
+    }
+
     public void clearChildren() {
         if (children != null) {
             children.clear();
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.internal;
+
+import java.lang.ref.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * The {@link DebugValue}s of a single thread indexed by {@link KeyRegistry} id, independent of the
+ * scope in which they were recorded. Only the owning thread updates a slab, so updates do not
+ * need atomic read-modify-write operations or locks. Other threads can take a {@linkplain #snapshot()
+ * snapshot} of the totals across all threads at any time. The slab of a thread that has died is
+ * merged into a single total for all dead threads and dropped.
+ * <p>
+ * Slabs are only used once {@linkplain #enable() enabled}, which is appropriate when the values
+ * are only reported aggregated by name. Otherwise the values are recorded in the
+ * {@link DebugValueMap} of each scope.
+ */
+public final class DebugValueSlab {
+
+    private static final int MIN_CAPACITY = 256;
+
+    private static final ConcurrentLinkedQueue<DebugValueSlab> slabs = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The values of the slabs of threads that have died, guarded by the {@link DebugValueSlab}
+     * class.
+     */
+    private static long[] retired = new long[0];
+
+    private static volatile boolean enabled;
+
+    /**
+     * Makes threads that have not yet created a {@link DebugScope} record their values in a slab.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Makes threads that have not yet created a {@link DebugScope} record their values in the
+     * {@link DebugValueMap} of each scope again. Existing slabs keep their values.
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    private final WeakReference<Thread> owner;
+    private volatile AtomicLongArray values;
+
+    DebugValueSlab() {
+        owner = new WeakReference<>(Thread.currentThread());
+        values = new AtomicLongArray(MIN_CAPACITY);
+        retireDeadSlabs();
+        slabs.add(this);
+    }
+
+    private boolean isOwnerDead() {
+        Thread thread = owner.get();
+        return thread == null || !thread.isAlive();
+    }
+
+    /**
+     * Merges the slabs of dead threads into {@link #retired} and drops them. A dead thread no longer
+     * updates its slab, so its values are final.
+     */
+    private static void retireDeadSlabs() {
+        for (DebugValueSlab slab : slabs) {
+            // Only the caller that removes the slab merges it
+            if (slab.isOwnerDead() && slabs.remove(slab)) {
+                AtomicLongArray v = slab.values;
+                synchronized (DebugValueSlab.class) {
+                    if (retired.length < v.length()) {
+                        retired = Arrays.copyOf(retired, v.length());
+                    }
+                    for (int i = 0; i < v.length(); i++) {
+                        retired[i] += v.get(i);
+                    }
+                }
+            }
+        }
+    }
+
+    long get(int index) {
+        AtomicLongArray v = values;
+        return index < v.length() ? v.get(index) : 0L;
+    }
+
+    void set(int index, long value) {
+        ensureCapacity(index).lazySet(index, value);
+    }
+
+    void add(int index, long delta) {
+        AtomicLongArray v = ensureCapacity(index);
+        v.lazySet(index, v.get(index) + delta);
+    }
+
+    private AtomicLongArray ensureCapacity(int index) {
+        AtomicLongArray v = values;
+        if (index >= v.length()) {
+            AtomicLongArray newValues = new AtomicLongArray(Math.max(v.length() * 2, index + 1));
+            for (int i = 0; i < v.length(); i++) {
+                newValues.lazySet(i, v.get(i));
+            }
+            values = newValues;
+            v = newValues;
+        }
+        return v;
+    }
+
+    /**
+     * Sums up the values of all slabs without blocking the threads updating them. The result is
+     * indexed by {@link KeyRegistry} id. Values that are updated while the snapshot is taken may or
+     * may not be included.
+     */
+    public static long[] snapshot() {
+        retireDeadSlabs();
+        long[] totals;
+        synchronized (DebugValueSlab.class) {
+            totals = retired.clone();
+        }
+        for (DebugValueSlab slab : slabs) {
+            AtomicLongArray v = slab.values;
+            if (totals.length < v.length()) {
+                totals = Arrays.copyOf(totals, v.length());
+            }
+            for (int i = 0; i < v.length(); i++) {
+                totals[i] += v.get(i);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Clears all slabs. Updates racing with this call may survive it.
+     */
+    public static void reset() {
+        synchronized (DebugValueSlab.class) {
+            Arrays.fill(retired, 0L);
+        }
+        for (DebugValueSlab slab : slabs) {
+            AtomicLongArray v = slab.values;
+            for (int i = 0; i < v.length(); i++) {
+                v.set(i, 0L);
+            }
+        }
+    }
+}
@@ -24,22 +24,28 @@ package com.oracle.graal.hotspot.server;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
-
-import javax.net.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import com.oracle.graal.hotspot.*;
 import com.oracle.graal.hotspot.bridge.*;
 import com.oracle.graal.hotspot.logging.*;
 
 /**
- * Server side of the client/server compilation model. The server listens for connections on the
- * hardcoded port 1199.
+ * Server side of the client/server compilation model. The server listens for connections on
+ * {@link #DEFAULT_PORT} unless another port is specified. If the server accepts multiple
+ * connections, each connection is served by its own session thread so that several clients can
+ * use the server at the same time.
  */
 public class CompilationServer implements Runnable {
 
+    public static final int DEFAULT_PORT = 1199;
+
     public static void main(String[] args) throws Exception {
-        new CompilationServer(false).run();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        new CompilationServer(port, false).run();
     }
 
     public interface ConnectionObserver {
@@ -49,18 +55,30 @@ public class CompilationServer implements Runnable {
         void connectionFinished(HotSpotGraalRuntime compiler);
     }
 
+    private final int port;
     private final boolean multiple;
-    private final ArrayList<ConnectionObserver> observers = new ArrayList<>();
+    private final List<ConnectionObserver> observers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    /**
+     * Creates a new Compilation server listening on {@link #DEFAULT_PORT}.
+     * 
+     * @see #CompilationServer(int, boolean)
+     */
+    public CompilationServer(boolean multiple) {
+        this(DEFAULT_PORT, multiple);
+    }
 
     /**
      * Creates a new Compilation server. The server is activated by calling {@link #run()} directly
      * or via a new {@link Thread}.
      * 
-     * @param multiple true if the server should server should serve an infinite amount of
-     *            consecutive connections, false if it should terminate after the first connection
-     *            ends.
+     * @param port the port to listen on
+     * @param multiple true if the server should serve an infinite amount of concurrent
+     *            connections, false if it should terminate after the first connection ends.
      */
-    public CompilationServer(boolean multiple) {
+    public CompilationServer(int port, boolean multiple) {
+        this.port = port;
         this.multiple = multiple;
     }
 
@@ -73,50 +91,96 @@ public class CompilationServer implements Runnable {
     }
 
     public void run() {
-        final ServerSocket serverSocket;
+        final ServerSocketChannel serverChannel;
         try {
-            serverSocket = ServerSocketFactory.getDefault().createServerSocket(1199);
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
         } catch (IOException e) {
             throw new RuntimeException("Couldn't create compilation server", e);
         }
-        do {
-            Socket socket = null;
+        ExecutorService sessions = multiple ? Executors.newCachedThreadPool(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "CompilationServerSession-" + sessionCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }) : null;
+        try {
+            do {
+                Logger.log("Compilation server ready on port " + port + ", waiting for client to connect...");
+                final SocketChannel channel;
+                try {
+                    channel = serverChannel.accept();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    break;
+                }
+                if (sessions != null) {
+                    sessions.execute(new Runnable() {
+                        public void run() {
+                            serve(channel);
+                        }
+                    });
+                } else {
+                    serve(channel);
+                }
+            } while (multiple);
+        } finally {
+            if (sessions != null) {
+                sessions.shutdown();
+            }
             try {
-                Logger.log("Compilation server ready, waiting for client to connect...");
-                socket = serverSocket.accept();
-                Logger.log("Connected to " + socket.getRemoteSocketAddress());
+                serverChannel.close();
+            } catch (IOException e) {
+            }
+        }
+    }
 
-                ReplacingStreams streams = new ReplacingStreams(socket.getOutputStream(), socket.getInputStream());
+    /**
+     * Serves one client connection until the client disconnects.
+     */
+    private void serve(SocketChannel channel) {
+        InvocationSocket invocation = null;
+        try {
+            Socket socket = channel.socket();
+            socket.setTcpNoDelay(true);
+            Logger.log("Connected to " + socket.getRemoteSocketAddress());
 
-                // get the CompilerToVM proxy from the client
-                CompilerToVM toVM = (CompilerToVM) streams.getInvocation().waitForResult(false);
+            ReplacingStreams streams = new ReplacingStreams(Channels.newOutputStream(channel), Channels.newInputStream(channel));
+            invocation = streams.getInvocation();
 
-                // return the initialized compiler to the client
-                HotSpotGraalRuntime compiler = initializeServer(toVM);
-                streams.getInvocation().sendResult(compiler);
+            // get the CompilerToVM proxy from the client
+            CompilerToVM toVM = (CompilerToVM) invocation.waitForResult(false);
 
-                for (ConnectionObserver observer : observers) {
-                    observer.connectionStarted(compiler);
-                }
+            // return the initialized compiler to the client
+            HotSpotGraalRuntime compiler = initializeServer(toVM);
+            invocation.sendResult(compiler);
 
-                streams.getInvocation().waitForResult(true);
+            // metadata cached during the handshake must not leak into the session
+            invocation.invalidateCaches();
 
-                for (ConnectionObserver observer : observers) {
-                    observer.connectionFinished(compiler);
-                }
+            for (ConnectionObserver observer : observers) {
+                observer.connectionStarted(compiler);
+            }
+
+            invocation.waitForResult(true);
+
+            for (ConnectionObserver observer : observers) {
+                observer.connectionFinished(compiler);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (invocation != null) {
+                invocation.invalidateCaches();
+            }
+            try {
+                channel.close();
             } catch (IOException e) {
-                e.printStackTrace();
-            } catch (ClassNotFoundException e) {
-                throw new RuntimeException(e);
-            } finally {
-                if (socket != null) {
-                    try {
-                        socket.close();
-                    } catch (IOException e) {
-                    }
-                }
             }
-        } while (multiple);
+        }
     }
 
     @SuppressWarnings("unused")
@@ -36,6 +36,12 @@ import com.oracle.graal.hotspot.logging.*;
  * class waits for a result. While waiting for a result three types of objects can arrive through
  * the socket: a method invocation, a method result or an exception. Method invocation can thus be
  * recursive.
+ * 
+ * The messages are written with Java serialization rather than a hand-written binary format. The
+ * {@linkplain ReplacingStreams replacing streams} substitute placeholders for {@link Remote} objects
+ * anywhere in the serialized object graph, which a custom framing would have to reimplement for
+ * arbitrary argument and result types. The per-call overhead is instead kept small by sending
+ * {@link MethodDefinition method ids} instead of method names and parameter types.
  */
 public class InvocationSocket {
 
@@ -51,7 +57,6 @@ public class InvocationSocket {
         cachedMethodNames.add("isResolved");
         cachedMethodNames.add("getCompilerToVM");
         cachedMethodNames.add("exactType");
-        cachedMethodNames.add("isInitialized");
         forbiddenMethodNames.add("javaClass");
     }
 
@@ -60,6 +65,23 @@ public class InvocationSocket {
 
     private final Map<String, Integer> counts = new HashMap<>();
 
+    /**
+     * The ids of the methods that have been {@linkplain MethodDefinition defined} for the other end
+     * of the socket.
+     */
+    private final Map<Method, Integer> sentMethods = new HashMap<>();
+
+    /**
+     * The methods defined by the other end of the socket, indexed by their id.
+     */
+    private final ArrayList<Method> receivedMethods = new ArrayList<>();
+
+    /**
+     * All handlers created for this socket, so that their caches can be
+     * {@linkplain #invalidateCaches() invalidated} together.
+     */
+    private final List<Handler> handlers = new ArrayList<>();
+
     public InvocationSocket(ObjectOutputStream output, ObjectInputStream input) {
         this.output = output;
         this.input = input;
@@ -81,6 +103,28 @@ public class InvocationSocket {
         }
     }
 
+    /**
+     * Assigns an id to a method. It is sent once before the first {@link Invocation} of the method
+     * so that invocations only need to transfer the id. Unlike a method name, the definition also
+     * identifies overloaded methods exactly.
+     */
+    private static class MethodDefinition implements Serializable {
+
+        private static final long serialVersionUID = 5338105618322616573L;
+
+        public final int id;
+        public final Class<?> declaringClass;
+        public final String name;
+        public final Class<?>[] parameterTypes;
+
+        public MethodDefinition(int id, Method method) {
+            this.id = id;
+            this.declaringClass = method.getDeclaringClass();
+            this.name = method.getName();
+            this.parameterTypes = method.getParameterTypes();
+        }
+    }
+
     /**
      * Represents one invocation of a method that is transferred via the socket connection.
      * 
@@ -90,12 +134,12 @@ public class InvocationSocket {
         private static final long serialVersionUID = -799162779226626066L;
 
         public Object receiver;
-        public String methodName;
+        public int methodId;
         public Object[] args;
 
-        public Invocation(Object receiver, String methodName, Object[] args) {
+        public Invocation(Object receiver, int methodId, Object[] args) {
             this.receiver = receiver;
-            this.methodName = methodName;
+            this.methodId = methodId;
             this.args = args;
         }
     }
@@ -126,6 +170,45 @@ public class InvocationSocket {
         }
     }
 
+    /**
+     * Determines if the result of a call with the given arguments can be cached. This is the case
+     * if all arguments are values whose equality does not depend on the other end of the socket.
+     */
+    private static boolean isCacheableArguments(Object[] args) {
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg != null && !(arg instanceof Number || arg instanceof Boolean || arg instanceof Character || arg instanceof String || arg instanceof Enum)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int getMethodId(Method method) throws IOException {
+        Integer id = sentMethods.get(method);
+        if (id == null) {
+            id = sentMethods.size();
+            sentMethods.put(method, id);
+            output.writeObject(new MethodDefinition(id, method));
+        }
+        return id;
+    }
+
+    /**
+     * Discards all cached results, for example because the metadata they were computed from may
+     * have changed in the other VM.
+     */
+    public void invalidateCaches() {
+        synchronized (handlers) {
+            for (Handler handler : handlers) {
+                synchronized (handler.cache) {
+                    handler.cache.clear();
+                }
+            }
+        }
+    }
+
     /**
      * Each instance of this class handles remote invocations for one instance of a Remote class. It
      * will forward all interface methods to the other end of the socket and cache the results of
@@ -135,10 +218,18 @@ public class InvocationSocket {
     public class Handler implements InvocationHandler {
 
         private final Object receiver;
-        private final HashMap<String, Object> cache = new HashMap<>();
+
+        /**
+         * Cached results, keyed by the method and the list of arguments. Accesses are synchronized
+         * on the map since {@link #invalidateCaches()} may be called from another thread.
+         */
+        private final Map<List<Object>, Object> cache = new HashMap<>();
 
         public Handler(Object receiver) {
             this.receiver = receiver;
+            synchronized (handlers) {
+                handlers.add(this);
+            }
         }
 
         @Override
@@ -148,10 +239,18 @@ public class InvocationSocket {
                 return method.invoke(receiver, args);
             }
             String methodName = method.getName();
-            // check if the result of this zero-arg method was cached
-            if (args == null || args.length == 0) {
-                if (cache.containsKey(methodName)) {
-                    return cache.get(methodName);
+            // check if the result of this method was cached
+            List<Object> cacheKey = null;
+            if (cachedMethodNames.contains(methodName) && isCacheableArguments(args)) {
+                cacheKey = new ArrayList<>();
+                cacheKey.add(method);
+                if (args != null) {
+                    cacheKey.addAll(Arrays.asList(args));
+                }
+                synchronized (cache) {
+                    if (cache.containsKey(cacheKey)) {
+                        return cache.get(cacheKey);
+                    }
                 }
             }
             if (forbiddenMethodNames.contains(methodName)) {
@@ -164,13 +263,15 @@ public class InvocationSocket {
                 }
                 incCount(methodName, args);
 
-                output.writeObject(new Invocation(receiver, methodName, args));
+                output.writeObject(new Invocation(receiver, getMethodId(method), args));
                 output.flush();
                 result = waitForResult(false);
 
                 // result caching for selected methods
-                if ((args == null || args.length == 0) && cachedMethodNames.contains(methodName)) {
-                    cache.put(methodName, result);
+                if (cacheKey != null) {
+                    synchronized (cache) {
+                        cache.put(cacheKey, result);
+                    }
                 }
                 return result;
             } catch (Throwable t) {
@@ -207,20 +308,24 @@ public class InvocationSocket {
                 throw (RuntimeException) in;
             } else if (in instanceof Throwable) {
                 throw new RuntimeException((Throwable) in);
+            } else if (in instanceof MethodDefinition) {
+                MethodDefinition definition = (MethodDefinition) in;
+                assert definition.id == receivedMethods.size();
+                Method method;
+                try {
+                    method = definition.declaringClass.getDeclaredMethod(definition.name, definition.parameterTypes);
+                    method.setAccessible(true);
+                } catch (NoSuchMethodException e) {
+                    method = null;
+                }
+                receivedMethods.add(method);
+                continue;
             }
 
             Invocation invoke = (Invocation) in;
-            Method method = null;
-            for (Class<?> clazz = invoke.receiver.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
-                for (Method m : clazz.getDeclaredMethods()) {
-                    if (invoke.methodName.equals(m.getName())) {
-                        method = m;
-                        break;
-                    }
-                }
-            }
+            Method method = receivedMethods.get(invoke.methodId);
             if (method == null) {
-                Exception e = new UnsupportedOperationException("unknown method " + invoke.methodName);
+                Exception e = new UnsupportedOperationException("unknown method #" + invoke.methodId);
                 e.printStackTrace();
                 output.writeObject(e);
                 output.flush();
@@ -229,13 +334,13 @@ public class InvocationSocket {
                 try {
                     if (invoke.args == null) {
                         if (DEBUG) {
-                            Logger.startScope("invoking local " + invoke.methodName);
+                            Logger.startScope("invoking local " + method.getName());
                         }
                         result = method.invoke(invoke.receiver);
                     } else {
                         if (Logger.ENABLED && DEBUG) {
                             StringBuilder str = new StringBuilder();
-                            str.append("invoking local " + invoke.methodName + "(");
+                            str.append("invoking local " + method.getName() + "(");
                             for (int i = 0; i < invoke.args.length; i++) {
                                 str.append(i == 0 ? "" : ", ");
                                 str.append(Logger.pretty(invoke.args[i]));
@@ -247,15 +352,15 @@ public class InvocationSocket {
                     }
                     result = new Result(result);
                 } catch (IllegalArgumentException e) {
-                    TTY.println("error while invoking " + invoke.methodName);
+                    TTY.println("error while invoking " + method.getName());
                     e.getCause().printStackTrace();
                     result = e.getCause();
                 } catch (InvocationTargetException e) {
-                    TTY.println("error while invoking " + invoke.methodName);
+                    TTY.println("error while invoking " + method.getName());
                     e.getCause().printStackTrace();
                     result = e.getCause();
                 } catch (IllegalAccessException e) {
-                    TTY.println("error while invoking " + invoke.methodName);
+                    TTY.println("error while invoking " + method.getName());
                     e.getCause().printStackTrace();
                     result = e.getCause();
                 } finally {
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import java.io.*;
+
+import org.junit.*;
+
+import com.oracle.graal.hotspot.debug.*;
+
+/**
+ * Tests reading, writing and comparing {@link BenchmarkCountersSnapshot}s.
+ */
+public class BenchmarkCountersSnapshotTest {
+
+    private static BenchmarkCountersSnapshot snapshot(long durationNanos, String[] names, long... values) {
+        String[] groups = new String[names.length];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = i % 2 == 0 ? "allocations" : "~rate";
+        }
+        return new BenchmarkCountersSnapshot(1234, durationNanos, names, groups, values);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        BenchmarkCountersSnapshot original = snapshot(5_000_000_000L, new String[]{"Object[]", "calls"}, 100, 2000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        original.write(bytes);
+        BenchmarkCountersSnapshot copy = BenchmarkCountersSnapshot.read(new ByteArrayInputStream(bytes.toByteArray()));
+        Assert.assertEquals(original.timestamp, copy.timestamp);
+        Assert.assertEquals(original.durationNanos, copy.durationNanos);
+        Assert.assertEquals(2, copy.size());
+        for (int i = 0; i < copy.size(); i++) {
+            Assert.assertEquals(original.getName(i), copy.getName(i));
+            Assert.assertEquals(original.getGroup(i), copy.getGroup(i));
+            Assert.assertEquals(original.getValue(i), copy.getValue(i));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFormat() throws IOException {
+        BenchmarkCountersSnapshot.read(new ByteArrayInputStream(new byte[16]));
+    }
+
+    @Test
+    public void testDiff() {
+        BenchmarkCountersSnapshot base = snapshot(1_000_000_000L, new String[]{"Object[]", "calls"}, 100, 2000);
+        BenchmarkCountersSnapshot current = snapshot(3_000_000_000L, new String[]{"Object[]", "calls", "String"}, 150, 2000, 7);
+        BenchmarkCountersSnapshot diff = current.diff(base);
+        Assert.assertEquals(2_000_000_000L, diff.durationNanos);
+        Assert.assertEquals(50, diff.getValue("Object[]", "allocations"));
+        Assert.assertEquals(0, diff.getValue("calls", "~rate"));
+        Assert.assertEquals(7, diff.getValue("String", "allocations"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        diff.print(new PrintStream(bytes), 10);
+        String report = bytes.toString();
+        Assert.assertTrue(report, report.contains("Object[]"));
+        Assert.assertFalse(report, report.contains("calls"));
+    }
+}
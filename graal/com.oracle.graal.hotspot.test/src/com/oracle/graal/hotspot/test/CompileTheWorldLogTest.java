@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.test;
+
+import static com.oracle.graal.hotspot.CompileTheWorldLog.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.hotspot.*;
+import com.oracle.graal.hotspot.CompileTheWorldLog.Record;
+
+/**
+ * Tests reading, writing and comparing {@link CompileTheWorldLog} files.
+ */
+public class CompileTheWorldLogTest {
+
+    private static Record record(String method, byte status, long nanos, int codeSize) {
+        return new Record(method, status, nanos, 1024, new int[]{10, 20, 20, 30, 30, 40}, 50, codeSize);
+    }
+
+    private static List<Record> roundTrip(Record... records) throws IOException {
+        File file = File.createTempFile("ctw", ".log");
+        try {
+            try (CompileTheWorldLog.Writer writer = new CompileTheWorldLog.Writer(file)) {
+                for (Record r : records) {
+                    writer.write(r);
+                }
+            }
+            return CompileTheWorldLog.read(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Record original = record("java.lang.Object.hashCode()I", SUCCESS, 12345, 96);
+        List<Record> records = roundTrip(original, record("A.b()V", BAILOUT, 1, -1));
+        Assert.assertEquals(2, records.size());
+        Record r = records.get(0);
+        Assert.assertEquals(original.method, r.method);
+        Assert.assertEquals(SUCCESS, r.status);
+        Assert.assertEquals(original.compileNanos, r.compileNanos);
+        Assert.assertEquals(original.allocatedBytes, r.allocatedBytes);
+        Assert.assertArrayEquals(original.nodeCounts, r.nodeCounts);
+        Assert.assertEquals(original.lirInstructions, r.lirInstructions);
+        Assert.assertEquals(original.codeSize, r.codeSize);
+        Assert.assertEquals(BAILOUT, records.get(1).status);
+    }
+
+    @Test
+    public void testDiff() {
+        List<Record> base = Arrays.asList(record("A.slower()V", SUCCESS, 1_000_000, 100), record("A.larger()V", SUCCESS, 1_000_000, 100), record("A.broken()V", SUCCESS, 1_000_000, 100));
+        List<Record> current = Arrays.asList(record("A.slower()V", SUCCESS, 9_000_000, 100), record("A.larger()V", SUCCESS, 1_000_000, 300), record("A.broken()V", FAILURE, 1_000_000, -1));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CompileTheWorldLog.diff(base, current, 10, new PrintStream(bytes));
+        String report = bytes.toString();
+        String timeRegressions = report.substring(report.indexOf("compile time regressions"), report.indexOf("code size regressions"));
+        String sizeRegressions = report.substring(report.indexOf("code size regressions"), report.indexOf("no longer compile"));
+        Assert.assertTrue(report, report.startsWith("2 methods compiled in both logs"));
+        Assert.assertTrue(report, timeRegressions.contains("A.slower()V") && !timeRegressions.contains("A.larger()V"));
+        Assert.assertTrue(report, sizeRegressions.contains("A.larger()V") && !sizeRegressions.contains("A.slower()V"));
+        Assert.assertTrue(report, report.substring(report.indexOf("no longer compile")).contains("A.broken()V"));
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot;
+
+import static com.oracle.graal.compiler.common.GraalOptions.*;
+import static com.oracle.graal.hotspot.HotSpotGraalRuntime.*;
+import static com.oracle.graal.nodes.StructuredGraph.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.compiler.*;
+import com.oracle.graal.compiler.CompilerThreadFactory.DebugConfigAccess;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.debug.internal.*;
+import com.oracle.graal.hotspot.meta.*;
+import com.oracle.graal.options.*;
+import com.oracle.graal.printer.*;
+
+/**
+ * Compiles the hottest methods of Graal itself on a pool of threads right after the runtime is
+ * initialized, instead of waiting for them to become hot and to be compiled one by one through the
+ * VM's compile queue.
+ * <p>
+ * The methods are read from a profile file that lists one method per line in the form
+ * {@code holder name descriptor invocations}, hottest first. At shutdown the profile is rewritten
+ * from the invocation counts of all Graal methods with installed code, both those compiled from the
+ * profile and those that the VM requested to compile during the run. The counts of the previous
+ * profile are carried over at half their value, so a method that stops being hot disappears from
+ * the profile after a few runs.
+ */
+public final class BootstrapProfile {
+
+    static class Options {
+        // @formatter:off
+        @Option(help = "File from which the Graal methods to compile at startup are read and to which the Graal methods compiled during the run are written at shutdown")
+        public static final OptionValue<String> BootstrapProfile = new OptionValue<>(null);
+        @Option(help = "Number of threads compiling the methods of the bootstrap profile (0 uses all available processors)")
+        public static final OptionValue<Integer> BootstrapProfileThreads = new OptionValue<>(0);
+        @Option(help = "Maximum number of methods in the bootstrap profile")
+        public static final OptionValue<Integer> BootstrapProfileSize = new OptionValue<>(3000);
+        // @formatter:on
+    }
+
+    private static final String GRAAL_PACKAGE_PREFIX = "com.oracle.graal.";
+
+    /**
+     * The invocation counts of the methods read from the profile.
+     */
+    private static final Map<String, Integer> profiledMethods = new HashMap<>();
+
+    /**
+     * The Graal methods compiled during this run, either from the profile or because the VM
+     * requested them. Their invocation counts are read when the profile is written.
+     */
+    private static final ConcurrentMap<String, HotSpotResolvedJavaMethod> compiledMethods = new ConcurrentHashMap<>();
+
+    private BootstrapProfile() {
+    }
+
+    public static boolean isEnabled() {
+        return Options.BootstrapProfile.getValue() != null;
+    }
+
+    private static String key(ResolvedJavaMethod method) {
+        return method.getDeclaringClass().toJavaName() + " " + method.getName() + " " + method.getSignature().toMethodDescriptor();
+    }
+
+    /**
+     * Notes that {@code method} was compiled so that it is included in the profile written at
+     * shutdown.
+     */
+    static void recordCompilation(HotSpotResolvedJavaMethod method) {
+        if (method.getDeclaringClass().toJavaName().startsWith(GRAAL_PACKAGE_PREFIX)) {
+            compiledMethods.putIfAbsent(key(method), method);
+        }
+    }
+
+    private static ResolvedJavaMethod lookup(MetaAccessProvider metaAccess, String entry) {
+        String[] parts = entry.split(" ");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            ResolvedJavaType type = metaAccess.lookupJavaType(Class.forName(parts[0], false, BootstrapProfile.class.getClassLoader()));
+            for (ResolvedJavaMethod method : type.getDeclaredMethods()) {
+                if (method.getName().equals(parts[1]) && method.getSignature().toMethodDescriptor().equals(parts[2])) {
+                    return method;
+                }
+            }
+            for (ResolvedJavaMethod method : type.getDeclaredConstructors()) {
+                if (method.getName().equals(parts[1]) && method.getSignature().toMethodDescriptor().equals(parts[2])) {
+                    return method;
+                }
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            // the profile was written by a different version of Graal
+        }
+        return null;
+    }
+
+    /**
+     * Reads the profile and starts compiling its methods in the background. Compilations that the
+     * VM requests in the meantime are not delayed, they simply find the methods already compiled.
+     */
+    static void start(HotSpotGraalRuntime runtime) {
+        File file = new File(Options.BootstrapProfile.getValue());
+        if (!file.exists()) {
+            return;
+        }
+        try (InitTimer t = InitTimer.timer("BootstrapProfile.read")) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int countStart = line.lastIndexOf(' ');
+                    if (countStart > 0) {
+                        try {
+                            profiledMethods.put(line.substring(0, countStart), Integer.parseInt(line.substring(countStart + 1)));
+                        } catch (NumberFormatException e) {
+                            // the profile was written by a different version of Graal
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            TTY.println("Warning: could not read bootstrap profile %s: %s", file, e);
+            return;
+        }
+        List<HotSpotResolvedJavaMethod> methods = new ArrayList<>(profiledMethods.size());
+        MetaAccessProvider metaAccess = runtime.getHostProviders().getMetaAccess();
+        for (String entry : sortByHotness(profiledMethods)) {
+            ResolvedJavaMethod method = lookup(metaAccess, entry);
+            if (method != null && !method.isAbstract() && !method.isNative()) {
+                methods.add((HotSpotResolvedJavaMethod) method);
+            }
+        }
+
+        int threads = Options.BootstrapProfileThreads.getValue();
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        CompilerThreadFactory factory = new CompilerThreadFactory("BootstrapCompilerThread", new DebugConfigAccess() {
+            public GraalDebugConfig getDebugConfig() {
+                if (Debug.isEnabled() && DebugScope.getConfig() == null) {
+                    return DebugEnvironment.initialize(TTY.cachedOut);
+                }
+                return null;
+            }
+        });
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), factory);
+        final long start = System.currentTimeMillis();
+        final AtomicInteger remaining = new AtomicInteger(methods.size());
+        final int total = methods.size();
+        final int nthreads = threads;
+        for (final HotSpotResolvedJavaMethod method : methods) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    try {
+                        HotSpotBackend backend = runtime().getHostBackend();
+                        CompilationTask task = new CompilationTask(backend, method, INVOCATION_ENTRY_BCI, 0L, method.allocateCompileId(INVOCATION_ENTRY_BCI), true);
+                        task.runCompilation();
+                        recordCompilation(method);
+                    } catch (Throwable e) {
+                        // the method is compiled later if the VM requests it
+                        TTY.println("Compiling %s from the bootstrap profile failed: %s", method.format("%H.%n(%p)"), e);
+                        e.printStackTrace(TTY.cachedOut);
+                    } finally {
+                        if (remaining.decrementAndGet() == 0) {
+                            if (PrintCompilation.getValue() || InitTimer.ENABLED) {
+                                TTY.println("Compiled %d methods of the bootstrap profile in %d ms using %d threads", total, System.currentTimeMillis() - start, nthreads);
+                            }
+                            pool.shutdown();
+                        }
+                    }
+                }
+            });
+        }
+        if (total == 0) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Gets the keys of {@code counts} ordered by decreasing count.
+     */
+    private static List<String> sortByHotness(Map<String, Integer> counts) {
+        List<String> keys = new ArrayList<>(counts.keySet());
+        Collections.sort(keys, (a, b) -> Integer.compare(counts.get(b), counts.get(a)));
+        return keys;
+    }
+
+    /**
+     * Writes the profile for the next run.
+     */
+    static void write() {
+        Map<String, Integer> profile = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : profiledMethods.entrySet()) {
+            int decayed = entry.getValue() / 2;
+            if (decayed > 0) {
+                profile.put(entry.getKey(), decayed);
+            }
+        }
+        for (Map.Entry<String, HotSpotResolvedJavaMethod> entry : compiledMethods.entrySet()) {
+            HotSpotResolvedJavaMethod method = entry.getValue();
+            if (method.hasCompiledCode()) {
+                profile.merge(entry.getKey(), method.getInvocationCount(), Integer::sum);
+            }
+        }
+        int size = Options.BootstrapProfileSize.getValue();
+        try (PrintStream out = new PrintStream(new FileOutputStream(Options.BootstrapProfile.getValue()))) {
+            for (String entry : sortByHotness(profile)) {
+                if (size-- <= 0) {
+                    break;
+                }
+                out.println(entry + " " + profile.get(entry));
+            }
+        } catch (IOException e) {
+            TTY.println("Warning: could not write bootstrap profile %s: %s", Options.BootstrapProfile.getValue(), e);
+        }
+    }
+}
@@ -259,8 +259,10 @@ public class CompilationTask {
                 }
             }
             stats.finish(method, installedCode);
+            compilationFinished(result, null);
         } catch (BailoutException bailout) {
             BAILOUTS.increment();
+            compilationFinished(null, bailout);
             if (ExitVMOnBailout.getValue()) {
                 TTY.cachedOut.println(method.format("Bailout in %H.%n(%p)"));
                 bailout.printStackTrace(TTY.cachedOut);
@@ -270,6 +272,7 @@ public class CompilationTask {
                 bailout.printStackTrace(TTY.cachedOut);
             }
         } catch (Throwable t) {
+            compilationFinished(null, t);
             if (PrintStackTraceOnException.getValue() || ExitVMOnException.getValue()) {
                 t.printStackTrace(TTY.cachedOut);
             }
@@ -313,6 +316,17 @@ public class CompilationTask {
         }
     }
 
+    /**
+     * Called once the compilation either installed code or failed. Not called if the method already
+     * had code installed when this task was run.
+     *
+     * @param result the result of a successful compilation or null
+     * @param failure the {@link BailoutException} or other exception that stopped the compilation
+     *            or null
+     */
+    protected void compilationFinished(CompilationResult result, Throwable failure) {
+    }
+
     private String getMethodDescription() {
         return String.format("%-6d Graal %-70s %-45s %-50s %s", id, method.getDeclaringClass().getName(), method.getName(), method.getSignature().toMethodDescriptor(),
                         entryBCI == StructuredGraph.INVOCATION_ENTRY_BCI ? "" : "(OSR@" + entryBCI + ") ");
@@ -366,6 +380,9 @@ public class CompilationTask {
         HotSpotBackend backend = runtime().getHostBackend();
         CompilationTask task = new CompilationTask(backend, method, entryBCI, ctask, id, true);
         task.runCompilation();
+        if (BootstrapProfile.isEnabled() && entryBCI == StructuredGraph.INVOCATION_ENTRY_BCI) {
+            BootstrapProfile.recordCompilation(method);
+        }
         return;
     }
 }
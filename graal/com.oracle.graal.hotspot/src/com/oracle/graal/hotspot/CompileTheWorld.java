@@ -22,6 +22,7 @@
  */
 package com.oracle.graal.hotspot;
 
+import static com.oracle.graal.compiler.GraalCompiler.*;
 import static com.oracle.graal.compiler.common.GraalOptions.*;
 import static com.oracle.graal.debug.internal.MemUseTrackerImpl.*;
 import static com.oracle.graal.hotspot.HotSpotGraalRuntime.*;
@@ -31,17 +32,26 @@ import java.io.*;
 import java.lang.reflect.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.jar.*;
 
+import com.oracle.graal.api.code.*;
 import com.oracle.graal.api.meta.*;
 import com.oracle.graal.api.meta.ProfilingInfo.TriState;
 import com.oracle.graal.bytecode.*;
+import com.oracle.graal.compiler.*;
+import com.oracle.graal.compiler.CompilerThreadFactory.DebugConfigAccess;
 import com.oracle.graal.compiler.common.*;
 import com.oracle.graal.debug.*;
+import com.oracle.graal.debug.internal.*;
 import com.oracle.graal.hotspot.HotSpotOptions.OptionConsumer;
 import com.oracle.graal.hotspot.meta.*;
+import com.oracle.graal.nodes.*;
 import com.oracle.graal.options.*;
 import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.tiers.*;
+import com.oracle.graal.printer.*;
 import com.oracle.graal.replacements.*;
 
 /**
@@ -70,6 +80,10 @@ public final class CompileTheWorld {
                        "to disable inlining and partial escape analysis specify '-PartialEscapeAnalysis -Inline'. " +
                        "The format for each option is the same as on the command line just without the '-G:' prefix.")
         public static final OptionValue<String> CompileTheWorldConfig = new OptionValue<>(null);
+        @Option(help = "Number of threads compiling methods in parallel during CompileTheWorld (classes are always loaded in order by a single thread)")
+        public static final OptionValue<Integer> CompileTheWorldThreads = new OptionValue<>(1);
+        @Option(help = "File to which CompileTheWorld writes a record for each compiled method (see CompileTheWorldLog)")
+        public static final OptionValue<String> CompileTheWorldResultLog = new OptionValue<>(null);
         // @formatter:on
 
         /**
@@ -154,12 +168,56 @@ public final class CompileTheWorld {
     /** Class index to stop compilation at (see {@link Options#CompileTheWorldStopAt}). */
     private final int stopAt;
 
+    /** Number of threads compiling methods (see {@link Options#CompileTheWorldThreads}). */
+    private final int threads;
+
     // Counters
     private int classFileCounter = 0;
     private int compiledMethodsCounter = 0;
+    private int failedMethodsCounter = 0;
     private long compileTime = 0;
     private long memoryUsed = 0;
 
+    /**
+     * Statistics of the methods compiled by a single thread. They are merged into the counters
+     * above once all compilations are done.
+     */
+    private static final class Counters {
+        int compiledMethods;
+        int failedMethods;
+        long compileTime;
+        long memoryUsed;
+    }
+
+    private final List<Counters> threadCounters = new ArrayList<>();
+    private final ThreadLocal<Counters> counters = new ThreadLocal<Counters>() {
+        @Override
+        protected Counters initialValue() {
+            Counters c = new Counters();
+            synchronized (threadCounters) {
+                threadCounters.add(c);
+            }
+            return c;
+        }
+    };
+
+    /**
+     * Executor for method compilations if {@link #threads} is greater than 1, null otherwise.
+     */
+    private ThreadPoolExecutor compileQueue;
+
+    /**
+     * Compilations submitted to {@link #compileQueue} whose output has not been printed yet, in
+     * submission order.
+     */
+    private final ArrayDeque<Future<CompilationOutcome>> pendingCompilations = new ArrayDeque<>();
+
+    /** File to write per method results to (see {@link Options#CompileTheWorldResultLog}). */
+    private final String resultLog;
+
+    /** Writer for {@link #resultLog} while compiling, null if no result log is written. */
+    private CompileTheWorldLog.Writer log;
+
     private boolean verbose;
     private final Config config;
 
@@ -171,9 +229,24 @@ public final class CompileTheWorld {
      * @param stopAt index of the class file to stop compilation at
      */
     public CompileTheWorld(String files, Config config, int startAt, int stopAt, boolean verbose) {
+        this(files, config, startAt, stopAt, 1, null, verbose);
+    }
+
+    /**
+     * Creates a compile-the-world instance.
+     *
+     * @param files {@link File#pathSeparator} separated list of Zip/Jar files to compile
+     * @param startAt index of the class file to start compilation at
+     * @param stopAt index of the class file to stop compilation at
+     * @param threads number of threads compiling methods in parallel
+     * @param resultLog file to write a {@link CompileTheWorldLog} to or null
+     */
+    public CompileTheWorld(String files, Config config, int startAt, int stopAt, int threads, String resultLog, boolean verbose) {
         this.files = files;
         this.startAt = startAt;
         this.stopAt = stopAt;
+        this.threads = Math.max(threads, 1);
+        this.resultLog = resultLog;
         this.verbose = verbose;
         this.config = config;
 
@@ -235,6 +308,22 @@ public final class CompileTheWorld {
      */
     private void compile(String fileList) throws Throwable {
         final String[] entries = fileList.split(File.pathSeparator);
+        final long start = System.currentTimeMillis();
+
+        if (threads > 1) {
+            CompilerThreadFactory factory = new CompilerThreadFactory("CompileTheWorldThread", new DebugConfigAccess() {
+                public GraalDebugConfig getDebugConfig() {
+                    if (Debug.isEnabled() && DebugScope.getConfig() == null) {
+                        return DebugEnvironment.initialize(TTY.cachedOut);
+                    }
+                    return null;
+                }
+            });
+            compileQueue = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), factory);
+        }
+        if (resultLog != null) {
+            log = new CompileTheWorldLog.Writer(new File(resultLog));
+        }
 
         try (AutoCloseable s = config.apply()) {
             for (int i = 0; i < entries.length; i++) {
@@ -295,13 +384,13 @@ public final class CompileTheWorld {
                             for (Constructor<?> constructor : javaClass.getDeclaredConstructors()) {
                                 HotSpotResolvedJavaMethod javaMethod = (HotSpotResolvedJavaMethod) metaAccess.lookupJavaConstructor(constructor);
                                 if (canBeCompiled(javaMethod, constructor.getModifiers())) {
-                                    compileMethod(javaMethod);
+                                    compileMethod(javaMethod, classFileCounter);
                                 }
                             }
                             for (Method method : javaClass.getDeclaredMethods()) {
                                 HotSpotResolvedJavaMethod javaMethod = (HotSpotResolvedJavaMethod) metaAccess.lookupJavaMethod(method);
                                 if (canBeCompiled(javaMethod, method.getModifiers())) {
-                                    compileMethod(javaMethod);
+                                    compileMethod(javaMethod, classFileCounter);
                                 }
                             }
                         }
@@ -311,16 +400,156 @@ public final class CompileTheWorld {
                 }
                 jarFile.close();
             }
+            if (compileQueue != null) {
+                finishCompilations(0);
+                compileQueue.shutdown();
+            }
+        } finally {
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+        }
+
+        synchronized (threadCounters) {
+            for (Counters c : threadCounters) {
+                compiledMethodsCounter += c.compiledMethods;
+                failedMethodsCounter += c.failedMethods;
+                compileTime += c.compileTime;
+                memoryUsed += c.memoryUsed;
+            }
         }
 
         println();
         println("CompileTheWorld : Done (%d classes, %d methods, %d ms, %d bytes of memory used)", classFileCounter, compiledMethodsCounter, compileTime, memoryUsed);
+        if (failedMethodsCounter != 0) {
+            println("CompileTheWorld : %d methods failed to compile", failedMethodsCounter);
+        }
+        if (compileQueue != null) {
+            println("CompileTheWorld : %d threads, %d ms elapsed", threads, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * The output of a single compilation that is printed and logged by the thread that requested
+     * the compilation.
+     */
+    private static final class CompilationOutcome {
+
+        /** Message describing a failed compilation or null. */
+        final String output;
+
+        /** Record for the {@linkplain CompileTheWorld#log result log} or null. */
+        final CompileTheWorldLog.Record record;
+
+        CompilationOutcome(String output, CompileTheWorldLog.Record record) {
+            this.output = output;
+            this.record = record;
+        }
+    }
+
+    /**
+     * Prints and logs the outcome of a compilation.
+     */
+    private void finish(CompilationOutcome outcome) throws IOException {
+        if (outcome.output != null) {
+            TTY.print(outcome.output);
+        }
+        if (outcome.record != null) {
+            log.write(outcome.record);
+        }
+    }
+
+    /**
+     * Prints and logs the outcome of submitted compilations in submission order until at most
+     * {@code maxPending} compilations are pending. Waiting for the oldest compilation also bounds
+     * the number of classes loaded ahead of the compiler threads.
+     */
+    private void finishCompilations(int maxPending) throws InterruptedException, IOException {
+        while (pendingCompilations.size() > maxPending || (!pendingCompilations.isEmpty() && pendingCompilations.peek().isDone())) {
+            try {
+                finish(pendingCompilations.poll().get());
+            } catch (ExecutionException e) {
+                throw new GraalInternalError(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Records the node count of the graph at the start or end of a tier.
+     */
+    private static final class NodeCountPhase extends Phase {
+
+        private final int[] nodeCounts;
+        private final int index;
+
+        NodeCountPhase(int[] nodeCounts, int index) {
+            this.nodeCounts = nodeCounts;
+            this.index = index;
+        }
+
+        @Override
+        protected void run(StructuredGraph graph) {
+            nodeCounts[index] = graph.getNodeCount();
+        }
     }
 
     class CTWCompilationTask extends CompilationTask {
 
+        /**
+         * Node counts before and after each tier, indexed by the constants in
+         * {@link CompileTheWorldLog}. Only recorded if a result log is written.
+         */
+        final int[] nodeCounts;
+
+        CompilationResult result;
+        Throwable failure;
+        boolean finished;
+
         CTWCompilationTask(HotSpotBackend backend, HotSpotResolvedJavaMethod method) {
             super(backend, method, INVOCATION_ENTRY_BCI, 0L, method.allocateCompileId(INVOCATION_ENTRY_BCI), false);
+            if (log != null) {
+                nodeCounts = new int[CompileTheWorldLog.NODE_COUNTS];
+                Arrays.fill(nodeCounts, -1);
+            } else {
+                nodeCounts = null;
+            }
+        }
+
+        @Override
+        protected Suites getSuites(HotSpotProviders providers) {
+            Suites suites = super.getSuites(providers);
+            if (nodeCounts == null) {
+                return suites;
+            }
+            PhaseSuite<HighTierContext> highTier = suites.getHighTier().copy();
+            highTier.prependPhase(new NodeCountPhase(nodeCounts, CompileTheWorldLog.HIGH_TIER_BEFORE));
+            highTier.appendPhase(new NodeCountPhase(nodeCounts, CompileTheWorldLog.HIGH_TIER_AFTER));
+            PhaseSuite<MidTierContext> midTier = suites.getMidTier().copy();
+            midTier.prependPhase(new NodeCountPhase(nodeCounts, CompileTheWorldLog.MID_TIER_BEFORE));
+            midTier.appendPhase(new NodeCountPhase(nodeCounts, CompileTheWorldLog.MID_TIER_AFTER));
+            PhaseSuite<LowTierContext> lowTier = suites.getLowTier().copy();
+            lowTier.prependPhase(new NodeCountPhase(nodeCounts, CompileTheWorldLog.LOW_TIER_BEFORE));
+            lowTier.appendPhase(new NodeCountPhase(nodeCounts, CompileTheWorldLog.LOW_TIER_AFTER));
+            return new Suites(highTier, midTier, lowTier);
+        }
+
+        @Override
+        protected void compilationFinished(CompilationResult compResult, Throwable reason) {
+            this.result = compResult;
+            this.failure = reason;
+            this.finished = true;
+        }
+
+        byte getStatus() {
+            if (!finished) {
+                return CompileTheWorldLog.SKIPPED;
+            } else if (failure instanceof BailoutException) {
+                return CompileTheWorldLog.BAILOUT;
+            } else if (failure != null) {
+                return CompileTheWorldLog.FAILURE;
+            }
+            return CompileTheWorldLog.SUCCESS;
         }
 
         /**
@@ -334,25 +563,68 @@ public final class CompileTheWorld {
     }
 
     /**
-     * Compiles a method and gathers some statistics.
+     * Compiles a method on the current thread or submits its compilation to the
+     * {@linkplain #compileQueue compiler threads}. The compilation task is created by the calling
+     * thread so that compile ids are assigned in class file order.
      */
-    private void compileMethod(HotSpotResolvedJavaMethod method) {
+    private void compileMethod(HotSpotResolvedJavaMethod method, int classFileIndex) throws InterruptedException, IOException {
+        HotSpotBackend backend = runtime.getHostBackend();
+        CTWCompilationTask task = new CTWCompilationTask(backend, method);
+        if (compileQueue == null) {
+            finish(runCompilation(task, method, classFileIndex));
+        } else {
+            pendingCompilations.add(compileQueue.submit(() -> {
+                // Option overrides are thread local
+                try (OverrideScope s = OptionValue.override(config)) {
+                    return runCompilation(task, method, classFileIndex);
+                }
+            }));
+            finishCompilations(threads * 64);
+        }
+    }
+
+    /**
+     * Compiles a method and gathers some statistics in the counters of the current thread.
+     */
+    private CompilationOutcome runCompilation(CTWCompilationTask task, HotSpotResolvedJavaMethod method, int classFileIndex) {
+        Counters c = counters.get();
+        long startNanos = System.nanoTime();
+        long allocatedAtStart = getCurrentThreadAllocatedBytes();
+        // The compilation records the metric in the scopes it opens below the current one
+        long lirInstructionsAtStart = LIRInstructions.getTotalValue();
         try {
             long start = System.currentTimeMillis();
-            long allocatedAtStart = getCurrentThreadAllocatedBytes();
 
-            HotSpotBackend backend = runtime.getHostBackend();
-            CompilationTask task = new CTWCompilationTask(backend, method);
             task.runCompilation();
 
-            memoryUsed += getCurrentThreadAllocatedBytes() - allocatedAtStart;
-            compileTime += (System.currentTimeMillis() - start);
-            compiledMethodsCounter++;
+            long lirInstructions = LIRInstructions.getTotalValue() - lirInstructionsAtStart;
+            long allocated = getCurrentThreadAllocatedBytes() - allocatedAtStart;
+            c.memoryUsed += allocated;
+            c.compileTime += (System.currentTimeMillis() - start);
+            c.compiledMethods++;
+            return new CompilationOutcome(null, createRecord(task, method, task.getStatus(), System.nanoTime() - startNanos, allocated, lirInstructions));
         } catch (Throwable t) {
-            // Catch everything and print a message
-            println("CompileTheWorld (%d) : Error compiling method: %s", classFileCounter, method.format("%H.%n(%p):%r"));
-            t.printStackTrace(TTY.cachedOut);
+            // Catch everything and return a message
+            c.failedMethods++;
+            StringWriter sw = new StringWriter();
+            PrintWriter pw = new PrintWriter(sw);
+            pw.printf("CompileTheWorld (%d) : Error compiling method: %s%n", classFileIndex, method.format("%H.%n(%p):%r"));
+            t.printStackTrace(pw);
+            pw.flush();
+            long allocated = getCurrentThreadAllocatedBytes() - allocatedAtStart;
+            return new CompilationOutcome(sw.toString(), createRecord(task, method, CompileTheWorldLog.FAILURE, System.nanoTime() - startNanos, allocated, -1));
+        }
+    }
+
+    private CompileTheWorldLog.Record createRecord(CTWCompilationTask task, HotSpotResolvedJavaMethod method, byte status, long nanos, long allocated, long lirInstructions) {
+        if (log == null) {
+            return null;
         }
+        // The LIR instruction metric is only counted if it was enabled by HotSpotOptions
+        boolean countsLIR = Debug.isMeterEnabled() || !LIRInstructions.isConditional();
+        int lirCount = countsLIR && status == CompileTheWorldLog.SUCCESS ? (int) lirInstructions : -1;
+        int codeSize = task.result != null ? task.result.getTargetCodeSize() : -1;
+        return new CompileTheWorldLog.Record(method.format("%H.%n(%p)%r"), status, nanos, allocated, task.nodeCounts, lirCount, codeSize);
     }
 
     /**
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Machine readable log of the methods compiled by {@link CompileTheWorld}, written if
+ * {@link CompileTheWorld.Options#CompileTheWorldResultLog} is set. The {@link #main(String[])} method of
+ * this class compares two such logs and reports the methods with the largest regressions in
+ * compile time and code size:
+ *
+ * <pre>
+ *     java -cp graal.jar com.oracle.graal.hotspot.CompileTheWorldLog baseline.log new.log [count]
+ * </pre>
+ */
+public final class CompileTheWorldLog {
+
+    private static final int MAGIC = 0x4354574c;
+    private static final int VERSION = 1;
+
+    public static final byte SUCCESS = 0;
+    public static final byte BAILOUT = 1;
+    public static final byte FAILURE = 2;
+    public static final byte SKIPPED = 3;
+
+    private static final String[] STATUS_NAMES = {"success", "bailout", "failure", "skipped"};
+
+    /**
+     * Indexes into {@link Record#nodeCounts}.
+     */
+    public static final int HIGH_TIER_BEFORE = 0;
+    public static final int HIGH_TIER_AFTER = 1;
+    public static final int MID_TIER_BEFORE = 2;
+    public static final int MID_TIER_AFTER = 3;
+    public static final int LOW_TIER_BEFORE = 4;
+    public static final int LOW_TIER_AFTER = 5;
+    public static final int NODE_COUNTS = 6;
+
+    /**
+     * The result of compiling a single method. Counts that were not measured, for example because
+     * the compilation bailed out before reaching a tier, are -1.
+     */
+    public static final class Record {
+
+        public final String method;
+        public final byte status;
+        public final long compileNanos;
+        public final long allocatedBytes;
+        public final int[] nodeCounts;
+        public final int lirInstructions;
+        public final int codeSize;
+
+        public Record(String method, byte status, long compileNanos, long allocatedBytes, int[] nodeCounts, int lirInstructions, int codeSize) {
+            assert nodeCounts.length == NODE_COUNTS;
+            this.method = method;
+            this.status = status;
+            this.compileNanos = compileNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.nodeCounts = nodeCounts;
+            this.lirInstructions = lirInstructions;
+            this.codeSize = codeSize;
+        }
+
+        public String getStatusName() {
+            return STATUS_NAMES[status];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s %dns %dB nodes=%s lir=%d code=%dB", method, getStatusName(), compileNanos, allocatedBytes, Arrays.toString(nodeCounts), lirInstructions, codeSize);
+        }
+    }
+
+    /**
+     * Writes records to a log file. Not thread safe.
+     */
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+
+        public Writer(File file) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        public void write(Record record) throws IOException {
+            out.writeByte(record.status);
+            out.writeUTF(record.method);
+            out.writeLong(record.compileNanos);
+            out.writeLong(record.allocatedBytes);
+            for (int count : record.nodeCounts) {
+                out.writeInt(count);
+            }
+            out.writeInt(record.lirInstructions);
+            out.writeInt(record.codeSize);
+        }
+
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private CompileTheWorldLog() {
+    }
+
+    /**
+     * Reads all records of a log file in the order they were written.
+     */
+    public static List<Record> read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is not a CompileTheWorld log of version " + VERSION);
+            }
+            List<Record> records = new ArrayList<>();
+            int status;
+            while ((status = in.read()) >= 0) {
+                if (status >= STATUS_NAMES.length) {
+                    throw new IOException(file + " is corrupt: unknown status " + status);
+                }
+                String method = in.readUTF();
+                long compileNanos = in.readLong();
+                long allocatedBytes = in.readLong();
+                int[] nodeCounts = new int[NODE_COUNTS];
+                for (int i = 0; i < NODE_COUNTS; i++) {
+                    nodeCounts[i] = in.readInt();
+                }
+                int lirInstructions = in.readInt();
+                int codeSize = in.readInt();
+                records.add(new Record(method, (byte) status, compileNanos, allocatedBytes, nodeCounts, lirInstructions, codeSize));
+            }
+            return records;
+        }
+    }
+
+    /**
+     * A method compiled in both logs.
+     */
+    private static final class Delta {
+
+        final Record base;
+        final Record current;
+
+        Delta(Record base, Record current) {
+            this.base = base;
+            this.current = current;
+        }
+
+        long compileNanos() {
+            return current.compileNanos - base.compileNanos;
+        }
+
+        int codeSize() {
+            return current.codeSize - base.codeSize;
+        }
+    }
+
+    /**
+     * Indexes records by method. If a method was compiled more than once, for example by several
+     * CompileTheWorld iterations, the last record wins.
+     */
+    private static Map<String, Record> index(List<Record> records) {
+        Map<String, Record> map = new LinkedHashMap<>();
+        for (Record record : records) {
+            map.put(record.method, record);
+        }
+        return map;
+    }
+
+    /**
+     * Compares two logs and prints a summary followed by the methods with the largest compile time
+     * and code size regressions and the methods that no longer compile.
+     */
+    public static void diff(List<Record> baseRecords, List<Record> currentRecords, int count, PrintStream out) {
+        Map<String, Record> base = index(baseRecords);
+        Map<String, Record> current = index(currentRecords);
+
+        List<Delta> compiled = new ArrayList<>();
+        List<Delta> broken = new ArrayList<>();
+        long baseNanos = 0;
+        long currentNanos = 0;
+        long baseCodeSize = 0;
+        long currentCodeSize = 0;
+        for (Record c : current.values()) {
+            Record b = base.get(c.method);
+            if (b == null) {
+                continue;
+            }
+            Delta delta = new Delta(b, c);
+            if (b.status == SUCCESS && c.status == SUCCESS) {
+                compiled.add(delta);
+                baseNanos += b.compileNanos;
+                currentNanos += c.compileNanos;
+                baseCodeSize += b.codeSize;
+                currentCodeSize += c.codeSize;
+            } else if (b.status == SUCCESS && (c.status == BAILOUT || c.status == FAILURE)) {
+                broken.add(delta);
+            }
+        }
+
+        out.printf("%d methods compiled in both logs: compile time %d ms -> %d ms (%+.1f%%), code size %d B -> %d B (%+.1f%%)%n", compiled.size(), baseNanos / 1_000_000, currentNanos / 1_000_000,
+                        percent(baseNanos, currentNanos), baseCodeSize, currentCodeSize, percent(baseCodeSize, currentCodeSize));
+
+        compiled.sort((x, y) -> Long.compare(y.compileNanos(), x.compileNanos()));
+        out.printf("%nLargest compile time regressions:%n");
+        for (int i = 0; i < Math.min(count, compiled.size()) && compiled.get(i).compileNanos() > 0; i++) {
+            Delta d = compiled.get(i);
+            out.printf("  %+10.3f ms  %10.3f ms -> %10.3f ms  %s%n", d.compileNanos() / 1e6, d.base.compileNanos / 1e6, d.current.compileNanos / 1e6, d.current.method);
+        }
+
+        compiled.sort((x, y) -> Integer.compare(y.codeSize(), x.codeSize()));
+        out.printf("%nLargest code size regressions:%n");
+        for (int i = 0; i < Math.min(count, compiled.size()) && compiled.get(i).codeSize() > 0; i++) {
+            Delta d = compiled.get(i);
+            out.printf("  %+8d B  %8d B -> %8d B  %s%n", d.codeSize(), d.base.codeSize, d.current.codeSize, d.current.method);
+        }
+
+        if (!broken.isEmpty()) {
+            out.printf("%nMethods that no longer compile:%n");
+            for (Delta d : broken) {
+                out.printf("  %-8s %s%n", d.current.getStatusName(), d.current.method);
+            }
+        }
+    }
+
+    private static double percent(long base, long current) {
+        return base == 0 ? 0 : (current - base) * 100.0 / base;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: CompileTheWorldLog <baseline log> <new log> [count]");
+            System.exit(1);
+        }
+        int count = args.length == 3 ? Integer.parseInt(args[2]) : 25;
+        diff(read(new File(args[0])), read(new File(args[1])), count, System.out);
+    }
+}
@@ -88,6 +88,7 @@ public class DebugValuesPrinter {
                 for (DebugValueMap topLevelMap : topLevelMaps) {
                     topLevelMap.reset();
                 }
+                DebugValueSlab.reset();
             } catch (Throwable e) {
                 // Don't want this to change the exit status of the VM
                 PrintStream err = System.err;
@@ -107,16 +108,57 @@ public class DebugValuesPrinter {
     }
 
     private void printSummary(List<DebugValueMap> topLevelMaps, List<DebugValue> debugValues) {
+        long[] slabTotals = DebugValueSlab.snapshot();
         DebugValueMap result = new DebugValueMap("Summary");
         for (int i = debugValues.size() - 1; i >= 0; i--) {
             DebugValue debugValue = debugValues.get(i);
             int index = debugValue.getIndex();
             long total = collectTotal(topLevelMaps, index);
+            if (index < slabTotals.length) {
+                total += slabTotals[index];
+            }
             result.setCurrentValue(index, total);
         }
         printMap(new DebugValueScope(null, result), debugValues);
     }
 
+    /**
+     * Starts a daemon thread that prints the values recorded in {@link DebugValueSlab}s every
+     * {@code periodMillis} milliseconds. The values are read without stopping the threads updating
+     * them and are not reset.
+     */
+    public void startPeriodicExport(long periodMillis) {
+        Thread exporter = new Thread("DebugValuesExporter") {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Thread.sleep(periodMillis);
+                        printSnapshot();
+                    }
+                } catch (InterruptedException e) {
+                    // VM is shutting down
+                }
+            }
+        };
+        exporter.setDaemon(true);
+        exporter.start();
+    }
+
+    private void printSnapshot() {
+        long[] totals = DebugValueSlab.snapshot();
+        List<DebugValue> sortedValues = new ArrayList<>(KeyRegistry.getDebugValues());
+        Collections.sort(sortedValues);
+        DebugValueMap result = new DebugValueMap("Snapshot");
+        for (DebugValue debugValue : sortedValues) {
+            int index = debugValue.getIndex();
+            result.setCurrentValue(index, index < totals.length ? totals[index] : 0L);
+        }
+        TTY.println("<DebugValues time=\"%d\">", System.currentTimeMillis());
+        printMap(new DebugValueScope(null, result), sortedValues);
+        TTY.println("</DebugValues>");
+    }
+
     private long collectTotal(List<DebugValueMap> maps, int index) {
         long total = 0;
         for (int i = 0; i < maps.size(); i++) {
@@ -43,6 +43,7 @@ import com.oracle.graal.api.runtime.*;
 import com.oracle.graal.compiler.common.*;
 import com.oracle.graal.compiler.target.*;
 import com.oracle.graal.debug.*;
+import com.oracle.graal.debug.internal.*;
 import com.oracle.graal.graph.*;
 import com.oracle.graal.hotspot.CompileTheWorld.Config;
 import com.oracle.graal.hotspot.bridge.*;
@@ -51,6 +52,8 @@ import com.oracle.graal.hotspot.events.*;
 import com.oracle.graal.hotspot.logging.*;
 import com.oracle.graal.hotspot.meta.*;
 import com.oracle.graal.options.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.common.inlining.*;
 import com.oracle.graal.printer.*;
 import com.oracle.graal.replacements.*;
 import com.oracle.graal.runtime.*;
@@ -117,6 +120,11 @@ public final class HotSpotGraalRuntime implements GraalRuntime, RuntimeProvider,
             }
         }
 
+        if ("Name".equals(DebugValueSummary.getValue())) {
+            // Values are only reported per name so there is no need to record them per scope
+            DebugValueSlab.enable();
+        }
+
         if (Debug.isEnabled()) {
             DebugEnvironment.initialize(TTY.cachedOut);
 
@@ -138,6 +146,13 @@ public final class HotSpotGraalRuntime implements GraalRuntime, RuntimeProvider,
             // This must be created here to avoid loading the DebugValuesPrinter class
             // during shutdown() which in turn can cause a deadlock
             debugValuesPrinter = new DebugValuesPrinter();
+            if (DebugValueExportPeriod.getValue() > 0) {
+                if (DebugValueSlab.isEnabled()) {
+                    debugValuesPrinter.startPeriodicExport(DebugValueExportPeriod.getValue());
+                } else {
+                    TTY.println("WARNING: Ignoring DebugValueExportPeriod since DebugValueSummary is not Name");
+                }
+            }
         }
 
         // Complete initialization of backends
@@ -155,6 +170,10 @@ public final class HotSpotGraalRuntime implements GraalRuntime, RuntimeProvider,
         BenchmarkCounters.initialize(toVM);
 
         runtimeStartTime = System.nanoTime();
+
+        if (BootstrapProfile.isEnabled()) {
+            BootstrapProfile.start(this);
+        }
     }
 
     public static class Options {
@@ -574,7 +593,8 @@ public final class HotSpotGraalRuntime implements GraalRuntime, RuntimeProvider,
             getCompilerToVM().resetCompilationStatistics();
             TTY.println("CompileTheWorld : iteration " + i);
             CompileTheWorld ctw = new CompileTheWorld(CompileTheWorldClasspath.getValue(), new Config(CompileTheWorldConfig.getValue()), CompileTheWorldStartAt.getValue(),
-                            CompileTheWorldStopAt.getValue(), CompileTheWorldVerbose.getValue());
+                            CompileTheWorldStopAt.getValue(), CompileTheWorldThreads.getValue(), CompileTheWorldResultLog.getValue(),
+                            CompileTheWorldVerbose.getValue());
             ctw.compile();
         }
         System.exit(0);
@@ -590,6 +610,15 @@ public final class HotSpotGraalRuntime implements GraalRuntime, RuntimeProvider,
         if (debugValuesPrinter != null) {
             debugValuesPrinter.printDebugValues();
         }
+        if (ProfileCompilerPhases.getValue()) {
+            PhaseProfiler.printReport();
+        }
+        if (BootstrapProfile.isEnabled()) {
+            BootstrapProfile.write();
+        }
+        if (SharedGraphCache.getValue()) {
+            ParsedGraphCache.printStatistics();
+        }
         phaseTransition("final");
 
         SnippetCounter.printGroups(TTY.out().out());
@@ -27,11 +27,15 @@ import static com.oracle.graal.hotspot.InitTimer.*;
 
 import com.oracle.graal.api.meta.*;
 import com.oracle.graal.api.runtime.*;
+import com.oracle.graal.compiler.*;
+import com.oracle.graal.compiler.CompilerThreadFactory.DebugConfigAccess;
 import com.oracle.graal.debug.*;
 import com.oracle.graal.debug.Debug.Scope;
+import com.oracle.graal.debug.internal.*;
 import com.oracle.graal.hotspot.meta.*;
 import com.oracle.graal.hotspot.stubs.*;
 import com.oracle.graal.nodes.spi.*;
+import com.oracle.graal.printer.*;
 
 /**
  * Common functionality of HotSpot host backends.
@@ -85,8 +89,12 @@ public abstract class HotSpotHostBackend extends HotSpotBackend {
                 if (BootstrapReplacements.getValue()) {
                     for (ResolvedJavaMethod method : replacements.getAllReplacements()) {
                         replacements.getMacroSubstitution(method);
-                        replacements.getMethodSubstitution(method);
                     }
+                    try (InitTimer st = timer("replacements.prepareGraphs")) {
+                        replacements.prepareGraphs();
+                    }
+                } else if (PrepareReplacementsInBackground.getValue()) {
+                    prepareReplacementsInBackground(replacements);
                 }
             } catch (Throwable e) {
                 throw Debug.handle(e);
@@ -94,4 +102,37 @@ public abstract class HotSpotHostBackend extends HotSpotBackend {
         }
 
     }
+
+    /**
+     * Creates the replacement graphs on a low priority compiler thread so that the first
+     * compilations find most of them already prepared. Compilations that need a graph before it is
+     * ready simply create it themselves.
+     */
+    private static void prepareReplacementsInBackground(final HotSpotReplacementsImpl replacements) {
+        CompilerThreadFactory factory = new CompilerThreadFactory("ReplacementsPreparationThread", new DebugConfigAccess() {
+            public GraalDebugConfig getDebugConfig() {
+                if (Debug.isEnabled() && DebugScope.getConfig() == null) {
+                    return DebugEnvironment.initialize(TTY.cachedOut);
+                }
+                return null;
+            }
+        });
+        Thread thread = factory.newThread(new Runnable() {
+            public void run() {
+                try (Scope s = Debug.scope("PrepareReplacements")) {
+                    long start = System.nanoTime();
+                    int prepared = replacements.prepareGraphs();
+                    if (PrintCompilation.getValue()) {
+                        TTY.println("Prepared %d replacement graphs in %d ms", prepared, (System.nanoTime() - start) / 1000000);
+                    }
+                } catch (Throwable e) {
+                    // the graph will be created again by the compilation that needs it
+                    TTY.println("Preparing replacement graphs failed: %s", e);
+                    e.printStackTrace(TTY.cachedOut);
+                }
+            }
+        });
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
 }
@@ -30,6 +30,7 @@ import java.lang.reflect.*;
 import java.util.*;
 
 import com.oracle.graal.api.runtime.*;
+import com.oracle.graal.compiler.*;
 import com.oracle.graal.compiler.common.*;
 import com.oracle.graal.debug.*;
 import com.oracle.graal.options.*;
@@ -56,6 +57,9 @@ public class HotSpotOptions {
             unconditionallyEnableTimerOrMetric(InliningUtil.class, "InlinedBytecodes");
             unconditionallyEnableTimerOrMetric(CompilationTask.class, "CompilationTime");
         }
+        if (CompileTheWorld.Options.CompileTheWorldResultLog.getValue() != null) {
+            unconditionallyEnableTimerOrMetric(GraalCompiler.class, "LIRInstructions");
+        }
         assert !Debug.Initialization.isDebugInitialized() : "The class " + Debug.class.getName() + " must not be initialized before the Graal runtime has been initialized. " +
                         "This can be fixed by placing a call to " + Graal.class.getName() + ".runtime() on the path that triggers initialization of " + Debug.class.getName();
         if (areDebugScopePatternsEnabled()) {
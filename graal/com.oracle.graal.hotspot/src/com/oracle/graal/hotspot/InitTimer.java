@@ -47,7 +47,7 @@ public final class InitTimer implements AutoCloseable {
     public void close() {
         final long end = System.currentTimeMillis();
         timerDepth--;
-        System.out.println(" DONE: " + SPACES.substring(0, timerDepth * 2) + name + " [" + (end - start) + " ms]");
+        System.out.println(" DONE: " + SPACES.substring(0, timerDepth * 2) + name + " [" + (end - start) + " ms, " + (end - initializationStart) + " ms since initialization started]");
     }
 
     public static InitTimer timer(String name) {
@@ -62,7 +62,7 @@ public final class InitTimer implements AutoCloseable {
      * Specifies if initialization timing is enabled. This can only be set via a system property as
      * the timing facility is used to time initialization of {@link HotSpotOptions}.
      */
-    private static final boolean ENABLED = Boolean.getBoolean("graal.runtime.TimeInit");
+    static final boolean ENABLED = Boolean.getBoolean("graal.runtime.TimeInit");
 
     public static int timerDepth = 0;
     public static final String SPACES = "                                            ";
@@ -71,6 +71,12 @@ public final class InitTimer implements AutoCloseable {
      * Used to assert the invariant that all initialization happens on the same thread.
      */
     public static final Thread initializingThread;
+
+    /**
+     * The time at which the first step started, used to report the progress of initialization.
+     */
+    private static final long initializationStart = System.currentTimeMillis();
+
     static {
         if (ENABLED) {
             initializingThread = Thread.currentThread();
@@ -296,6 +296,12 @@ public interface CompilerToVM {
 
     void invalidateInstalledCode(InstalledCode hotspotInstalledCode);
 
+    /**
+     * Invalidates a number of installed code objects at once. All of them are marked for
+     * deoptimization before a single safepoint operation deoptimizes them.
+     */
+    void invalidateInstalledCodes(InstalledCode[] hotspotInstalledCodes);
+
     /**
      * Collects the current values of all Graal benchmark counters, summed up over all threads.
      */
@@ -153,6 +153,9 @@ public class CompilerToVMImpl implements CompilerToVM {
     @Override
     public native void invalidateInstalledCode(InstalledCode hotspotInstalledCode);
 
+    @Override
+    public native void invalidateInstalledCodes(InstalledCode[] hotspotInstalledCodes);
+
     @Override
     public native Class<?> getJavaMirror(long metaspaceKlass);
 
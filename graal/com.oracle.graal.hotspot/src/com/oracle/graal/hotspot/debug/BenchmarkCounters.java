@@ -23,10 +23,13 @@
 package com.oracle.graal.hotspot.debug;
 
 import java.io.*;
+import java.lang.management.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 
+import javax.management.*;
+
 import sun.misc.*;
 
 import com.oracle.graal.api.meta.*;
@@ -78,6 +81,12 @@ import edu.umd.cs.findbugs.annotations.*;
  * <li>The counters can be further configured by modifying the
  * {@link NewObjectSnippets#PROFILE_MODE} field.</li>
  * </ul>
+ *
+ * <h1>Measuring intervals</h1> With {@code -G:+ManagedDynamicCounters} the application (or a JMX
+ * client through the {@value #MBEAN_NAME} MBean) decides which interval is measured by calling
+ * {@link #start()}, {@link #stop()} and {@link #reset()}. {@link #snapshot()} returns the counter
+ * values of the current interval, which can be saved and compared with
+ * {@link BenchmarkCountersSnapshot}.
  */
 public class BenchmarkCounters {
 
@@ -95,6 +104,8 @@ public class BenchmarkCounters {
                        "  dacapo = 'err, starting =====, PASSED in'%n" +
                        "  specjvm2008 = 'out,Iteration ~ (~s) begins:,Iteration ~ (~s) ends:'")
         private static final OptionValue<String> BenchmarkDynamicCounters = new OptionValue<>(null);
+        @Option(help = "Turn on the benchmark counters, and control the measured interval through the BenchmarkCounters API and MBean")
+        private static final OptionValue<Boolean> ManagedDynamicCounters = new OptionValue<>(false);
         //@formatter:on
     }
 
@@ -107,6 +118,24 @@ public class BenchmarkCounters {
     public static long[] delta;
     public static final ArrayList<AtomicLong> staticCounters = new ArrayList<>();
 
+    public static final String MBEAN_NAME = "com.oracle.graal.hotspot:type=BenchmarkCounters";
+
+    private static CompilerToVM compilerToVM;
+
+    /**
+     * The counter values at the start of the interval measured by {@link #snapshot()}. This is kept
+     * separately from {@link #delta} so that timed and pattern based dumps do not interfere with it.
+     */
+    private static long[] intervalStart;
+    private static long intervalStartTime;
+
+    /**
+     * The counter values at the time the interval was {@linkplain #stop() stopped}, or null if the
+     * interval is running.
+     */
+    private static long[] intervalEnd;
+    private static long intervalEndTime;
+
     @SuppressFBWarnings(value = "AT_OPERATION_SEQUENCE_ON_CONCURRENT_ABSTRACTION", justification = "concurrent abstraction calls are in synchronized block")
     private static int getIndex(DynamicCounterNode counter) {
         if (!enabled) {
@@ -286,6 +315,72 @@ public class BenchmarkCounters {
         }
     }
 
+    private static void checkEnabled() {
+        if (!enabled || compilerToVM == null) {
+            throw new IllegalStateException("dynamic counters are not enabled, use -G:+ManagedDynamicCounters");
+        }
+    }
+
+    /**
+     * Starts a new interval, discarding the counts of the previous one.
+     */
+    public static synchronized void start() {
+        checkEnabled();
+        intervalStart = compilerToVM.collectCounters();
+        intervalStartTime = System.nanoTime();
+        intervalEnd = null;
+    }
+
+    /**
+     * Stops the current interval. Subsequent {@linkplain #snapshot() snapshots} return the counts
+     * up to this point until the next {@link #start()}.
+     */
+    public static synchronized void stop() {
+        checkEnabled();
+        if (intervalEnd == null) {
+            intervalEnd = compilerToVM.collectCounters();
+            intervalEndTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Sets all counts of the current interval to 0 without changing whether it is running.
+     */
+    public static synchronized void reset() {
+        checkEnabled();
+        if (intervalEnd == null) {
+            start();
+        } else {
+            intervalStart = intervalEnd;
+            intervalStartTime = intervalEndTime;
+        }
+    }
+
+    public static synchronized boolean isRunning() {
+        return enabled && compilerToVM != null && intervalEnd == null;
+    }
+
+    /**
+     * Gets the counts of the current interval. The counters are ordered by their creation.
+     */
+    public static synchronized BenchmarkCountersSnapshot snapshot() {
+        checkEnabled();
+        long[] counters = intervalEnd == null ? compilerToVM.collectCounters() : intervalEnd;
+        long endTime = intervalEnd == null ? System.nanoTime() : intervalEndTime;
+        String[] names = new String[indexes.size()];
+        String[] groupNames = new String[names.length];
+        for (Map.Entry<String, Integer> entry : indexes.entrySet()) {
+            String group = String.valueOf(groups.get(entry.getValue()));
+            names[entry.getValue()] = entry.getKey().substring(0, entry.getKey().length() - group.length() - 1);
+            groupNames[entry.getValue()] = group;
+        }
+        long[] values = new long[names.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = counters[i] - intervalStart[i];
+        }
+        return new BenchmarkCountersSnapshot(System.currentTimeMillis(), endTime - intervalStartTime, names, groupNames, values);
+    }
+
     public static void initialize(final CompilerToVM compilerToVM) {
         final class BenchmarkCountersOutputStream extends CallbackOutputStream {
 
@@ -363,8 +458,18 @@ public class BenchmarkCounters {
             thread.start();
             enabled = true;
         }
+        if (Options.ManagedDynamicCounters.getValue()) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new BenchmarkCountersControl(), new ObjectName(MBEAN_NAME));
+            } catch (JMException e) {
+                throw new GraalInternalError(e);
+            }
+            enabled = true;
+        }
         if (enabled) {
+            BenchmarkCounters.compilerToVM = compilerToVM;
             clear(compilerToVM.collectCounters());
+            start();
         }
     }
 
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.debug;
+
+import java.io.*;
+
+import com.oracle.graal.debug.*;
+
+/**
+ * Exposes the {@link BenchmarkCounters} interval API as an MBean.
+ */
+public class BenchmarkCountersControl implements BenchmarkCountersControlMBean {
+
+    public void start() {
+        BenchmarkCounters.start();
+    }
+
+    public void stop() {
+        BenchmarkCounters.stop();
+    }
+
+    public void reset() {
+        BenchmarkCounters.reset();
+    }
+
+    public boolean isRunning() {
+        return BenchmarkCounters.isRunning();
+    }
+
+    public String[] getCounterNames() {
+        BenchmarkCountersSnapshot snapshot = BenchmarkCounters.snapshot();
+        String[] result = new String[snapshot.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = snapshot.getName(i) + "#" + snapshot.getGroup(i);
+        }
+        return result;
+    }
+
+    public long[] getCounterValues() {
+        BenchmarkCountersSnapshot snapshot = BenchmarkCounters.snapshot();
+        long[] result = new long[snapshot.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = snapshot.getValue(i);
+        }
+        return result;
+    }
+
+    public void dump() {
+        BenchmarkCounters.snapshot().print(TTY.cachedOut, 100);
+    }
+
+    public void writeSnapshot(String fileName) throws IOException {
+        BenchmarkCounters.snapshot().write(new File(fileName));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.debug;
+
+/**
+ * Management interface for controlling the {@link BenchmarkCounters dynamic counters} of a running
+ * VM, registered as {@value BenchmarkCounters#MBEAN_NAME}.
+ */
+public interface BenchmarkCountersControlMBean {
+
+    /**
+     * @see BenchmarkCounters#start()
+     */
+    void start();
+
+    /**
+     * @see BenchmarkCounters#stop()
+     */
+    void stop();
+
+    /**
+     * @see BenchmarkCounters#reset()
+     */
+    void reset();
+
+    boolean isRunning();
+
+    /**
+     * Gets the names of the counters in the current interval, in the form {@code name#group}.
+     */
+    String[] getCounterNames();
+
+    /**
+     * Gets the values of the counters in the current interval, in the order of
+     * {@link #getCounterNames()}.
+     */
+    long[] getCounterValues();
+
+    /**
+     * Prints the counters of the current interval to the Graal log stream.
+     */
+    void dump();
+
+    /**
+     * Writes a {@link BenchmarkCountersSnapshot snapshot} of the current interval to a file.
+     */
+    void writeSnapshot(String fileName) throws java.io.IOException;
+}
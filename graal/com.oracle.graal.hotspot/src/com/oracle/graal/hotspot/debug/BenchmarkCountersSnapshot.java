@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot.debug;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The values of the {@link BenchmarkCounters dynamic counters} over an interval. Snapshots can be
+ * written to and read from a compact binary format and subtracted from each other, which makes it
+ * possible to measure the counters around a specific part of a long running application.
+ * <p>
+ * Running this class as a program prints a snapshot file or, if two files are given, the
+ * difference between them: {@code BenchmarkCountersSnapshot [base] snapshot}.
+ */
+public final class BenchmarkCountersSnapshot {
+
+    private static final int MAGIC = 0x47424353;
+    private static final int VERSION = 1;
+
+    /**
+     * The wall clock time at which the snapshot was taken, in milliseconds since the epoch.
+     */
+    public final long timestamp;
+
+    /**
+     * The length of the interval covered by the snapshot in nanoseconds.
+     */
+    public final long durationNanos;
+
+    private final String[] names;
+    private final String[] groups;
+    private final long[] values;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param names the counter names, without the group suffix
+     * @param groups the group of each counter
+     * @param values the value of each counter
+     */
+    public BenchmarkCountersSnapshot(long timestamp, long durationNanos, String[] names, String[] groups, long[] values) {
+        assert names.length == groups.length && names.length == values.length;
+        this.timestamp = timestamp;
+        this.durationNanos = durationNanos;
+        this.names = names;
+        this.groups = groups;
+        this.values = values;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public String getGroup(int index) {
+        return groups[index];
+    }
+
+    public long getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Gets the value of a counter, or 0 if this snapshot does not contain the counter.
+     */
+    public long getValue(String name, String group) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name) && groups[i].equals(group)) {
+                return values[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Computes the change of the counters between {@code base} and this snapshot. Counters that
+     * are missing in {@code base} are treated as 0.
+     */
+    public BenchmarkCountersSnapshot diff(BenchmarkCountersSnapshot base) {
+        Map<String, Long> baseValues = new HashMap<>();
+        for (int i = 0; i < base.names.length; i++) {
+            baseValues.put(base.names[i] + "#" + base.groups[i], base.values[i]);
+        }
+        long[] diff = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            Long baseValue = baseValues.get(names[i] + "#" + groups[i]);
+            diff[i] = values[i] - (baseValue == null ? 0 : baseValue);
+        }
+        return new BenchmarkCountersSnapshot(timestamp, durationNanos - base.durationNanos, names, groups, diff);
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(timestamp);
+        out.writeLong(durationNanos);
+        out.writeInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            out.writeUTF(names[i]);
+            out.writeUTF(groups[i]);
+            out.writeLong(values[i]);
+        }
+        out.flush();
+    }
+
+    public void write(File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    public static BenchmarkCountersSnapshot read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("not a benchmark counters snapshot of version " + VERSION);
+        }
+        long timestamp = in.readLong();
+        long durationNanos = in.readLong();
+        int size = in.readInt();
+        String[] names = new String[size];
+        String[] groups = new String[size];
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            names[i] = in.readUTF();
+            groups[i] = in.readUTF();
+            values[i] = in.readLong();
+        }
+        return new BenchmarkCountersSnapshot(timestamp, durationNanos, names, groups, values);
+    }
+
+    public static BenchmarkCountersSnapshot read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Prints the non-zero counters of each group, sorted by value. Counters in groups whose name
+     * starts with "~" are printed as a rate per second.
+     */
+    public void print(PrintStream out, int maxRows) {
+        double seconds = durationNanos / 1000000000d;
+        out.println("====== dynamic counters (" + names.length + " in total), time = " + seconds + " s ======");
+        for (String group : new TreeSet<>(Arrays.asList(groups))) {
+            List<Integer> indexes = new ArrayList<>();
+            long sum = 0;
+            for (int i = 0; i < names.length; i++) {
+                if (groups[i].equals(group) && values[i] != 0) {
+                    indexes.add(i);
+                    sum += values[i];
+                }
+            }
+            if (indexes.isEmpty()) {
+                continue;
+            }
+            Collections.sort(indexes, (a, b) -> Long.compare(values[b], values[a]));
+            boolean rate = group.startsWith("~") && seconds > 0;
+            out.println("=========== " + group + ":");
+            for (int i = 0; i < Math.min(indexes.size(), maxRows); i++) {
+                int index = indexes.get(i);
+                long percentage = sum == 0 ? 0 : (values[index] * 200 + 1) / sum / 2;
+                if (rate) {
+                    out.format(Locale.US, "%,19d/s %3d%%  %s%n", (long) (values[index] / seconds), percentage, names[index]);
+                } else {
+                    out.format(Locale.US, "%,19d %3d%%  %s%n", values[index], percentage, names[index]);
+                }
+            }
+            if (rate) {
+                out.format(Locale.US, "%,19d/s total%n", (long) (sum / seconds));
+            } else {
+                out.format(Locale.US, "%,19d total%n", sum);
+            }
+        }
+        out.println("============================");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 1) {
+            read(new File(args[0])).print(System.out, Integer.MAX_VALUE);
+        } else if (args.length == 2) {
+            read(new File(args[1])).diff(read(new File(args[0]))).print(System.out, Integer.MAX_VALUE);
+        } else {
+            System.err.println("Usage: BenchmarkCountersSnapshot [<base snapshot>] <snapshot>");
+            System.exit(1);
+        }
+    }
+}
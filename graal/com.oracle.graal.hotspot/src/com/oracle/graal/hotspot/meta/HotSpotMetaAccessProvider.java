@@ -236,6 +236,8 @@ public class HotSpotMetaAccessProvider implements MetaAccessProvider {
                 return config.deoptReasonConstraint;
             case LoopLimitCheck:
                 return config.deoptReasonLoopLimitCheck;
+            case LoopPredicate:
+                return config.deoptReasonPredicate;
             case Aliasing:
                 return config.deoptReasonAliasing;
             case TransferToInterpreter:
@@ -289,6 +291,9 @@ public class HotSpotMetaAccessProvider implements MetaAccessProvider {
         if (reason == config.deoptReasonLoopLimitCheck) {
             return DeoptimizationReason.LoopLimitCheck;
         }
+        if (reason == config.deoptReasonPredicate) {
+            return DeoptimizationReason.LoopPredicate;
+        }
         if (reason == config.deoptReasonAliasing) {
             return DeoptimizationReason.Aliasing;
         }
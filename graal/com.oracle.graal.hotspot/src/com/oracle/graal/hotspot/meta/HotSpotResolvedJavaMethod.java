@@ -87,6 +87,12 @@ public interface HotSpotResolvedJavaMethod extends ResolvedJavaMethod {
 
     ProfilingInfo getCompilationProfilingInfo(boolean isOSR);
 
+    /**
+     * Gets the number of invocations of this method counted by the VM, or 0 if the VM has not
+     * allocated counters for this method.
+     */
+    int getInvocationCount();
+
     default boolean isDefault() {
         if (isConstructor()) {
             return false;
@@ -405,6 +405,16 @@ public final class HotSpotResolvedJavaMethodImpl extends HotSpotMethod implement
         return false;
     }
 
+    public int getInvocationCount() {
+        HotSpotVMConfig config = runtime().getConfig();
+        long methodCounters = unsafeReadWord(metaspaceMethod + config.methodCountersOffset);
+        if (methodCounters == 0L) {
+            return 0;
+        }
+        int counter = unsafe.getInt(methodCounters + config.methodCountersInvocationCounterOffset + config.invocationCounterOffset);
+        return counter >>> config.invocationCounterShift;
+    }
+
     private static final String TraceMethodDataFilter = System.getProperty("graal.traceMethodDataFilter");
 
     @Override
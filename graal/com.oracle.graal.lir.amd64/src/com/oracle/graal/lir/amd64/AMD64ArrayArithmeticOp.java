@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.api.code.ValueUtil.*;
+import static com.oracle.graal.compiler.common.UnsafeAccess.*;
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.*;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import com.oracle.graal.amd64.*;
+import com.oracle.graal.amd64.AMD64.CPUFeature;
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.asm.*;
+import com.oracle.graal.asm.amd64.*;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.compiler.common.*;
+import com.oracle.graal.compiler.common.calc.*;
+import com.oracle.graal.lir.*;
+import com.oracle.graal.lir.asm.*;
+import com.oracle.graal.lir.gen.*;
+
+/**
+ * Emits code which computes {@code result[i] = array1[i] op array2[i]} for a range of indexes. The
+ * bulk of the range is processed with packed SSE instructions, or with 256 bit AVX instructions if
+ * the CPU supports them, and the remaining elements are processed one at a time. Since the vector
+ * moves are unaligned no scalar pre-loop is needed to align the arrays.
+ * <p>
+ * The result array may be the same as one of the input arrays: every element is read before the
+ * element at the same index is written and no other element depends on it.
+ */
+@Opcode("ARRAY_ARITHMETIC")
+public class AMD64ArrayArithmeticOp extends AMD64LIRInstruction {
+
+    /**
+     * Vector size used by the SSE main loop.
+     */
+    private static final int SSE_VECTOR_SIZE = 16;
+
+    /**
+     * Vector size used by the AVX main loop.
+     */
+    private static final int AVX_VECTOR_SIZE = 32;
+
+    private final ArrayArithmeticOperation op;
+    private final Kind kind;
+    private final int arrayBaseOffset;
+    private final int arrayIndexScale;
+    private final int vectorSize;
+
+    @Alive({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value array1Value;
+    @Alive({REG}) protected Value array2Value;
+    @Alive({REG}) protected Value startValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+    @Temp({REG, ILLEGAL}) protected Value temp6;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+
+    public AMD64ArrayArithmeticOp(LIRGeneratorTool tool, ArrayArithmeticOperation op, Kind kind, Value result, Value array1, Value array2, Value start, Value length) {
+        assert op.isSupportedFor(kind);
+        this.op = op;
+        this.kind = kind;
+
+        Class<?> arrayClass = Array.newInstance(kind.toJavaClass(), 0).getClass();
+        this.arrayBaseOffset = unsafe.arrayBaseOffset(arrayClass);
+        this.arrayIndexScale = unsafe.arrayIndexScale(arrayClass);
+        this.vectorSize = vectorSize(tool.target(), op, kind);
+
+        this.resultValue = result;
+        this.array1Value = array1;
+        this.array2Value = array2;
+        this.startValue = start;
+        this.lengthValue = length;
+
+        // Allocate some temporaries.
+        this.temp1 = tool.newVariable(LIRKind.derivedReference(tool.target().wordKind));
+        this.temp2 = tool.newVariable(LIRKind.derivedReference(tool.target().wordKind));
+        this.temp3 = tool.newVariable(LIRKind.derivedReference(tool.target().wordKind));
+        this.temp4 = tool.newVariable(LIRKind.value(tool.target().wordKind));
+        this.temp5 = tool.newVariable(LIRKind.value(tool.target().wordKind));
+
+        // Floating point elements are processed in the vector temporaries in the scalar loop too.
+        if (kind.isNumericInteger()) {
+            this.temp6 = tool.newVariable(LIRKind.value(kind));
+        } else {
+            this.temp6 = Value.ILLEGAL;
+        }
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(Kind.Double));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(Kind.Double));
+    }
+
+    /**
+     * Returns the number of bytes processed per iteration of the vector loop, or 0 if the
+     * underlying architecture has no packed instruction for the operation.
+     */
+    private static int vectorSize(TargetDescription target, ArrayArithmeticOperation op, Kind kind) {
+        EnumSet<CPUFeature> features = ((AMD64) target.arch).getFeatures();
+        boolean avx = features.contains(kind.isNumericInteger() ? CPUFeature.AVX2 : CPUFeature.AVX);
+        if (op == ArrayArithmeticOperation.MUL && kind.isNumericInteger()) {
+            if (kind == Kind.Long) {
+                return 0;
+            } else if (!avx && !features.contains(CPUFeature.SSE4_1)) {
+                return 0;
+            }
+        }
+        return avx ? AVX_VECTOR_SIZE : SSE_VECTOR_SIZE;
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(temp1);
+        Register array1 = asRegister(temp2);
+        Register array2 = asRegister(temp3);
+        Register index = asRegister(temp4);
+        Register length = asRegister(temp5);
+        Scale scale = Scale.fromInt(arrayIndexScale);
+
+        // Load the addresses of the first elements.
+        masm.movslq(index, asRegister(startValue));
+        masm.leaq(result, new AMD64Address(asRegister(resultValue), index, scale, arrayBaseOffset));
+        masm.leaq(array1, new AMD64Address(asRegister(array1Value), index, scale, arrayBaseOffset));
+        masm.leaq(array2, new AMD64Address(asRegister(array2Value), index, scale, arrayBaseOffset));
+        masm.movl(length, asRegister(lengthValue));
+
+        if (vectorSize > 0) {
+            emitVectorLoop(crb, masm, result, array1, array2, index, length, scale);
+        }
+        emitScalarLoop(crb, masm, result, array1, array2, index, length, scale);
+    }
+
+    /**
+     * Emits a loop that processes {@link #vectorSize} bytes per iteration. Afterwards the array
+     * registers point to the first remaining element and {@code length} holds the number of
+     * remaining elements.
+     */
+    private void emitVectorLoop(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register result, Register array1, Register array2, Register index, Register length, Scale scale) {
+        int elementsPerVector = vectorSize / arrayIndexScale;
+        Register vector1 = asDoubleReg(vectorTemp1);
+        Register vector2 = asDoubleReg(vectorTemp2);
+
+        Label loop = new Label();
+        Label tail = new Label();
+
+        masm.movl(index, length);
+        masm.andl(length, elementsPerVector - 1); // tail count (in elements)
+        masm.andl(index, ~(elementsPerVector - 1)); // vector count (in elements)
+        masm.jcc(ConditionFlag.Zero, tail);
+
+        masm.leaq(result, new AMD64Address(result, index, scale, 0));
+        masm.leaq(array1, new AMD64Address(array1, index, scale, 0));
+        masm.leaq(array2, new AMD64Address(array2, index, scale, 0));
+        masm.negq(index);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        if (vectorSize == AVX_VECTOR_SIZE) {
+            masm.vmovdqu(vector1, new AMD64Address(array1, index, scale, 0));
+            masm.vmovdqu(vector2, new AMD64Address(array2, index, scale, 0));
+            emitAVXOperation(masm, vector1, vector2);
+            masm.vmovdqu(new AMD64Address(result, index, scale, 0), vector1);
+        } else {
+            masm.movdqu(vector1, new AMD64Address(array1, index, scale, 0));
+            masm.movdqu(vector2, new AMD64Address(array2, index, scale, 0));
+            emitSSEOperation(masm, vector1, vector2);
+            masm.movdqu(new AMD64Address(result, index, scale, 0), vector1);
+        }
+        masm.addq(index, elementsPerVector);
+        masm.jcc(ConditionFlag.NotZero, loop);
+
+        if (vectorSize == AVX_VECTOR_SIZE) {
+            masm.vzeroupper();
+        }
+        masm.bind(tail);
+    }
+
+    /**
+     * Emits a loop that processes the remaining {@code length} elements one at a time.
+     */
+    private void emitScalarLoop(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register result, Register array1, Register array2, Register index, Register length, Scale scale) {
+        Label loop = new Label();
+        Label done = new Label();
+
+        masm.testl(length, length);
+        masm.jcc(ConditionFlag.Zero, done);
+
+        masm.leaq(result, new AMD64Address(result, length, scale, 0));
+        masm.leaq(array1, new AMD64Address(array1, length, scale, 0));
+        masm.leaq(array2, new AMD64Address(array2, length, scale, 0));
+        masm.movq(index, length);
+        masm.negq(index);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        emitScalarOperation(masm, new AMD64Address(result, index, scale, 0), new AMD64Address(array1, index, scale, 0), new AMD64Address(array2, index, scale, 0));
+        masm.incq(index);
+        masm.jcc(ConditionFlag.NotZero, loop);
+
+        masm.bind(done);
+    }
+
+    private void emitSSEOperation(AMD64MacroAssembler masm, Register dst, Register src) {
+        switch (kind) {
+            case Int:
+                switch (op) {
+                    case ADD:
+                        masm.paddd(dst, src);
+                        return;
+                    case SUB:
+                        masm.psubd(dst, src);
+                        return;
+                    case MUL:
+                        masm.pmulld(dst, src);
+                        return;
+                    default:
+                        emitSSELogic(masm, dst, src);
+                        return;
+                }
+            case Long:
+                switch (op) {
+                    case ADD:
+                        masm.paddq(dst, src);
+                        return;
+                    case SUB:
+                        masm.psubq(dst, src);
+                        return;
+                    default:
+                        emitSSELogic(masm, dst, src);
+                        return;
+                }
+            case Float:
+                switch (op) {
+                    case ADD:
+                        masm.addps(dst, src);
+                        return;
+                    case SUB:
+                        masm.subps(dst, src);
+                        return;
+                    case MUL:
+                        masm.mulps(dst, src);
+                        return;
+                    case DIV:
+                        masm.divps(dst, src);
+                        return;
+                }
+                break;
+            case Double:
+                switch (op) {
+                    case ADD:
+                        masm.addpd(dst, src);
+                        return;
+                    case SUB:
+                        masm.subpd(dst, src);
+                        return;
+                    case MUL:
+                        masm.mulpd(dst, src);
+                        return;
+                    case DIV:
+                        masm.divpd(dst, src);
+                        return;
+                }
+                break;
+        }
+        throw GraalInternalError.shouldNotReachHere();
+    }
+
+    private void emitSSELogic(AMD64MacroAssembler masm, Register dst, Register src) {
+        switch (op) {
+            case AND:
+                masm.pand(dst, src);
+                break;
+            case OR:
+                masm.por(dst, src);
+                break;
+            case XOR:
+                masm.pxor(dst, src);
+                break;
+            default:
+                throw GraalInternalError.shouldNotReachHere();
+        }
+    }
+
+    private void emitAVXOperation(AMD64MacroAssembler masm, Register dst, Register src) {
+        switch (kind) {
+            case Int:
+                switch (op) {
+                    case ADD:
+                        masm.vpaddd(dst, dst, src);
+                        return;
+                    case SUB:
+                        masm.vpsubd(dst, dst, src);
+                        return;
+                    case MUL:
+                        masm.vpmulld(dst, dst, src);
+                        return;
+                    default:
+                        emitAVXLogic(masm, dst, src);
+                        return;
+                }
+            case Long:
+                switch (op) {
+                    case ADD:
+                        masm.vpaddq(dst, dst, src);
+                        return;
+                    case SUB:
+                        masm.vpsubq(dst, dst, src);
+                        return;
+                    default:
+                        emitAVXLogic(masm, dst, src);
+                        return;
+                }
+            case Float:
+                switch (op) {
+                    case ADD:
+                        masm.vaddps(dst, dst, src);
+                        return;
+                    case SUB:
+                        masm.vsubps(dst, dst, src);
+                        return;
+                    case MUL:
+                        masm.vmulps(dst, dst, src);
+                        return;
+                    case DIV:
+                        masm.vdivps(dst, dst, src);
+                        return;
+                }
+                break;
+            case Double:
+                switch (op) {
+                    case ADD:
+                        masm.vaddpd(dst, dst, src);
+                        return;
+                    case SUB:
+                        masm.vsubpd(dst, dst, src);
+                        return;
+                    case MUL:
+                        masm.vmulpd(dst, dst, src);
+                        return;
+                    case DIV:
+                        masm.vdivpd(dst, dst, src);
+                        return;
+                }
+                break;
+        }
+        throw GraalInternalError.shouldNotReachHere();
+    }
+
+    private void emitAVXLogic(AMD64MacroAssembler masm, Register dst, Register src) {
+        switch (op) {
+            case AND:
+                masm.vpand(dst, dst, src);
+                break;
+            case OR:
+                masm.vpor(dst, dst, src);
+                break;
+            case XOR:
+                masm.vpxor(dst, dst, src);
+                break;
+            default:
+                throw GraalInternalError.shouldNotReachHere();
+        }
+    }
+
+    private void emitScalarOperation(AMD64MacroAssembler masm, AMD64Address dst, AMD64Address src1, AMD64Address src2) {
+        switch (kind) {
+            case Int: {
+                Register value = asIntReg(temp6);
+                masm.movl(value, src1);
+                switch (op) {
+                    case ADD:
+                        masm.addl(value, src2);
+                        break;
+                    case SUB:
+                        masm.subl(value, src2);
+                        break;
+                    case MUL:
+                        masm.imull(value, src2);
+                        break;
+                    case AND:
+                        masm.andl(value, src2);
+                        break;
+                    case OR:
+                        masm.orl(value, src2);
+                        break;
+                    case XOR:
+                        masm.xorl(value, src2);
+                        break;
+                    default:
+                        throw GraalInternalError.shouldNotReachHere();
+                }
+                masm.movl(dst, value);
+                break;
+            }
+            case Long: {
+                Register value = asLongReg(temp6);
+                masm.movq(value, src1);
+                switch (op) {
+                    case ADD:
+                        masm.addq(value, src2);
+                        break;
+                    case SUB:
+                        masm.subq(value, src2);
+                        break;
+                    case MUL:
+                        masm.imulq(value, src2);
+                        break;
+                    case AND:
+                        masm.andq(value, src2);
+                        break;
+                    case OR:
+                        masm.orq(value, src2);
+                        break;
+                    case XOR:
+                        masm.xorq(value, src2);
+                        break;
+                    default:
+                        throw GraalInternalError.shouldNotReachHere();
+                }
+                masm.movq(dst, value);
+                break;
+            }
+            case Float: {
+                Register value = asDoubleReg(vectorTemp1);
+                masm.movflt(value, src1);
+                switch (op) {
+                    case ADD:
+                        masm.addss(value, src2);
+                        break;
+                    case SUB:
+                        masm.subss(value, src2);
+                        break;
+                    case MUL:
+                        masm.mulss(value, src2);
+                        break;
+                    case DIV:
+                        masm.divss(value, src2);
+                        break;
+                    default:
+                        throw GraalInternalError.shouldNotReachHere();
+                }
+                masm.movflt(dst, value);
+                break;
+            }
+            case Double: {
+                Register value = asDoubleReg(vectorTemp1);
+                masm.movdbl(value, src1);
+                switch (op) {
+                    case ADD:
+                        masm.addsd(value, src2);
+                        break;
+                    case SUB:
+                        masm.subsd(value, src2);
+                        break;
+                    case MUL:
+                        masm.mulsd(value, src2);
+                        break;
+                    case DIV:
+                        masm.divsd(value, src2);
+                        break;
+                    default:
+                        throw GraalInternalError.shouldNotReachHere();
+                }
+                masm.movdbl(dst, value);
+                break;
+            }
+            default:
+                throw GraalInternalError.shouldNotReachHere();
+        }
+    }
+}
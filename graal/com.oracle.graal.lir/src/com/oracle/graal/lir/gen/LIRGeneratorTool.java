@@ -189,4 +189,11 @@ public interface LIRGeneratorTool extends ArithmeticLIRGenerator {
 
     Value emitArrayEquals(Kind kind, Value array1, Value array2, Value length);
 
+    /**
+     * Emits code that computes {@code result[i] = array1[i] op array2[i]} for all {@code i} with
+     * {@code start <= i < start + length}. The arrays must be non-null and the range must be
+     * within the bounds of all three arrays.
+     */
+    void emitArrayArithmetic(ArrayArithmeticOperation op, Kind kind, Value result, Value array1, Value array2, Value start, Value length);
+
 }
@@ -40,6 +40,14 @@ public class DerivedOffsetInductionVariable extends InductionVariable {
         this.value = value;
     }
 
+    public InductionVariable getBase() {
+        return base;
+    }
+
+    public ValueNode getOffset() {
+        return offset;
+    }
+
     @Override
     public StructuredGraph graph() {
         return base.graph();
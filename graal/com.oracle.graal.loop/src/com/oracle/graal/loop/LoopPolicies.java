@@ -60,6 +60,40 @@ public abstract class LoopPolicies {
         return size * maxTrips <= maxNodes;
     }
 
+    public static boolean shouldPartiallyUnroll(LoopEx loop) {
+        return partialUnrollFactor(loop) > 1;
+    }
+
+    /**
+     * Chooses how many iterations an unrolled body of {@code loop} should cover. The factor is a
+     * power of two limited by the profiled loop frequency, a constant trip count and the growth of
+     * the loop, which is roughly the loop size times the factor since the remainder loop is a full
+     * copy of the loop. A result of 1 means the loop should not be unrolled.
+     */
+    public static int partialUnrollFactor(LoopEx loop) {
+        if (!LoopTransformations.isUnrollable(loop)) {
+            return 1;
+        }
+        LoopBeginNode loopBegin = loop.loopBegin();
+        double frequency = loopBegin.loopFrequency();
+        if (frequency < PartialUnrollMinFrequency.getValue()) {
+            return 1;
+        }
+        long maxFactor = PartialUnrollMaxFactor.getValue();
+        CountedLoopInfo counted = loop.counted();
+        if (counted.isConstantMaxTripCount()) {
+            maxFactor = Math.min(maxFactor, counted.constantMaxTripCount());
+        }
+        int maxNodes = Math.min(PartialUnrollMaxNodes.getValue(), MaximumDesiredSize.getValue() - loopBegin.graph().getNodeCount());
+        int size = loop.size();
+        int factor = 1;
+        while (factor * 2 <= maxFactor && factor * 2 <= frequency && size * factor * 2 <= maxNodes) {
+            factor *= 2;
+        }
+        Debug.log("partialUnrollFactor(%s) : size=%d, frequency=%.1f, factor=%d", loop, size, frequency, factor);
+        return factor;
+    }
+
     public static boolean shouldTryUnswitch(LoopEx loop) {
         return loop.loopBegin().unswitches() <= LoopMaxUnswitch.getValue();
     }
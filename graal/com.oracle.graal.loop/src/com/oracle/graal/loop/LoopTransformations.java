@@ -23,15 +23,21 @@
 package com.oracle.graal.loop;
 
 import static com.oracle.graal.compiler.common.GraalOptions.*;
+import static com.oracle.graal.graph.util.CollectionsAccess.*;
 
 import java.util.*;
 
 import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.compiler.common.type.*;
 import com.oracle.graal.graph.Graph.Mark;
 import com.oracle.graal.graph.*;
 import com.oracle.graal.nodeinfo.*;
 import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.StructuredGraph.GuardsStage;
+import com.oracle.graal.nodes.calc.*;
 import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.util.*;
 import com.oracle.graal.phases.common.*;
 import com.oracle.graal.phases.tiers.*;
 
@@ -121,25 +127,170 @@ public abstract class LoopTransformations {
         // TODO (gd) probabilities need some amount of fixup.. (probably also in other transforms)
     }
 
+    /**
+     * Determines if {@link #unroll} can handle {@code loop}. This is limited to innermost 32-bit
+     * counted loops with a constant stride whose only exit is the counted exit at the top of the
+     * loop, after value proxies and frame states have been removed from loop exits.
+     */
+    public static boolean isUnrollable(LoopEx loop) {
+        if (!loop.isCounted() || !loop.loop().getChildren().isEmpty()) {
+            return false;
+        }
+        CountedLoopInfo counted = loop.counted();
+        if (!counted.getCounter().isConstantStride() || counted.getStamp().getBits() != 32) {
+            return false;
+        }
+        LoopBeginNode loopBegin = loop.loopBegin();
+        StructuredGraph graph = loopBegin.graph();
+        if (graph.getGuardsStage() != GuardsStage.AFTER_FSA || graph.hasValueProxies() || loopBegin.stateAfter() != null) {
+            return false;
+        }
+        if (loopBegin.loopEnds().count() != 1 || loopBegin.loopExits().count() != 1) {
+            return false;
+        }
+        LoopExitNode loopExit = loopBegin.loopExits().first();
+        if (loopExit.stateAfter() != null || loopExit.proxies().isNotEmpty()) {
+            return false;
+        }
+        return loopBegin.next() == counted.getBody().predecessor();
+    }
+
+    /**
+     * Unrolls a counted loop so that each iteration of the loop executes {@code factor} copies of
+     * the original body. Only the first copy tests the loop condition, for the counter value of
+     * the last copy, so the copies run without exit tests. The original loop is kept as remainder
+     * loop after the unrolled loop to execute the last iterations.
+     */
     public static void unroll(LoopEx loop, int factor) {
-        assert loop.isCounted();
-        if (factor > 0) {
-            throw new UnsupportedOperationException();
-        }
-        // TODO (gd) implement counted loop
-        LoopFragmentWhole main = loop.whole();
-        LoopFragmentWhole prologue = main.duplicate();
-        prologue.insertBefore(loop);
-        // CountedLoopBeginNode counted = prologue.countedLoop();
-        // StructuredGraph graph = (StructuredGraph) counted.graph();
-        // ValueNode tripCountPrologue = counted.tripCount();
-        // ValueNode tripCountMain = counted.tripCount();
-        // graph.replaceFloating(tripCountPrologue, "tripCountPrologue % factor");
-        // graph.replaceFloating(tripCountMain, "tripCountMain - (tripCountPrologue % factor)");
-        LoopFragmentInside inside = loop.inside();
-        for (int i = 0; i < factor; i++) {
-            inside.duplicate().appendInside(loop);
+        assert isUnrollable(loop) && factor > 1;
+        LoopBeginNode loopBegin = loop.loopBegin();
+        StructuredGraph graph = loopBegin.graph();
+        CountedLoopInfo counted = loop.counted();
+        LoopEndNode loopEnd = loopBegin.loopEnds().first();
+        LoopExitNode loopExit = loopBegin.loopExits().first();
+        IfNode exitIf = (IfNode) counted.getBody().predecessor();
+        NodeBitMap loopNodes = loop.whole().nodes().copy();
+        NodeBitMap bodyNodes = loop.inside().nodes().copy();
+
+        insertRemainderLoop(loopBegin, loopExit, loopNodes, factor);
+
+        Map<PhiNode, ValueNode> backValues = newNodeIdentityMap();
+        for (PhiNode phi : loopBegin.phis()) {
+            backValues.put(phi, phi.valueAt(loopEnd));
+        }
+
+        // duplicate all copies before rewiring so that each copy is made from the unchanged body
+        List<Map<Node, Node>> copies = new ArrayList<>(factor - 1);
+        Map<PhiNode, ValueNode> entryValues = newNodeIdentityMap();
+        for (PhiNode phi : loopBegin.phis()) {
+            entryValues.put(phi, phi);
+        }
+        Map<Node, Node> previous = null;
+        for (int i = 1; i < factor; i++) {
+            entryValues = valuesAfterIteration(backValues, entryValues, previous);
+            Map<PhiNode, ValueNode> phiValues = entryValues;
+            BeginNode copyBegin = graph.add(BeginNode.create());
+            BeginNode copyExit = graph.add(BeginNode.create());
+            EndNode copyEnd = graph.add(EndNode.create());
+            Map<Node, Node> copy = graph.addDuplicates(bodyNodes, graph, bodyNodes.count(), original -> {
+                if (original == loopBegin) {
+                    return copyBegin;
+                } else if (original == loopExit) {
+                    return copyExit;
+                } else if (original == loopEnd) {
+                    return copyEnd;
+                } else if (loopBegin.isPhiAtMerge(original)) {
+                    return phiValues.get(original);
+                }
+                return original;
+            });
+            copies.add(copy);
+            previous = copy;
+        }
+        Map<PhiNode, ValueNode> finalValues = valuesAfterIteration(backValues, entryValues, previous);
+
+        for (Map<Node, Node> copy : copies) {
+            BeginNode copyBegin = (BeginNode) copy.get(loopBegin);
+            EndNode copyEnd = (EndNode) copy.get(loopEnd);
+            loopEnd.replaceAtPredecessor(copyBegin);
+            copyEnd.replaceAtPredecessor(loopEnd);
+            copyEnd.safeDelete();
+            graph.removeSplitPropagate((IfNode) copy.get(exitIf), (BeginNode) copy.get(counted.getBody()));
+        }
+        for (PhiNode phi : loopBegin.phis()) {
+            phi.setValueAt(loopEnd, finalValues.get(phi));
+        }
+
+        // enter the unrolled body only if the counter of the last copy passes the loop test
+        IntegerLessThanNode test = (IntegerLessThanNode) exitIf.condition();
+        InductionVariable counter = counted.getCounter();
+        Stamp longStamp = StampFactory.forKind(Kind.Long);
+        ValueNode last = BinaryArithmeticNode.add(graph, IntegerConvertNode.convert(counter.valueNode(), longStamp, graph),
+                        ConstantNode.forLong(counter.constantStride() * (factor - 1), graph));
+        ValueNode limit = IntegerConvertNode.convert(counted.getLimit(), longStamp, graph);
+        LogicNode unrolledTest;
+        if (test.getX() == counter.valueNode()) {
+            unrolledTest = graph.unique(IntegerLessThanNode.create(last, limit));
+        } else {
+            unrolledTest = graph.unique(IntegerLessThanNode.create(limit, last));
+        }
+        exitIf.replaceFirstInput(test, unrolledTest);
+        if (test.usages().isEmpty()) {
+            GraphUtil.killWithUnusedFloatingInputs(test);
+        }
+        loopBegin.setLoopFrequency(Math.max(1.0, loopBegin.loopFrequency() / factor));
+    }
+
+    /**
+     * Computes the values of the loop phis after an iteration that started with
+     * {@code entryValues} and whose body nodes were duplicated as {@code body}, or the original
+     * body if {@code body} is null.
+     */
+    private static Map<PhiNode, ValueNode> valuesAfterIteration(Map<PhiNode, ValueNode> backValues, Map<PhiNode, ValueNode> entryValues, Map<Node, Node> body) {
+        Map<PhiNode, ValueNode> result = newNodeIdentityMap();
+        for (Map.Entry<PhiNode, ValueNode> entry : backValues.entrySet()) {
+            ValueNode value = entry.getValue();
+            ValueNode newValue;
+            if (entryValues.containsKey(value)) {
+                newValue = entryValues.get(value);
+            } else if (body != null && body.containsKey(value)) {
+                newValue = (ValueNode) body.get(value);
+            } else {
+                newValue = value;
+            }
+            result.put(entry.getKey(), newValue);
+        }
+        return result;
+    }
+
+    /**
+     * Inserts a copy of the loop between the loop's exit and the code after it. The copy starts
+     * with the values of the loop phis at the exit, and all uses of loop values after the loop
+     * are moved to the copy.
+     */
+    private static void insertRemainderLoop(LoopBeginNode loopBegin, LoopExitNode loopExit, NodeBitMap loopNodes, int factor) {
+        StructuredGraph graph = loopBegin.graph();
+        AbstractEndNode forwardEnd = loopBegin.forwardEnd();
+        EndNode remainderEntry = graph.add(EndNode.create());
+        Map<Node, Node> remainder = graph.addDuplicates(loopNodes, graph, loopNodes.count(), original -> original == forwardEnd ? remainderEntry : original);
+        NodeBitMap remainderNodes = graph.createNodeBitMap();
+        for (Node node : remainder.values()) {
+            remainderNodes.mark(node);
+        }
+        for (Node node : loopNodes) {
+            node.replaceAtMatchingUsages(remainder.get(node), usage -> !loopNodes.isMarkedAndGrow(usage) && !remainderNodes.isMarkedAndGrow(usage));
+        }
+
+        LoopBeginNode remainderBegin = (LoopBeginNode) remainder.get(loopBegin);
+        LoopExitNode remainderExit = (LoopExitNode) remainder.get(loopExit);
+        FixedNode next = loopExit.next();
+        loopExit.setNext(null);
+        remainderExit.setNext(next);
+        loopExit.setNext(remainderEntry);
+        for (PhiNode phi : loopBegin.phis()) {
+            ((PhiNode) remainder.get(phi)).setValueAt(remainderEntry, phi);
         }
+        remainderBegin.setLoopFrequency(Math.min(loopBegin.loopFrequency(), factor - 1));
     }
 
     public static List<ControlSplitNode> findUnswitchable(LoopEx loop) {
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import com.oracle.graal.debug.*;
+import com.oracle.graal.graph.*;
+import com.oracle.graal.loop.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.tiers.*;
+
+/**
+ * Partially unrolls hot counted loops with small bodies, see {@link LoopPolicies#partialUnrollFactor}
+ * and {@link LoopTransformations#unroll}. Each loop that exists when the phase starts is considered
+ * once, so neither an unrolled loop nor its remainder loop is unrolled again.
+ */
+public class LoopPartialUnrollPhase extends BasePhase<PhaseContext> {
+
+    private static final DebugMetric PARTIALLY_UNROLLED_LOOPS = Debug.metric("PartialUnrolls");
+
+    @Override
+    protected void run(StructuredGraph graph, PhaseContext context) {
+        if (!graph.hasLoops()) {
+            return;
+        }
+        NodeBitMap candidates = graph.createNodeBitMap();
+        for (LoopBeginNode loopBegin : graph.getNodes(LoopBeginNode.class)) {
+            candidates.mark(loopBegin);
+        }
+        boolean unrolled;
+        do {
+            unrolled = false;
+            LoopsData dataCounted = new LoopsData(graph);
+            dataCounted.detectedCountedLoops();
+            for (LoopEx loop : dataCounted.countedLoops()) {
+                LoopBeginNode loopBegin = loop.loopBegin();
+                if (!candidates.isMarkedAndGrow(loopBegin)) {
+                    continue;
+                }
+                candidates.clear(loopBegin);
+                int factor = LoopPolicies.partialUnrollFactor(loop);
+                if (factor > 1) {
+                    Debug.log("PartialUnroll %s by %d", loop, factor);
+                    LoopTransformations.unroll(loop, factor);
+                    PARTIALLY_UNROLLED_LOOPS.increment();
+                    Debug.dump(graph, "After partial unroll %s", loop);
+                    unrolled = true;
+                    break;
+                }
+            }
+            dataCounted.deleteUnusedNodes();
+        } while (unrolled);
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.nodes.calc.BinaryArithmeticNode.*;
+
+import java.util.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.compiler.common.cfg.*;
+import com.oracle.graal.compiler.common.type.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.loop.*;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.cfg.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.util.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.tiers.*;
+
+/**
+ * Removes array bounds checks on the counter of a counted loop from the loop body. A
+ * {@link DeoptimizationReason#BoundsCheckException} guard on {@code index |<| length} is handled
+ * if {@code length} is loop invariant and {@code index} is the loop counter or the counter plus or
+ * minus a loop invariant offset, and if the guard is anchored in the
+ * {@linkplain CountedLoopInfo#getBody() body} of the loop. A guard anchored before the loop exit
+ * test also runs for the counter value that leaves the loop, which is outside the range below.
+ * <p>
+ * The counter only takes values between its initial value and the loop limit, which is guaranteed
+ * by the {@linkplain CountedLoopInfo#createOverFlowGuard() overflow guard}. If the range of the
+ * index can be computed statically and lies within the lower bound of the length's stamp, the
+ * guard is simply dropped. Otherwise it is replaced by a single
+ * {@link DeoptimizationReason#LoopPredicate} guard before the loop that checks both ends of the
+ * range. Since the loop may leave early, that check is speculative; when it fails often enough the
+ * {@link OptimisticOptimizations#useLoopPredication() optimization} is disabled for the method.
+ */
+public class LoopRangeCheckEliminationPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugMetric METRIC_RANGE_CHECKS_PROVEN = Debug.metric("LoopRangeChecksProven");
+    private static final DebugMetric METRIC_RANGE_CHECKS_HOISTED = Debug.metric("LoopRangeChecksHoisted");
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        OptimisticOptimizations optimisticOpts = context.getOptimisticOptimizations();
+        if (!optimisticOpts.useLoopPredication() || !optimisticOpts.useLoopLimitChecks() || !graph.hasLoops() || !graph.hasNode(GuardNode.class)) {
+            return;
+        }
+        LoopsData loops = new LoopsData(graph);
+        loops.detectedCountedLoops();
+        for (LoopEx loop : loops.innerFirst()) {
+            if (loop.isCounted() && loop.counted().getStamp().getBits() == 32) {
+                processLoop(loop);
+            }
+        }
+        loops.deleteUnusedNodes();
+    }
+
+    private static void processLoop(LoopEx loop) {
+        List<GuardNode> guards = new ArrayList<>();
+        for (GuardNode guard : loop.whole().nodes().filter(GuardNode.class)) {
+            if (isRangeCheck(loop, guard)) {
+                guards.add(guard);
+            }
+        }
+        if (guards.isEmpty()) {
+            return;
+        }
+        CountedLoopInfo counted = loop.counted();
+        GuardingNode overflowGuard = counted.createOverFlowGuard();
+        StructuredGraph graph = loop.loopBegin().graph();
+        IntegerStamp stamp = counted.getStamp();
+        ConstantNode one = ConstantNode.forIntegerStamp(stamp, 1, graph);
+
+        // inclusive bounds of the counter's values inside the loop body
+        ValueNode low;
+        ValueNode high;
+        if (counted.getDirection() == Direction.Up) {
+            low = counted.getStart();
+            high = counted.isLimitIncluded() ? counted.getLimit() : sub(graph, counted.getLimit(), one);
+        } else {
+            low = counted.isLimitIncluded() ? counted.getLimit() : add(graph, counted.getLimit(), one);
+            high = counted.getStart();
+        }
+
+        for (GuardNode guard : guards) {
+            IntegerBelowNode check = (IntegerBelowNode) guard.condition();
+            ValueNode length = check.getY();
+            InductionVariable iv = loop.getInductionVariables().get(check.getX());
+            ValueNode lowIndex;
+            ValueNode highIndex;
+            if (iv == counted.getCounter()) {
+                lowIndex = low;
+                highIndex = high;
+            } else {
+                DerivedOffsetInductionVariable derived = (DerivedOffsetInductionVariable) iv;
+                ValueNode offset = derived.getOffset();
+                BinaryArithmeticNode<?> value = (BinaryArithmeticNode<?>) derived.valueNode();
+                if (value instanceof AddNode) {
+                    lowIndex = add(graph, low, offset);
+                    highIndex = add(graph, high, offset);
+                } else if (value.getX() == counted.getCounter().valueNode()) {
+                    lowIndex = sub(graph, low, offset);
+                    highIndex = sub(graph, high, offset);
+                } else {
+                    lowIndex = sub(graph, offset, high);
+                    highIndex = sub(graph, offset, low);
+                }
+            }
+
+            GuardingNode replacement;
+            if (isProvenInBounds(lowIndex, highIndex, length)) {
+                replacement = overflowGuard;
+                METRIC_RANGE_CHECKS_PROVEN.increment();
+            } else {
+                replacement = createPredicate(loop, low, high, lowIndex, highIndex, length);
+                METRIC_RANGE_CHECKS_HOISTED.increment();
+            }
+            Debug.log("Replaced %s in %s by %s", guard, loop, replacement);
+            guard.replaceAtUsages(replacement.asNode());
+            GraphUtil.killWithUnusedFloatingInputs(guard);
+        }
+    }
+
+    private static boolean isRangeCheck(LoopEx loop, GuardNode guard) {
+        if (guard.reason() != DeoptimizationReason.BoundsCheckException || guard.negated() || !(guard.condition() instanceof IntegerBelowNode)) {
+            return false;
+        }
+        if (guard.getAnchor() == null) {
+            return false;
+        }
+        ControlFlowGraph cfg = loop.loopsData().controlFlowGraph();
+        Block anchorBlock = cfg.blockFor(guard.getAnchor().asNode());
+        if (anchorBlock == null || !AbstractControlFlowGraph.dominates(cfg.blockFor(loop.counted().getBody()), anchorBlock)) {
+            return false;
+        }
+        IntegerBelowNode check = (IntegerBelowNode) guard.condition();
+        if (!loop.isOutsideLoop(check.getY()) || !(check.getX().stamp() instanceof IntegerStamp) || ((IntegerStamp) check.getX().stamp()).getBits() != 32) {
+            return false;
+        }
+        InductionVariable iv = loop.getInductionVariables().get(check.getX());
+        InductionVariable counter = loop.counted().getCounter();
+        if (iv == counter) {
+            return true;
+        }
+        if (iv instanceof DerivedOffsetInductionVariable) {
+            DerivedOffsetInductionVariable derived = (DerivedOffsetInductionVariable) iv;
+            return derived.getBase() == counter && loop.isOutsideLoop(derived.getOffset());
+        }
+        return false;
+    }
+
+    /**
+     * Determines if every value in {@code [lowIndex, highIndex]} is a valid index for an array of
+     * the given length, based on constants and the stamp of the length.
+     */
+    private static boolean isProvenInBounds(ValueNode lowIndex, ValueNode highIndex, ValueNode length) {
+        if (lowIndex.isConstant() && highIndex.isConstant() && length.stamp() instanceof IntegerStamp) {
+            long lowValue = lowIndex.asJavaConstant().asLong();
+            long highValue = highIndex.asJavaConstant().asLong();
+            return lowValue >= 0 && lowValue <= highValue && highValue < ((IntegerStamp) length.stamp()).lowerBound();
+        }
+        return false;
+    }
+
+    /**
+     * Creates a guard before the loop that holds if the loop body is not entered or if both ends
+     * of the index range are below the length. Requiring {@code lowIndex <= highIndex} rules out a
+     * wrap around in the index computation, so all values in between are valid indexes as well.
+     */
+    private static GuardingNode createPredicate(LoopEx loop, ValueNode low, ValueNode high, ValueNode lowIndex, ValueNode highIndex, ValueNode length) {
+        StructuredGraph graph = loop.loopBegin().graph();
+        LogicNode empty = graph.unique(IntegerLessThanNode.create(high, low));
+        LogicNode lowInBounds = graph.unique(IntegerBelowNode.create(lowIndex, length));
+        LogicNode highInBounds = graph.unique(IntegerBelowNode.create(highIndex, length));
+        LogicNode wrapped = graph.unique(IntegerLessThanNode.create(highIndex, lowIndex));
+        LogicNode inBounds = LogicNode.and(LogicNode.and(lowInBounds, highInBounds, 0.01), false, wrapped, true, 0.01);
+        LogicNode condition = LogicNode.or(empty, inBounds, 0.1);
+        return graph.unique(GuardNode.create(condition, BeginNode.prevBegin(loop.entryPoint()), DeoptimizationReason.LoopPredicate, DeoptimizationAction.InvalidateRecompile, false,
+                        JavaConstant.NULL_OBJECT));
+    }
+}
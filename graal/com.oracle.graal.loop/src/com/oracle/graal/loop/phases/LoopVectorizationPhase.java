@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.nodes.calc.BinaryArithmeticNode.*;
+
+import java.util.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.compiler.common.calc.*;
+import com.oracle.graal.compiler.common.type.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.loop.*;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.java.*;
+import com.oracle.graal.nodes.type.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.tiers.*;
+
+/**
+ * Computes the iterations of simple element-wise array loops with an {@link ArrayArithmeticNode},
+ * which a backend can implement with packed SIMD instructions. A loop is handled if it is an
+ * innermost counted loop of the form
+ *
+ * <pre>
+ * for (int i = start; i &lt; limit; i++) {
+ *     result[i] = x[i] op y[i];
+ * }
+ * </pre>
+ *
+ * where the arrays are loop invariant and have the same {@code int}, {@code long}, {@code float}
+ * or {@code double} element kind. The array node is inserted before the loop and covers the whole
+ * iteration range if that range is within the bounds of all arrays. The loop counter then starts
+ * at the limit, so the original loop only runs if the range is not covered and still throws the
+ * same exceptions. Since every iteration only accesses the elements at its own index, the result
+ * array may be one of the input arrays.
+ * <p>
+ * The arrays are checked for null before the loop even if the loop is not entered. These checks
+ * are speculative {@link DeoptimizationReason#LoopPredicate} guards, so the phase is disabled when
+ * they fail too often, like the {@linkplain LoopRangeCheckEliminationPhase range check predicates}.
+ * <p>
+ * The phase must run before high tier lowering, while array accesses are still represented by
+ * {@link AccessIndexedNode}s.
+ */
+public class LoopVectorizationPhase extends BasePhase<HighTierContext> {
+
+    private static final DebugMetric VECTORIZED_LOOPS = Debug.metric("VectorizedLoops");
+
+    @Override
+    protected void run(StructuredGraph graph, HighTierContext context) {
+        if (!context.getOptimisticOptimizations().useLoopPredication() || !graph.hasLoops()) {
+            return;
+        }
+        LoopsData loops = new LoopsData(graph);
+        loops.detectedCountedLoops();
+        for (LoopEx loop : loops.countedLoops()) {
+            if (loop.loop().getChildren().isEmpty() && tryVectorize(loop)) {
+                Debug.log("Vectorized %s", loop);
+                VECTORIZED_LOOPS.increment();
+            }
+        }
+    }
+
+    private static boolean tryVectorize(LoopEx loop) {
+        CountedLoopInfo counted = loop.counted();
+        InductionVariable counter = counted.getCounter();
+        if (counted.getStamp().getBits() != 32 || counted.getDirection() != Direction.Up || counted.isLimitIncluded() || !(counter instanceof BasicInductionVariable) || !counter.isConstantStride() ||
+                        counter.constantStride() != 1) {
+            return false;
+        }
+        LoopBeginNode loopBegin = loop.loopBegin();
+        FrameState loopState = loopBegin.stateAfter();
+        if (loopBegin.phis().count() != 1 || loopBegin.loopEnds().count() != 1 || loopBegin.loopExits().count() != 1 || loopBegin.next() != counted.getBody().predecessor() || loopState == null ||
+                        loopState.virtualObjectMappings().isNotEmpty()) {
+            return false;
+        }
+
+        // the body must consist of array loads followed by a single array store
+        ValueNode phi = counter.valueNode();
+        List<LoadIndexedNode> loads = new ArrayList<>(2);
+        StoreIndexedNode store = null;
+        FixedNode current = counted.getBody().next();
+        while (current instanceof AccessIndexedNode && store == null) {
+            AccessIndexedNode access = (AccessIndexedNode) current;
+            if (access.index() != phi || !loop.isOutsideLoop(access.array())) {
+                return false;
+            }
+            if (access instanceof LoadIndexedNode) {
+                loads.add((LoadIndexedNode) access);
+            } else {
+                store = (StoreIndexedNode) access;
+            }
+            current = access.next();
+        }
+        if (store == null || current != loopBegin.loopEnds().first()) {
+            return false;
+        }
+
+        Kind kind = store.elementKind();
+        ArrayArithmeticOperation operation = operationFor(store.value());
+        if (operation == null || !operation.isSupportedFor(kind) || store.value().getKind() != kind) {
+            return false;
+        }
+        BinaryNode value = (BinaryNode) store.value();
+        if (!loads.contains(value.getX()) || !loads.contains(value.getY())) {
+            return false;
+        }
+        for (LoadIndexedNode load : loads) {
+            // any other load would lose its null and bounds check
+            if (load.elementKind() != kind || (load != value.getX() && load != value.getY())) {
+                return false;
+            }
+        }
+
+        vectorize(loop, operation, kind, store.array(), ((LoadIndexedNode) value.getX()).array(), ((LoadIndexedNode) value.getY()).array());
+        return true;
+    }
+
+    private static ArrayArithmeticOperation operationFor(ValueNode node) {
+        if (node instanceof AddNode) {
+            return ArrayArithmeticOperation.ADD;
+        } else if (node instanceof SubNode) {
+            return ArrayArithmeticOperation.SUB;
+        } else if (node instanceof MulNode) {
+            return ArrayArithmeticOperation.MUL;
+        } else if (node instanceof DivNode) {
+            return ArrayArithmeticOperation.DIV;
+        } else if (node instanceof AndNode) {
+            return ArrayArithmeticOperation.AND;
+        } else if (node instanceof OrNode) {
+            return ArrayArithmeticOperation.OR;
+        } else if (node instanceof XorNode) {
+            return ArrayArithmeticOperation.XOR;
+        }
+        return null;
+    }
+
+    private static void vectorize(LoopEx loop, ArrayArithmeticOperation operation, Kind kind, ValueNode result, ValueNode x, ValueNode y) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        StructuredGraph graph = loopBegin.graph();
+        AbstractEndNode forwardEnd = loopBegin.forwardEnd();
+        CountedLoopInfo counted = loop.counted();
+        ValueNode start = counted.getStart();
+        ValueNode limit = counted.getLimit();
+
+        // the range is covered if 0 <= start < limit and limit <= length for every array
+        LogicNode inBounds = LogicNode.and(graph.unique(IntegerLessThanNode.create(start, limit)), false, graph.unique(IntegerLessThanNode.create(start, ConstantNode.forInt(0, graph))), true, 0.9);
+        Map<ValueNode, ValueNode> nonNullArrays = new HashMap<>();
+        for (ValueNode array : new ValueNode[]{result, x, y}) {
+            if (!nonNullArrays.containsKey(array)) {
+                ValueNode nonNullArray = array;
+                if (!StampTool.isObjectNonNull(array)) {
+                    LogicNode isNull = graph.unique(IsNullNode.create(array));
+                    Stamp stamp = array.stamp().join(StampFactory.objectNonNull());
+                    nonNullArray = graph.add(GuardingPiNode.create(array, isNull, true, DeoptimizationReason.LoopPredicate, DeoptimizationAction.InvalidateRecompile, stamp));
+                    graph.addBeforeFixed(forwardEnd, (FixedWithNextNode) nonNullArray);
+                }
+                ArrayLengthNode length = graph.add(ArrayLengthNode.create(nonNullArray));
+                graph.addBeforeFixed(forwardEnd, length);
+                inBounds = LogicNode.and(inBounds, false, graph.unique(IntegerLessThanNode.create(length, limit)), true, 0.9);
+                nonNullArrays.put(array, nonNullArray);
+            }
+        }
+        ValueNode count = graph.unique(ConditionalNode.create(inBounds, sub(graph, limit, start), ConstantNode.forInt(0, graph)));
+        ValueNode newStart = add(graph, start, count);
+
+        ArrayArithmeticNode arithmetic = graph.add(ArrayArithmeticNode.create(operation, kind, nonNullArrays.get(result), nonNullArrays.get(x), nonNullArrays.get(y), start, count));
+        graph.addBeforeFixed(forwardEnd, arithmetic);
+
+        // a deoptimization after the array node resumes at the loop header with the new start
+        ValueNode phi = counted.getCounter().valueNode();
+        FrameState state = loopBegin.stateAfter().duplicate();
+        while (state.inputs().contains(phi)) {
+            state.replaceFirstInput(phi, newStart);
+        }
+        arithmetic.setStateAfter(state);
+        ((PhiNode) phi).setValueAt(forwardEnd, newStart);
+    }
+}
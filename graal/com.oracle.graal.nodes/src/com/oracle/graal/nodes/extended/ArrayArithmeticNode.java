@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.extended;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.compiler.common.calc.*;
+import com.oracle.graal.compiler.common.type.*;
+import com.oracle.graal.nodeinfo.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.spi.*;
+
+/**
+ * Computes {@code result[i] = x[i] op y[i]} for all {@code i} with
+ * {@code start <= i < start + length}. The arrays must be non-null and the range must be within the
+ * bounds of all three arrays. The result array may be the same as one of the input arrays.
+ */
+@NodeInfo
+public class ArrayArithmeticNode extends AbstractMemoryCheckpoint implements LIRLowerable, MemoryCheckpoint.Single {
+
+    protected final ArrayArithmeticOperation operation;
+
+    /** {@link Kind} of the array elements. */
+    protected final Kind elementKind;
+
+    @Input ValueNode result;
+    @Input ValueNode x;
+    @Input ValueNode y;
+    @Input ValueNode start;
+    @Input ValueNode length;
+
+    public static ArrayArithmeticNode create(ArrayArithmeticOperation operation, Kind elementKind, ValueNode result, ValueNode x, ValueNode y, ValueNode start, ValueNode length) {
+        return new ArrayArithmeticNode(operation, elementKind, result, x, y, start, length);
+    }
+
+    protected ArrayArithmeticNode(ArrayArithmeticOperation operation, Kind elementKind, ValueNode result, ValueNode x, ValueNode y, ValueNode start, ValueNode length) {
+        super(StampFactory.forVoid());
+        assert operation.isSupportedFor(elementKind);
+        this.operation = operation;
+        this.elementKind = elementKind;
+        this.result = result;
+        this.x = x;
+        this.y = y;
+        this.start = start;
+        this.length = length;
+    }
+
+    public ArrayArithmeticOperation getOperation() {
+        return operation;
+    }
+
+    public Kind getElementKind() {
+        return elementKind;
+    }
+
+    public ValueNode result() {
+        return result;
+    }
+
+    public ValueNode getX() {
+        return x;
+    }
+
+    public ValueNode getY() {
+        return y;
+    }
+
+    public ValueNode start() {
+        return start;
+    }
+
+    public ValueNode length() {
+        return length;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        gen.getLIRGeneratorTool().emitArrayArithmetic(operation, elementKind, gen.operand(result), gen.operand(x), gen.operand(y), gen.operand(start), gen.operand(length));
+    }
+
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(elementKind);
+    }
+}
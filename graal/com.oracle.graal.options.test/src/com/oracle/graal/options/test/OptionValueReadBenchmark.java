@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.options.test;
+
+import java.util.concurrent.*;
+
+import com.oracle.graal.options.*;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+
+/**
+ * Measures the cost of {@link OptionValue#getValue()} when no thread has an override scope, when
+ * another thread has one and when the reading thread has one. Run with
+ * {@code mx java -cp <classpath> com.oracle.graal.options.test.OptionValueReadBenchmark}.
+ */
+public class OptionValueReadBenchmark {
+
+    static final OptionValue<Boolean> Read = new OptionValue<>(true);
+    static final OptionValue<Boolean> Other = new OptionValue<>(false);
+
+    private static final int ITERATIONS = 10;
+    private static final int READS = 100_000_000;
+
+    static volatile int sink;
+
+    private static int readLoop() {
+        int count = 0;
+        for (int i = 0; i < READS; i++) {
+            if (Read.getValue()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void measure(String name) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            sink = readLoop();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-30s %6.2f ns/read%n", name, best / (double) READS);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        measure("no override scope");
+
+        CountDownLatch opened = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread other = new Thread(() -> {
+            try (OverrideScope s = OptionValue.override(Other, true)) {
+                opened.countDown();
+                done.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        other.start();
+        opened.await();
+        measure("scope in another thread");
+        done.countDown();
+        other.join();
+
+        try (OverrideScope s = OptionValue.override(Other, true)) {
+            measure("scope in the reading thread");
+        }
+    }
+}
@@ -26,6 +26,7 @@ import static com.oracle.graal.options.test.TestOptionValue.Options.*;
 import static org.junit.Assert.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.junit.*;
 
@@ -124,4 +125,68 @@ public class TestOptionValue {
             }
         }
     }
+
+    @Test
+    public void testOtherThread() throws InterruptedException {
+        try (OverrideScope s1 = OptionValue.override(Mutable, "override1")) {
+            String[] otherValue = new String[1];
+            Thread other = new Thread(() -> otherValue[0] = Mutable.getValue());
+            other.start();
+            other.join();
+            assertEquals("original", otherValue[0]);
+            assertEquals("override1", Mutable.getValue());
+        }
+        assertEquals("original", Mutable.getValue());
+    }
+
+    @Test
+    public void testScopeInOtherThread() throws InterruptedException {
+        CountDownLatch opened = new CountDownLatch(1);
+        CountDownLatch read = new CountDownLatch(1);
+        String[] otherValue = new String[1];
+        Thread other = new Thread(() -> {
+            try (OverrideScope s = OptionValue.override(Mutable, "override1")) {
+                opened.countDown();
+                read.await();
+                otherValue[0] = Mutable.getValue();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        other.start();
+        opened.await();
+        // The scope of the other thread sends this thread down the slow path but must not leak.
+        assertEquals("original", Mutable.getValue());
+        assertFalse(OptionValue.hasOverrides());
+        try (OverrideScope s = OptionValue.override(Mutable, "override2")) {
+            read.countDown();
+            other.join();
+            assertEquals("override2", Mutable.getValue());
+        }
+        assertEquals("override1", otherValue[0]);
+        assertEquals("original", Mutable.getValue());
+        assertFalse(OptionValue.hasOverrides());
+    }
+
+    @Test
+    public void testPropagateToOtherThread() throws InterruptedException {
+        assertTrue(OptionValue.getOverrides().isEmpty());
+        try (OverrideScope s1 = OptionValue.override(Mutable, "override1")) {
+            try (OverrideScope s2 = OptionValue.override(SecondMutable, "secondOverride2")) {
+                Map<OptionValue<?>, Object> overrides = OptionValue.getOverrides();
+                String[] otherValues = new String[2];
+                Thread other = new Thread(() -> {
+                    try (OverrideScope s = OptionValue.override(overrides)) {
+                        otherValues[0] = Mutable.getValue();
+                        otherValues[1] = SecondMutable.getValue();
+                    }
+                });
+                other.start();
+                other.join();
+                assertEquals("override1", otherValues[0]);
+                assertEquals("secondOverride2", otherValues[1]);
+            }
+        }
+        assertTrue(OptionValue.getOverrides().isEmpty());
+    }
 }
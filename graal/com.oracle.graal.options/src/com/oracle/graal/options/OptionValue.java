@@ -25,6 +25,7 @@ package com.oracle.graal.options;
 import java.io.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.*;
 
 /**
  * An option value.
@@ -46,7 +47,7 @@ public class OptionValue<T> {
      * </pre>
      */
     public static OverrideScope override(OptionValue<?> option, Object value) {
-        OverrideScope current = overrideScopes.get();
+        OverrideScope current = getOverrideScope();
         if (current == null) {
             if (!value.equals(option.getValue())) {
                 return new SingleOverrideScope(option, value);
@@ -76,7 +77,7 @@ public class OptionValue<T> {
      * </pre>
      */
     public static OverrideScope override(Map<OptionValue<?>, Object> overrides) {
-        OverrideScope current = overrideScopes.get();
+        OverrideScope current = getOverrideScope();
         if (current == null && overrides.size() == 1) {
             Entry<OptionValue<?>, Object> single = overrides.entrySet().iterator().next();
             OptionValue<?> option = single.getKey();
@@ -106,7 +107,7 @@ public class OptionValue<T> {
      * @param overrides overrides in the form {@code [option1, override1, option2, override2, ...]}
      */
     public static OverrideScope override(Object... overrides) {
-        OverrideScope current = overrideScopes.get();
+        OverrideScope current = getOverrideScope();
         if (current == null && overrides.length == 2) {
             OptionValue<?> option = (OptionValue<?>) overrides[0];
             Object overrideValue = overrides[1];
@@ -130,6 +131,66 @@ public class OptionValue<T> {
 
     static final ThreadLocal<OverrideScope> overrideScopes = new ThreadLocal<>();
 
+    /**
+     * Gets the options overridden by the current thread together with their values. Work handed
+     * to another thread can apply the same overrides with {@link #override(Map)}.
+     */
+    public static Map<OptionValue<?>, Object> getOverrides() {
+        OverrideScope current = getOverrideScope();
+        if (current == null) {
+            return Collections.emptyMap();
+        }
+        Map<OptionValue<?>, Object> overrides = new HashMap<>();
+        current.addToInherited(overrides);
+        return overrides;
+    }
+
+    /**
+     * The number of threads that currently have an {@link OverrideScope} installed. While it is 0,
+     * no thread can have an override in effect and {@link #getValue()} skips the lookup of
+     * {@link #overrideScopes}. It is only updated when a thread installs its outermost scope and
+     * when it closes that scope again, not for nested scopes. A thread updates it before it reads
+     * an option in its scope, so a thread never misses its own overrides, and other threads only
+     * take the slow path while some thread has overrides.
+     */
+    private static final AtomicInteger threadsWithOverrides = new AtomicInteger();
+
+    /**
+     * Gets the override scope of the current thread, skipping the thread local lookup while no
+     * thread has an override scope installed.
+     */
+    static OverrideScope getOverrideScope() {
+        if (threadsWithOverrides.get() == 0) {
+            return null;
+        }
+        return overrideScopes.get();
+    }
+
+    /**
+     * Installs {@code scope} as the override scope of the current thread.
+     *
+     * @param outermost whether {@code scope} is the outermost scope of the current thread, in
+     *            which case installing a scope starts and installing null ends the overrides of
+     *            the current thread
+     */
+    static void setOverrideScope(OverrideScope scope, boolean outermost) {
+        if (outermost && scope != null) {
+            threadsWithOverrides.incrementAndGet();
+        }
+        overrideScopes.set(scope);
+        if (outermost && scope == null) {
+            threadsWithOverrides.decrementAndGet();
+        }
+    }
+
+    /**
+     * Determines if the current thread has {@linkplain #override(OptionValue, Object) overridden}
+     * any option values.
+     */
+    public static boolean hasOverrides() {
+        return getOverrideScope() != null;
+    }
+
     /**
      * The raw option value.
      */
@@ -138,6 +199,7 @@ public class OptionValue<T> {
     private OptionDescriptor descriptor;
 
     private long reads;
+    private long scopedReads;
     private OptionValue<?> next;
     private static OptionValue<?> head;
 
@@ -205,8 +267,11 @@ public class OptionValue<T> {
             reads++;
         }
         if (!(this instanceof StableOptionValue)) {
-            OverrideScope overrideScope = overrideScopes.get();
+            OverrideScope overrideScope = getOverrideScope();
             if (overrideScope != null) {
+                if (ShowReadsHistogram) {
+                    scopedReads++;
+                }
                 T override = overrideScope.getOverride(this);
                 if (override != null) {
                     return override;
@@ -230,7 +295,7 @@ public class OptionValue<T> {
     public Collection<T> getValues(Collection<T> c) {
         Collection<T> values = c == null ? new ArrayList<>() : c;
         if (!(this instanceof StableOptionValue)) {
-            OverrideScope overrideScope = overrideScopes.get();
+            OverrideScope overrideScope = getOverrideScope();
             if (overrideScope != null) {
                 overrideScope.getOverrides(this, (Collection<Object>) values);
             }
@@ -288,7 +353,7 @@ public class OptionValue<T> {
             }
             this.option = option;
             this.value = value;
-            overrideScopes.set(this);
+            setOverrideScope(this, true);
         }
 
         @Override
@@ -314,7 +379,7 @@ public class OptionValue<T> {
 
         @Override
         public void close() {
-            overrideScopes.set(null);
+            setOverrideScope(null, true);
         }
     }
 
@@ -335,7 +400,7 @@ public class OptionValue<T> {
                 this.overrides.put(option, value);
             }
             if (!overrides.isEmpty()) {
-                overrideScopes.set(this);
+                setOverrideScope(this, parent == null);
             }
         }
 
@@ -359,7 +424,7 @@ public class OptionValue<T> {
                 }
             }
             if (!this.overrides.isEmpty()) {
-                overrideScopes.set(this);
+                setOverrideScope(this, parent == null);
             }
         }
 
@@ -391,7 +456,7 @@ public class OptionValue<T> {
         @Override
         public void close() {
             if (!overrides.isEmpty()) {
-                overrideScopes.set(parent);
+                setOverrideScope(parent, parent == null);
             }
         }
     }
@@ -418,9 +483,9 @@ public class OptionValue<T> {
                         }
                     });
                     PrintStream out = System.out;
-                    out.println("=== OptionValue reads histogram ===");
+                    out.println("=== OptionValue reads histogram (reads, reads within an override scope, option) ===");
                     for (OptionValue<?> option : options) {
-                        out.println(option.reads + "\t" + option);
+                        out.println(option.reads + "\t" + option.scopedReads + "\t" + option);
                     }
                 }
             });
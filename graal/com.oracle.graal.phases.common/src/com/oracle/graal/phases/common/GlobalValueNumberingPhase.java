@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import static com.oracle.graal.graph.Edges.Type.*;
+
+import java.util.*;
+
+import com.oracle.graal.debug.*;
+import com.oracle.graal.graph.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.phases.*;
+
+/**
+ * Merges floating nodes that compute the same value. {@link Graph#unique(Node)} and the
+ * {@link CanonicalizerPhase} only find a duplicate when a node is created or visited, so nodes that
+ * only become equal after their inputs were merged survive, as do nodes that are not
+ * {@linkplain Node.ValueNumberable value numberable} but are still pure once they float, namely
+ * {@link PiNode}s and {@link FloatingReadNode}s.
+ * <p>
+ * Floating nodes have no position in the control flow graph: a node's guard, anchor, merge and
+ * memory inputs pin down where its value is valid. Two floating nodes of the same class with equal
+ * data and identical inputs therefore compute the same value wherever either is scheduled, and one
+ * can replace the other without consulting dominance. Floating reads only match if they read the
+ * same location after the same memory access. Nodes are numbered inputs first so that merging a
+ * node makes its usages comparable in the same pass.
+ */
+public class GlobalValueNumberingPhase extends Phase {
+
+    private static final DebugMetric METRIC_GVN_ELIMINATED = Debug.metric("GlobalValueNumberingEliminated");
+
+    private static boolean isCandidate(Node node) {
+        return node instanceof FloatingNode && (node.getNodeClass().valueNumberable() || node instanceof PiNode || node instanceof FloatingReadNode);
+    }
+
+    /**
+     * Hash key that compares nodes by class, data and inputs. The hash code is computed once, which
+     * is safe because a node's inputs are all numbered before the node itself.
+     */
+    private static final class ValueKey {
+
+        private final Node node;
+        private final int hashCode;
+
+        ValueKey(Node node) {
+            this.node = node;
+            int hash = node.getClass().hashCode() * 31 + node.getNodeClass().valueNumber(node);
+            for (Node input : node.inputs()) {
+                hash = hash * 31 + System.identityHashCode(input);
+            }
+            this.hashCode = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof ValueKey) {
+                Node other = ((ValueKey) obj).node;
+                NodeClass nodeClass = node.getNodeClass();
+                return nodeClass == other.getNodeClass() && node.valueEquals(other) && nodeClass.getEdges(Inputs).areEqualIn(node, other) && nodeClass.getEdges(Successors).areEqualIn(node, other);
+            }
+            return false;
+        }
+    }
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        Map<ValueKey, Node> values = new HashMap<>();
+        for (Node node : computeInputsFirstOrder(graph)) {
+            if (node.isAlive()) {
+                ValueKey key = new ValueKey(node);
+                Node existing = values.get(key);
+                if (existing == null) {
+                    values.put(key, node);
+                } else if (existing != node) {
+                    node.replaceAtUsages(existing);
+                    node.safeDelete();
+                    METRIC_GVN_ELIMINATED.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Orders the candidate nodes so that every candidate comes after its candidate inputs, except
+     * where a cycle through a loop phi has to be broken.
+     */
+    private static List<Node> computeInputsFirstOrder(StructuredGraph graph) {
+        List<Node> order = new ArrayList<>();
+        NodeBitMap visited = graph.createNodeBitMap();
+        NodeBitMap ordered = graph.createNodeBitMap();
+        Deque<Node> stack = new ArrayDeque<>();
+        for (Node root : graph.getNodes()) {
+            if (!isCandidate(root) || visited.isMarked(root)) {
+                continue;
+            }
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node current = stack.peek();
+                if (!visited.isMarked(current)) {
+                    visited.mark(current);
+                    for (Node input : current.inputs()) {
+                        if (isCandidate(input) && !visited.isMarked(input)) {
+                            stack.push(input);
+                        }
+                    }
+                } else {
+                    stack.pop();
+                    if (!ordered.isMarked(current)) {
+                        ordered.mark(current);
+                        order.add(current);
+                    }
+                }
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common.inlining;
+
+import static com.oracle.graal.compiler.common.GraalOptions.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.options.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.tiers.*;
+
+/**
+ * A bounded cache of the bytecode graphs parsed for inlining that is shared by all compilations
+ * (see {@link com.oracle.graal.compiler.common.GraalOptions#SharedGraphCache}). Unlike the
+ * {@linkplain HighTierContext#getGraphCache() per-compilation cache}, commonly inlined methods are
+ * parsed once instead of once per compilation that inlines them.
+ * <p>
+ * Graphs are keyed by method, graph builder suite and {@link OptimisticOptimizations} and are
+ * {@linkplain StructuredGraph#freeze() frozen}, so users must copy them as they do with graphs from
+ * the per-compilation cache. A graph is dropped when the deoptimization count of its method
+ * changes, since the graph was built from the profile the method had before the deoptimization.
+ * Graphs whose parsing recorded assumptions or that deoptimize on unresolved elements are not
+ * shared.
+ */
+public final class ParsedGraphCache {
+
+    private static final DebugMetric SharedGraphCacheHits = Debug.metric("SharedGraphCacheHits");
+    private static final DebugMetric SharedGraphCacheMisses = Debug.metric("SharedGraphCacheMisses");
+
+    private static final class Key {
+
+        final ResolvedJavaMethod method;
+        final PhaseSuite<HighTierContext> graphBuilderSuite;
+        final OptimisticOptimizations optimisticOpts;
+
+        Key(ResolvedJavaMethod method, HighTierContext context) {
+            this.method = method;
+            this.graphBuilderSuite = context.getGraphBuilderSuite();
+            this.optimisticOpts = context.getOptimisticOptimizations();
+        }
+
+        @Override
+        public int hashCode() {
+            return method.hashCode() ^ System.identityHashCode(graphBuilderSuite) ^ Objects.hashCode(optimisticOpts);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return method.equals(other.method) && graphBuilderSuite == other.graphBuilderSuite && Objects.equals(optimisticOpts, other.optimisticOpts);
+            }
+            return false;
+        }
+    }
+
+    private static final class Entry {
+
+        final StructuredGraph graph;
+        final int deoptimizationCount;
+
+        Entry(StructuredGraph graph, int deoptimizationCount) {
+            this.graph = graph;
+            this.deoptimizationCount = deoptimizationCount;
+        }
+    }
+
+    private static final Map<Key, Entry> cache = new LinkedHashMap<Key, Entry>(256, 0.75f, true) {
+
+        private static final long serialVersionUID = -5009212960497958467L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > SharedGraphCacheSize.getValue()) {
+                cachedNodes -= eldest.getValue().graph.getNodeCount();
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * The number of nodes in all cached graphs. Guarded by {@link #cache}.
+     */
+    private static long cachedNodes;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong invalidations = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private ParsedGraphCache() {
+    }
+
+    /**
+     * Determines if graphs should be shared for the current compilation. Compilations that
+     * override options are excluded as the options may affect how graphs are built.
+     */
+    public static boolean isEnabled(HighTierContext context) {
+        return SharedGraphCache.getValue() && context.getAssumptions() != null && context.getGraphBuilderSuite() != null && !OptionValue.hasOverrides();
+    }
+
+    /**
+     * Gets the total number of deoptimizations recorded in the profile of {@code method}.
+     */
+    public static int getDeoptimizationCount(ResolvedJavaMethod method) {
+        ProfilingInfo profilingInfo = method.getProfilingInfo();
+        int count = 0;
+        for (DeoptimizationReason reason : DeoptimizationReason.values()) {
+            count += profilingInfo.getDeoptimizationCount(reason);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the cached graph for {@code method} or null if there is no valid graph for it.
+     */
+    public static StructuredGraph get(ResolvedJavaMethod method, HighTierContext context) {
+        Key key = new Key(method, context);
+        // reading the profile may be slow, so it is done before taking the lock
+        int deoptimizationCount = getDeoptimizationCount(method);
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null) {
+                if (entry.deoptimizationCount == deoptimizationCount) {
+                    hits.incrementAndGet();
+                    SharedGraphCacheHits.increment();
+                    return entry.graph;
+                }
+                cache.remove(key);
+                cachedNodes -= entry.graph.getNodeCount();
+                invalidations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        SharedGraphCacheMisses.increment();
+        return null;
+    }
+
+    /**
+     * Publishes a graph that was parsed without recording any assumptions.
+     *
+     * @param deoptimizationCount the {@linkplain #getDeoptimizationCount deoptimization count} of
+     *            the graph's method before it was parsed
+     */
+    public static void put(StructuredGraph graph, HighTierContext context, int deoptimizationCount) {
+        for (DeoptimizeNode deopt : graph.getNodes().filter(DeoptimizeNode.class)) {
+            if (deopt.reason() == DeoptimizationReason.Unresolved) {
+                // the graph would deoptimize until it is parsed again
+                return;
+            }
+        }
+        graph.freeze();
+        Key key = new Key(graph.method(), context);
+        synchronized (cache) {
+            Entry old = cache.put(key, new Entry(graph, deoptimizationCount));
+            if (old != null) {
+                cachedNodes -= old.graph.getNodeCount();
+            }
+            cachedNodes += graph.getNodeCount();
+        }
+    }
+
+    /**
+     * Removes all graphs from the cache.
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+            cachedNodes = 0;
+        }
+    }
+
+    public static void printStatistics() {
+        long h = hits.get();
+        long total = h + misses.get();
+        int size;
+        long nodes;
+        synchronized (cache) {
+            size = cache.size();
+            nodes = cachedNodes;
+        }
+        TTY.println("Shared graph cache: %d lookups, %.1f%% hits, %d invalidations, %d evictions, %d graphs with %d nodes cached", total, total == 0 ? 0d : h * 100d / total, invalidations.get(),
+                        evictions.get(), size, nodes);
+    }
+}
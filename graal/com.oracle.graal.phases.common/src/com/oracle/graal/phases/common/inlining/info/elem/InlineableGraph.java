@@ -27,6 +27,8 @@ import static com.oracle.graal.phases.common.DeadCodeEliminationPhase.Optionalit
 
 import java.util.*;
 
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.code.Assumptions.Assumption;
 import com.oracle.graal.api.meta.*;
 import com.oracle.graal.compiler.common.type.*;
 import com.oracle.graal.debug.*;
@@ -79,6 +81,15 @@ public class InlineableGraph implements Inlineable {
         if (result != null) {
             return result;
         }
+        if (ParsedGraphCache.isEnabled(context)) {
+            result = ParsedGraphCache.get(method, context);
+            if (result != null) {
+                if (context.getGraphCache() != null) {
+                    context.getGraphCache().put(method, result);
+                }
+                return result;
+            }
+        }
         return parseBytecodes(method, context, canonicalizer);
     }
 
@@ -242,17 +253,35 @@ public class InlineableGraph implements Inlineable {
     private static StructuredGraph parseBytecodes(ResolvedJavaMethod method, HighTierContext context, CanonicalizerPhase canonicalizer) {
         StructuredGraph newGraph = new StructuredGraph(method);
         try (Debug.Scope s = Debug.scope("InlineGraph", newGraph)) {
-            if (context.getGraphBuilderSuite() != null) {
-                context.getGraphBuilderSuite().apply(newGraph, context);
+            boolean shared = ParsedGraphCache.isEnabled(context);
+            int deoptimizationCount = 0;
+            HighTierContext parseContext = context;
+            if (shared) {
+                // a graph can only be shared if building it did not depend on any assumptions
+                deoptimizationCount = ParsedGraphCache.getDeoptimizationCount(method);
+                parseContext = context.replaceAssumptions(new Assumptions(context.getAssumptions().useOptimisticAssumptions()));
+            }
+
+            if (parseContext.getGraphBuilderSuite() != null) {
+                parseContext.getGraphBuilderSuite().apply(newGraph, parseContext);
             }
             assert newGraph.start().next() != null : "graph needs to be populated by the GraphBuilderSuite";
 
             new DeadCodeEliminationPhase(Optional).apply(newGraph);
 
             if (OptCanonicalizer.getValue()) {
-                canonicalizer.apply(newGraph, context);
+                canonicalizer.apply(newGraph, parseContext);
             }
 
+            if (shared) {
+                if (parseContext.getAssumptions().isEmpty()) {
+                    ParsedGraphCache.put(newGraph, context, deoptimizationCount);
+                } else {
+                    for (Assumption assumption : parseContext.getAssumptions()) {
+                        context.getAssumptions().record(assumption);
+                    }
+                }
+            }
             if (context.getGraphCache() != null) {
                 context.getGraphCache().put(newGraph.method(), newGraph);
             }
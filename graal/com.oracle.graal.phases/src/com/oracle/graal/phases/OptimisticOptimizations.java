@@ -40,7 +40,8 @@ public final class OptimisticOptimizations {
         UseTypeCheckHints,
         UseExceptionProbabilityForOperations,
         UseExceptionProbability,
-        UseLoopLimitChecks
+        UseLoopLimitChecks,
+        UseLoopPredication
     }
 
     private final Set<Optimization> enabledOpts;
@@ -54,6 +55,7 @@ public final class OptimisticOptimizations {
         addOptimization(info, DeoptimizationReason.OptimizedTypeCheckViolated, Optimization.UseTypeCheckHints);
         addOptimization(info, DeoptimizationReason.NotCompiledExceptionHandler, Optimization.UseExceptionProbability);
         addOptimization(info, DeoptimizationReason.LoopLimitCheck, Optimization.UseLoopLimitChecks);
+        addOptimization(info, DeoptimizationReason.LoopPredicate, Optimization.UseLoopPredication);
     }
 
     private void addOptimization(ProfilingInfo info, DeoptimizationReason deoptReason, Optimization optimization) {
@@ -120,6 +122,10 @@ public final class OptimisticOptimizations {
         return GraalOptions.UseLoopLimitChecks.getValue() && enabledOpts.contains(Optimization.UseLoopLimitChecks);
     }
 
+    public boolean useLoopPredication() {
+        return GraalOptions.LoopPredication.getValue() && enabledOpts.contains(Optimization.UseLoopPredication);
+    }
+
     public boolean lessOptimisticThan(OptimisticOptimizations other) {
         for (Optimization opt : Optimization.values()) {
             if (!enabledOpts.contains(opt) && other.enabledOpts.contains(opt)) {
@@ -133,6 +139,19 @@ public final class OptimisticOptimizations {
         return profilingInfo.getDeoptimizationCount(reason) < GraalOptions.DeoptsToDisableOptimisticOptimization.getValue();
     }
 
+    @Override
+    public int hashCode() {
+        return enabledOpts.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof OptimisticOptimizations) {
+            return enabledOpts.equals(((OptimisticOptimizations) obj).enabledOpts);
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         return enabledOpts.toString();
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases;
+
+import static com.oracle.graal.compiler.common.GraalOptions.*;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.oracle.graal.debug.*;
+import com.oracle.graal.debug.internal.*;
+import com.oracle.graal.graph.*;
+
+/**
+ * Profiles the time and memory spent in the phases and LIR stages of all compilations if
+ * {@link com.oracle.graal.compiler.common.GraalOptions#ProfileCompilerPhases} is enabled. Unlike
+ * the {@linkplain Debug#timer(CharSequence) debug timers}, the profiler does not depend on debug
+ * scope filters and reports the distribution of the time spent per invocation.
+ *
+ * Nested phases such as {@link PhaseSuite}s are included in the time of the enclosing phase. The
+ * time and memory that a phase spent outside of its nested phases is reported as its self time and
+ * self memory.
+ */
+public final class PhaseProfiler {
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private static final ConcurrentHashMap<String, PhaseStatistics> statistics = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Sample> currentSample = new ThreadLocal<>();
+
+    private PhaseProfiler() {
+    }
+
+    /**
+     * Histogram of durations with 8 linear sub-buckets per power of 2. Percentiles are reported as
+     * the upper bound of the bucket they fall into, which is at most 12.5% too high.
+     */
+    static final class Histogram {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final long[] counts = new long[64 * SUB_BUCKETS];
+        private long total;
+
+        static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) Math.max(value, 0);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long subBucket = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        void record(long value) {
+            counts[bucket(value)]++;
+            total++;
+        }
+
+        long getPercentile(double percentile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] != 0) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(counts.length - 1);
+        }
+    }
+
+    /**
+     * The aggregated samples of one phase or LIR stage.
+     */
+    static final class PhaseStatistics {
+
+        final String name;
+        long count;
+        long wallNanos;
+        long selfWallNanos;
+        long cpuNanos;
+        long allocatedBytes;
+        long selfAllocatedBytes;
+        long nodesBefore;
+        long nodesAfter;
+        long graphCount;
+        final Histogram wallTimes = new Histogram();
+
+        PhaseStatistics(String name) {
+            this.name = name;
+        }
+
+        synchronized void add(Sample sample, long wall, long cpu, long allocated, int nodesAfterPhase) {
+            count++;
+            wallNanos += wall;
+            selfWallNanos += wall - sample.nestedWallNanos;
+            cpuNanos += cpu;
+            allocatedBytes += allocated;
+            selfAllocatedBytes += allocated - sample.nestedAllocatedBytes;
+            if (sample.nodesBefore >= 0) {
+                nodesBefore += sample.nodesBefore;
+                nodesAfter += nodesAfterPhase;
+                graphCount++;
+            }
+            wallTimes.record(wall);
+        }
+    }
+
+    /**
+     * A single execution of a phase. Must be closed on the thread that {@linkplain #start started}
+     * it.
+     */
+    public static final class Sample implements AutoCloseable {
+
+        private final String name;
+        private final Sample parent;
+        private final Graph graph;
+        private final int nodesBefore;
+        private final long startWall;
+        private final long startCpu;
+        private final long startAllocated;
+        private long nestedWallNanos;
+        private long nestedAllocatedBytes;
+
+        private Sample(String name, Graph graph) {
+            this.name = name;
+            this.parent = currentSample.get();
+            this.graph = graph;
+            this.nodesBefore = graph == null ? -1 : graph.getNodeCount();
+            currentSample.set(this);
+            this.startAllocated = MemUseTrackerImpl.getCurrentThreadAllocatedBytes();
+            this.startCpu = threadMXBean.getCurrentThreadCpuTime();
+            this.startWall = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            long wall = System.nanoTime() - startWall;
+            long cpu = threadMXBean.getCurrentThreadCpuTime() - startCpu;
+            long allocated = MemUseTrackerImpl.getCurrentThreadAllocatedBytes() - startAllocated;
+            currentSample.set(parent);
+            if (parent != null) {
+                parent.nestedWallNanos += wall;
+                parent.nestedAllocatedBytes += allocated;
+            }
+            PhaseStatistics stats = statistics.get(name);
+            if (stats == null) {
+                stats = new PhaseStatistics(name);
+                PhaseStatistics existing = statistics.putIfAbsent(name, stats);
+                if (existing != null) {
+                    stats = existing;
+                }
+            }
+            stats.add(this, wall, cpu, allocated, graph == null ? -1 : graph.getNodeCount());
+        }
+    }
+
+    /**
+     * Starts profiling a phase or LIR stage if {@link com.oracle.graal.compiler.common.GraalOptions#ProfileCompilerPhases} is enabled.
+     *
+     * @param graph the graph the phase operates on or null if it does not operate on a graph
+     * @return the sample to close when the phase is done or null if profiling is disabled
+     */
+    public static Sample start(CharSequence name, Graph graph) {
+        if (!ProfileCompilerPhases.getValue()) {
+            return null;
+        }
+        return new Sample(name.toString(), graph);
+    }
+
+    /**
+     * Prints the collected statistics sorted by the total self time of each phase.
+     */
+    public static void printReport() {
+        List<PhaseStatistics> list = new ArrayList<>(statistics.values());
+        long totalSelfWall = 0;
+        for (PhaseStatistics stats : list) {
+            totalSelfWall += stats.selfWallNanos;
+        }
+        Collections.sort(list, (a, b) -> Long.compare(b.selfWallNanos, a.selfWallNanos));
+        TTY.println("=== Compiler phase profile (times in microseconds, memory in KB) ===");
+        TTY.println("%-40s %9s %10s %6s %10s %10s %10s %8s %8s %8s %12s %12s %10s %10s", "Phase", "Count", "Self", "Self%", "Total", "CPU", "Mean", "p50", "p90", "p99", "Memory", "SelfMemory",
+                        "NodesIn", "NodesOut");
+        for (PhaseStatistics stats : list) {
+            synchronized (stats) {
+                double selfPercent = totalSelfWall == 0 ? 0 : stats.selfWallNanos * 100.0 / totalSelfWall;
+                String nodesIn = stats.graphCount == 0 ? "-" : Long.toString(stats.nodesBefore / stats.graphCount);
+                String nodesOut = stats.graphCount == 0 ? "-" : Long.toString(stats.nodesAfter / stats.graphCount);
+                TTY.println("%-40s %9d %10d %6.2f %10d %10d %10d %8d %8d %8d %12d %12d %10s %10s", stats.name, stats.count, stats.selfWallNanos / 1000, selfPercent, stats.wallNanos / 1000,
+                                stats.cpuNanos / 1000, stats.wallNanos / stats.count / 1000, stats.wallTimes.getPercentile(50) / 1000, stats.wallTimes.getPercentile(90) / 1000,
+                                stats.wallTimes.getPercentile(99) / 1000, stats.allocatedBytes / 1024, stats.selfAllocatedBytes / 1024, nodesIn, nodesOut);
+            }
+        }
+    }
+
+    /**
+     * Discards all collected statistics.
+     */
+    public static void reset() {
+        statistics.clear();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.printer;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Writes serialized graphs to a channel on a background thread. All writers share a single thread
+ * which preserves the order of the graphs written to each channel. The number of graphs waiting to
+ * be written to a channel is bounded. When the bound is reached, submitting a graph either waits
+ * for the writer or drops the graph.
+ */
+final class AsyncGraphWriter {
+
+    private static ExecutorService writerThread;
+
+    private static synchronized ExecutorService getWriterThread() {
+        if (writerThread == null) {
+            writerThread = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "BinaryGraphWriter");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return writerThread;
+    }
+
+    private final WritableByteChannel channel;
+    private final Semaphore queueSlots;
+    private final boolean dropWhenFull;
+    private final ExecutorService executor;
+    private volatile IOException failure;
+    private final AtomicLong dropped = new AtomicLong();
+
+    AsyncGraphWriter(WritableByteChannel channel, int queueSize, boolean dropWhenFull) {
+        this.channel = channel;
+        this.queueSlots = new Semaphore(Math.max(queueSize, 1));
+        this.dropWhenFull = dropWhenFull;
+        this.executor = getWriterThread();
+    }
+
+    /**
+     * Queues the bytes between 0 and the position of {@code buffer} for writing. The buffer is not
+     * modified and may be reused once this method returns.
+     *
+     * @param mayDrop specifies if the bytes may be dropped if the queue is full and this writer
+     *            drops instead of waiting
+     * @return false if the bytes were dropped
+     * @throws IOException if a previous write failed
+     */
+    boolean submit(ByteBuffer buffer, boolean mayDrop) throws IOException {
+        checkFailure();
+        if (buffer.position() == 0) {
+            return true;
+        }
+        if (mayDrop && dropWhenFull) {
+            if (!queueSlots.tryAcquire()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } else {
+            queueSlots.acquireUninterruptibly();
+        }
+        byte[] bytes = new byte[buffer.position()];
+        ByteBuffer source = buffer.duplicate();
+        source.flip();
+        source.get(bytes);
+        executor.execute(() -> {
+            try {
+                if (failure == null) {
+                    ByteBuffer chunk = ByteBuffer.wrap(bytes);
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk);
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                queueSlots.release();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Waits until all queued graphs are written and closes the channel.
+     */
+    void close() throws IOException {
+        Future<?> closed = executor.submit(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        });
+        try {
+            closed.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException(e);
+        }
+        checkFailure();
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) {
+            throw new IOException("writing graph dump failed", e);
+        }
+    }
+}
@@ -104,23 +104,67 @@ public class BinaryGraphPrinter implements GraphPrinter {
             put(obj, id);
             return id;
         }
+
+        /**
+         * Forgets all entries so that objects are sent again with {@link #POOL_NEW}.
+         */
+        public void reset() {
+            clear();
+            availableIds.clear();
+            nextId = 0;
+        }
     }
 
     private final ConstantPool constantPool;
-    private final ByteBuffer buffer;
+    private ByteBuffer buffer;
     private final WritableByteChannel channel;
 
+    /**
+     * Writes the serialized graphs on a background thread if not null.
+     */
+    private final AsyncGraphWriter asyncWriter;
+
     public BinaryGraphPrinter(WritableByteChannel channel) {
         constantPool = new ConstantPool();
         buffer = ByteBuffer.allocateDirect(256 * 1024);
         this.channel = channel;
+        this.asyncWriter = null;
+    }
+
+    /**
+     * Creates a printer that serializes graphs into memory and hands them to a background thread
+     * for writing to {@code channel}. A graph is always handed over in one piece. If the writer
+     * drops a graph, the constant pool is reset because the dropped graph may have defined pool
+     * entries.
+     */
+    public BinaryGraphPrinter(WritableByteChannel channel, int queueSize, boolean dropWhenFull) {
+        constantPool = new ConstantPool();
+        buffer = ByteBuffer.allocate(256 * 1024);
+        this.channel = channel;
+        this.asyncWriter = new AsyncGraphWriter(channel, queueSize, dropWhenFull);
     }
 
     public void print(Graph graph, String title, SchedulePhase predefinedSchedule) throws IOException {
+        int graphStart = buffer.position();
         writeByte(BEGIN_GRAPH);
         writePoolObject(title);
         writeGraph(graph, predefinedSchedule);
-        flush();
+        if (asyncWriter == null) {
+            flush();
+        } else if (asyncWriter.submit(buffer, true)) {
+            buffer.clear();
+        } else {
+            // Keep pending group records for the next graph
+            buffer.position(graphStart);
+            constantPool.reset();
+        }
+    }
+
+    /**
+     * Gets the number of graphs that were dropped because the background writer was busy.
+     */
+    public long getDroppedGraphs() {
+        return asyncWriter == null ? 0 : asyncWriter.getDropped();
     }
 
     private void writeGraph(Graph graph) throws IOException {
@@ -153,6 +197,16 @@ public class BinaryGraphPrinter implements GraphPrinter {
     }
 
     private void ensureAvailable(int i) throws IOException {
+        if (asyncWriter != null) {
+            if (buffer.remaining() < i) {
+                // Graphs are handed to the writer in one piece so grow the buffer
+                ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + i));
+                buffer.flip();
+                newBuffer.put(buffer);
+                buffer = newBuffer;
+            }
+            return;
+        }
         assert buffer.capacity() >= i : "Can not make " + i + " bytes available, buffer is too small";
         while (buffer.remaining() < i) {
             flush();
@@ -502,8 +556,24 @@ public class BinaryGraphPrinter implements GraphPrinter {
     @Override
     public void close() {
         try {
-            flush();
-            channel.close();
+            if (asyncWriter == null) {
+                try {
+                    flush();
+                } finally {
+                    channel.close();
+                }
+            } else {
+                try {
+                    asyncWriter.submit(buffer, false);
+                    buffer.clear();
+                } finally {
+                    if (asyncWriter.getDropped() != 0) {
+                        TTY.println("Dropped %d graph dumps because the graph writer queue was full", asyncWriter.getDropped());
+                    }
+                    // Also close the channel if an earlier write failed and submit threw.
+                    asyncWriter.close();
+                }
+            }
         } catch (IOException ex) {
             throw new Error(ex);
         }
@@ -31,6 +31,7 @@ import java.nio.channels.*;
 import java.nio.file.*;
 import java.text.*;
 import java.util.*;
+import java.util.zip.*;
 
 import com.oracle.graal.api.meta.*;
 import com.oracle.graal.debug.*;
@@ -91,7 +92,7 @@ public class GraphPrinterDumpHandler implements DebugDumpHandler {
     private void initializeFilePrinter() {
         String ext;
         if (PrintBinaryGraphs.getValue()) {
-            ext = ".bgv";
+            ext = PrintBinaryGraphsCompressed.getValue() ? ".bgv.gz" : ".bgv";
         } else {
             ext = ".gv.xml";
         }
@@ -113,7 +114,11 @@ public class GraphPrinterDumpHandler implements DebugDumpHandler {
         }
         try {
             if (PrintBinaryGraphs.getValue()) {
-                printer = new BinaryGraphPrinter(FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW));
+                WritableByteChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+                if (PrintBinaryGraphsCompressed.getValue()) {
+                    channel = Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+                }
+                printer = createBinaryGraphPrinter(channel);
             } else {
                 printer = new IdealGraphPrinter(new FileOutputStream(file), true);
             }
@@ -125,12 +130,19 @@ public class GraphPrinterDumpHandler implements DebugDumpHandler {
         }
     }
 
+    private static BinaryGraphPrinter createBinaryGraphPrinter(WritableByteChannel channel) {
+        if (PrintBinaryGraphsAsync.getValue()) {
+            return new BinaryGraphPrinter(channel, PrintBinaryGraphsQueueSize.getValue(), PrintBinaryGraphsDropWhenFull.getValue());
+        }
+        return new BinaryGraphPrinter(channel);
+    }
+
     private void initializeNetworkPrinter() {
         String host = PrintIdealGraphAddress.getValue();
         int port = PrintBinaryGraphs.getValue() ? PrintBinaryGraphPort.getValue() : PrintIdealGraphPort.getValue();
         try {
             if (PrintBinaryGraphs.getValue()) {
-                printer = new BinaryGraphPrinter(SocketChannel.open(new InetSocketAddress(host, port)));
+                printer = createBinaryGraphPrinter(SocketChannel.open(new InetSocketAddress(host, port)));
             } else {
                 IdealGraphPrinter xmlPrinter = new IdealGraphPrinter(new Socket(host, port).getOutputStream(), true);
                 printer = xmlPrinter;
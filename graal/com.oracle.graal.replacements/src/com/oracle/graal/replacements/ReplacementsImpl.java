@@ -199,6 +199,12 @@ public class ReplacementsImpl implements Replacements {
 
     private final Map<Class<? extends SnippetTemplateCache>, SnippetTemplateCache> snippetTemplateCache;
 
+    /**
+     * The snippets registered with {@link #registerSnippet}. Their graphs can be
+     * {@linkplain #prepareGraphs() prepared} before they are first needed.
+     */
+    private final Set<ResolvedJavaMethod> registeredSnippets = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
     public ReplacementsImpl(Providers providers, SnippetReflectionProvider snippetReflection, Assumptions assumptions, TargetDescription target) {
         this.providers = providers.copyWith(this);
         this.classReplacements = new HashMap<>();
@@ -258,7 +264,37 @@ public class ReplacementsImpl implements Replacements {
 
     @Override
     public void registerSnippet(ResolvedJavaMethod method) {
-        // No initialization needed as snippet graphs are created on demand in getSnippet
+        // Snippet graphs are created on demand in getSnippet or ahead of use by prepareGraphs
+        registeredSnippets.add(method);
+    }
+
+    /**
+     * Creates the graphs of all registered snippets and method substitutions that have not been
+     * created yet. Normally these graphs are created when a compilation first needs them, which
+     * makes the first compilations after startup considerably slower.
+     *
+     * @return the number of graphs created
+     */
+    public int prepareGraphs() {
+        if (!UseSnippetGraphCache) {
+            return 0;
+        }
+        int prepared = 0;
+        for (ResolvedJavaMethod method : registeredSnippets) {
+            if (!graphs.containsKey(method)) {
+                getSnippet(method);
+                prepared++;
+            }
+        }
+        for (ResolvedJavaMethod method : getAllReplacements()) {
+            ClassReplacements cr = getClassReplacements(method.getDeclaringClass().getName());
+            ResolvedJavaMethod substitute = cr == null ? null : cr.methodSubstitutions.get(method);
+            if (substitute != null && !graphs.containsKey(substitute)) {
+                getMethodSubstitution(method);
+                prepared++;
+            }
+        }
+        return prepared;
     }
 
     @Override
@@ -24,7 +24,6 @@ package com.oracle.graal.truffle.hotspot;
 
 import static com.oracle.graal.api.code.CodeUtil.*;
 import static com.oracle.graal.compiler.GraalCompiler.*;
-import static com.oracle.graal.graph.util.CollectionsAccess.*;
 import static com.oracle.graal.hotspot.meta.HotSpotSuitesProvider.*;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.*;
 
@@ -69,8 +68,9 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
 
     private TruffleCompilerImpl truffleCompiler;
     private Replacements truffleReplacements;
-    private Map<OptimizedCallTarget, Future<?>> compilations = newIdentityMap();
+    private final Map<OptimizedCallTarget, TruffleCompilationQueue.Task> compilations = Collections.synchronizedMap(new WeakHashMap<>());
     private final ThreadPoolExecutor compileQueue;
+    private final TruffleCompilationQueue compilationQueue;
 
     private final Map<RootCallTarget, Void> callTargets = Collections.synchronizedMap(new WeakHashMap<RootCallTarget, Void>());
 
@@ -93,7 +93,9 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
                 }
             }
         });
-        compileQueue = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), factory);
+        int threads = Math.max(TruffleCompilerThreads.getValue(), 1);
+        compilationQueue = new TruffleCompilationQueue((target, reason) -> getCompilationNotify().notifyCompilationDequeued(target, this, reason));
+        compileQueue = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, compilationQueue, factory);
 
     }
 
@@ -122,6 +124,7 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
         }
         OptimizedCallTarget target = new OptimizedCallTarget(source, rootNode, this, compilationPolicy, new HotSpotSpeculationLog());
         callTargets.put(target, null);
+        getCompilationNotify().notifyCallTargetCreated(target);
 
         return target;
     }
@@ -205,19 +208,12 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
         if (truffleCompiler == null) {
             truffleCompiler = new TruffleCompilerImpl();
         }
-        Runnable r = new Runnable() {
-            @Override
-            public void run() {
-                try (Scope s = Debug.scope("Truffle", new TruffleDebugJavaMethod(optimizedCallTarget))) {
-                    truffleCompiler.compileMethod(optimizedCallTarget);
-                    optimizedCallTarget.notifyCompilationFinished();
-                } catch (Throwable e) {
-                    optimizedCallTarget.notifyCompilationFailed(e);
-                }
-            }
-        };
-        Future<?> future = compileQueue.submit(r);
-        this.compilations.put(optimizedCallTarget, future);
+        TruffleCompilationQueue.Task future = new TruffleCompilationQueue.Task(optimizedCallTarget, this::doCompile);
+        TruffleCompilationQueue.Task previous = this.compilations.put(optimizedCallTarget, future);
+        if (previous != null) {
+            compilationQueue.supersede(previous);
+        }
+        compileQueue.execute(future);
         getCompilationNotify().notifyCompilationQueued(optimizedCallTarget);
 
         if (!mayBeAsynchronous) {
@@ -229,17 +225,29 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
                 } else {
                     // silently ignored
                 }
+            } catch (CancellationException e) {
+                // silently ignored
             } catch (InterruptedException e) {
                 // silently ignored
             }
         }
     }
 
+    private void doCompile(OptimizedCallTarget optimizedCallTarget) {
+        try (Scope s = Debug.scope("Truffle", new TruffleDebugJavaMethod(optimizedCallTarget))) {
+            truffleCompiler.compileMethod(optimizedCallTarget);
+            optimizedCallTarget.notifyCompilationFinished();
+        } catch (Throwable e) {
+            optimizedCallTarget.notifyCompilationFailed(e);
+        }
+    }
+
     @Override
     public boolean cancelInstalledTask(OptimizedCallTarget optimizedCallTarget, Object source, CharSequence reason) {
-        Future<?> codeTask = this.compilations.get(optimizedCallTarget);
+        TruffleCompilationQueue.Task codeTask = this.compilations.get(optimizedCallTarget);
         if (codeTask != null && isCompiling(optimizedCallTarget)) {
             this.compilations.remove(optimizedCallTarget);
+            compileQueue.remove(codeTask);
             boolean result = codeTask.cancel(true);
             getCompilationNotify().notifyCompilationDequeued(optimizedCallTarget, source, reason);
             return result;
@@ -261,7 +269,9 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
 
     @Override
     public Collection<OptimizedCallTarget> getQueuedCallTargets() {
-        return compilations.keySet().stream().filter(e -> !compilations.get(e).isDone()).collect(Collectors.toList());
+        synchronized (compilations) {
+            return compilations.entrySet().stream().filter(e -> !e.getValue().isDone()).map(e -> e.getKey()).collect(Collectors.toList());
+        }
     }
 
     @Override
@@ -283,6 +293,11 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
         getCompilationNotify().notifyCompilationInvalidated(optimizedCallTarget, source, reason);
     }
 
+    @Override
+    protected void invalidateInstalledCode(InstalledCode[] installedCodes) {
+        HotSpotGraalRuntime.runtime().getCompilerToVM().invalidateInstalledCodes(installedCodes);
+    }
+
     @Override
     public void reinstallStubs() {
         installOptimizedCallTargetCallMethod();
@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.hotspot;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.*;
+
+import java.lang.ref.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+import com.oracle.graal.truffle.*;
+
+/**
+ * Blocking queue of Truffle compilation tasks that hands out the hottest queued call target first.
+ * The priority of a task is evaluated when a compiler thread asks for work, so call targets that
+ * got hotter while waiting move up. Tasks whose call target was collected, whose compilation was
+ * cancelled or that were superseded by a newer request for the same call target are dropped without
+ * being handed out.
+ */
+final class TruffleCompilationQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private static final double AGING_NANOS = Math.max(TruffleTimeThreshold.getValue(), 1) * 1_000_000.0;
+
+    /**
+     * A compilation request for a single call target. The task only weakly references its target
+     * so that a queued compilation does not keep an otherwise unreachable call target alive.
+     */
+    static final class Task extends FutureTask<Void> {
+
+        private static final AtomicLong sequence = new AtomicLong();
+
+        private final WeakReference<OptimizedCallTarget> target;
+        private final long id;
+        private final long queuedTime;
+        private volatile boolean superseded;
+
+        Task(OptimizedCallTarget target, Consumer<OptimizedCallTarget> compiler) {
+            this(new WeakReference<>(target), compiler);
+        }
+
+        private Task(WeakReference<OptimizedCallTarget> target, Consumer<OptimizedCallTarget> compiler) {
+            super(() -> {
+                OptimizedCallTarget callTarget = target.get();
+                if (callTarget != null) {
+                    compiler.accept(callTarget);
+                }
+                return null;
+            });
+            this.target = target;
+            this.id = sequence.incrementAndGet();
+            this.queuedTime = System.nanoTime();
+        }
+
+        OptimizedCallTarget getTarget() {
+            return target.get();
+        }
+
+        /**
+         * Marks this task as replaced by a newer compilation request for the same call target.
+         */
+        void supersede() {
+            superseded = true;
+        }
+
+        boolean isStale() {
+            return isCancelled() || superseded || target.get() == null;
+        }
+
+        /**
+         * Computes the current priority of this task. The interpreter call and loop count of the
+         * {@link CompilationProfile} keeps growing while the target waits in the queue and is
+         * scaled up by the time already spent in the queue to prevent starvation of colder targets.
+         */
+        double priority(long now) {
+            OptimizedCallTarget callTarget = target.get();
+            if (callTarget == null) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            CompilationProfile profile = callTarget.getCompilationProfile();
+            double waited = (now - queuedTime) / AGING_NANOS;
+            return profile.getInterpreterCallAndLoopCount() * (1.0 + waited);
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final ArrayList<Runnable> tasks = new ArrayList<>();
+    private final ArrayList<Task> dropped = new ArrayList<>();
+    private final BiConsumer<OptimizedCallTarget, CharSequence> droppedListener;
+
+    /**
+     * @param droppedListener notified outside the lock for every stale task that is dropped from
+     *            the queue and whose call target is still alive
+     */
+    TruffleCompilationQueue(BiConsumer<OptimizedCallTarget, CharSequence> droppedListener) {
+        this.droppedListener = droppedListener;
+    }
+
+    /**
+     * Removes and returns the runnable with the highest priority. Must be called with the lock
+     * held.
+     */
+    private Runnable dequeue() {
+        int best = selectBest();
+        return best < 0 ? null : tasks.remove(best);
+    }
+
+    /**
+     * Returns the index of the runnable with the highest priority or -1 if there is none. Stale
+     * tasks encountered on the way are removed, cancelled and recorded for {@link #fireDropped()}.
+     * Must be called with the lock held.
+     * <p>
+     * This is a linear scan rather than a heap because the priority of a task changes while it
+     * waits: its call target keeps being called in the interpreter and its age grows. A heap
+     * ordered by the priorities at insertion time would hand out the wrong task. The queue only
+     * ever holds the call targets that crossed the compilation threshold, so the scan is cheap
+     * compared to the compilation it selects.
+     */
+    private int selectBest() {
+        long now = System.nanoTime();
+        int best = -1;
+        double bestPriority = 0;
+        long bestId = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Runnable r = tasks.get(i);
+            if (!(r instanceof Task)) {
+                // Foreign runnables are served in FIFO order before any compilation.
+                return i;
+            }
+            Task task = (Task) r;
+            if (task.isStale()) {
+                tasks.remove(i--);
+                task.cancel(false);
+                dropped.add(task);
+                continue;
+            }
+            double priority = task.priority(now);
+            if (best < 0 || priority > bestPriority || (priority == bestPriority && task.id < bestId)) {
+                best = i;
+                bestPriority = priority;
+                bestId = task.id;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Notifies the {@link #droppedListener} about the tasks dropped since the last call. Must be
+     * called without the lock held.
+     */
+    private void fireDropped() {
+        List<Task> droppedTasks;
+        lock.lock();
+        try {
+            if (dropped.isEmpty()) {
+                return;
+            }
+            droppedTasks = new ArrayList<>(dropped);
+            dropped.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (Task task : droppedTasks) {
+            OptimizedCallTarget callTarget = task.getTarget();
+            if (callTarget != null) {
+                droppedListener.accept(callTarget, "Stale compilation request dropped from the queue");
+            }
+        }
+    }
+
+    /**
+     * Marks {@code task} as replaced by a newer compilation request for the same call target. A
+     * task that is still queued is removed right away and the {@link #droppedListener} is notified
+     * before the replacing request is queued, rather than when a compiler thread next looks for
+     * work. A task that was already handed out is left to finish.
+     */
+    void supersede(Task task) {
+        task.supersede();
+        boolean removed;
+        lock.lock();
+        try {
+            removed = tasks.remove(task);
+        } finally {
+            lock.unlock();
+        }
+        if (removed) {
+            task.cancel(false);
+            OptimizedCallTarget callTarget = task.getTarget();
+            if (callTarget != null) {
+                droppedListener.accept(callTarget, "Superseded by a newer compilation request");
+            }
+        }
+    }
+
+    public boolean offer(Runnable e) {
+        Objects.requireNonNull(e);
+        lock.lock();
+        try {
+            tasks.add(e);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(Runnable e) {
+        offer(e);
+    }
+
+    public boolean offer(Runnable e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return dequeue();
+        } finally {
+            lock.unlock();
+            fireDropped();
+        }
+    }
+
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            Runnable result;
+            while ((result = dequeue()) == null) {
+                notEmpty.await();
+            }
+            return result;
+        } finally {
+            lock.unlock();
+            fireDropped();
+        }
+    }
+
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            Runnable result;
+            while ((result = dequeue()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+            fireDropped();
+        }
+    }
+
+    public Runnable peek() {
+        lock.lock();
+        try {
+            int best = selectBest();
+            return best < 0 ? null : tasks.get(best);
+        } finally {
+            lock.unlock();
+            fireDropped();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            return tasks.remove(o);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return tasks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        lock.lock();
+        try {
+            int n = 0;
+            Runnable r;
+            while (n < maxElements && (r = dequeue()) != null) {
+                c.add(r);
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+            fireDropped();
+        }
+    }
+
+    /**
+     * Returns a snapshot iterator over the queued runnables in no particular order.
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        Object[] snapshot;
+        lock.lock();
+        try {
+            snapshot = tasks.toArray();
+        } finally {
+            lock.unlock();
+        }
+        return new Iterator<Runnable>() {
+            private int index;
+            private Runnable last;
+
+            public boolean hasNext() {
+                return index < snapshot.length;
+            }
+
+            public Runnable next() {
+                if (index >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                last = (Runnable) snapshot[index++];
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                TruffleCompilationQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.*;
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.options.*;
+import com.oracle.graal.truffle.*;
+import com.oracle.truffle.api.nodes.*;
+
+public class CompilationPolicyTest {
+
+    @Test
+    public void testBackoff() {
+        CounterBasedCompilationPolicy policy = new CounterBasedCompilationPolicy();
+        CompilationProfile profile = new CompilationProfile();
+        while (profile.getInterpreterCallAndLoopCount() < profile.getCompilationCallAndLoopThreshold()) {
+            profile.reportInterpreterCall();
+        }
+        assertNull(policy.recordInvalidation(profile, null, null));
+        int threshold = profile.getCompilationCallAndLoopThreshold();
+        assertNotNull(policy.recordInvalidation(profile, null, null));
+        assertTrue(profile.getCompilationCallAndLoopThreshold() > threshold);
+        assertFalse(policy.isCompilationDisabled());
+    }
+
+    @Test
+    public void testInvalidationStorm() {
+        CounterBasedCompilationPolicy policy = new CounterBasedCompilationPolicy();
+        CompilationProfile profile = new CompilationProfile();
+        for (int i = 1; i < TruffleInvalidationStormThreshold.getValue(); i++) {
+            policy.recordInvalidation(profile, "source" + i, null);
+            assertFalse(policy.isCompilationDisabled());
+        }
+        assertNotNull(policy.recordInvalidation(profile, null, null));
+        assertTrue(policy.isCompilationDisabled());
+        assertFalse(policy.shouldCompile(profile));
+        assertNull(policy.recordInvalidation(profile, null, null));
+    }
+
+    @Test
+    public void testNodeInvalidationStorm() {
+        try (OverrideScope s = OptionValue.override(TruffleInvalidationStormWindow, 0)) {
+            CounterBasedCompilationPolicy policy = new CounterBasedCompilationPolicy();
+            CompilationProfile profile = new CompilationProfile();
+            Object source = new Object();
+            for (int i = 1; i < TruffleInvalidationStormNodeThreshold.getValue(); i++) {
+                policy.recordInvalidation(profile, source, null);
+                assertFalse(policy.isCompilationDisabled());
+            }
+            policy.recordInvalidation(profile, source, null);
+            assertTrue(policy.isCompilationDisabled());
+        }
+    }
+
+    @Test
+    public void testNodeInvalidationsDecay() {
+        try (OverrideScope s = OptionValue.override(TruffleInvalidationStormWindow, 0, TruffleInvalidationStormNodeWindow, 0)) {
+            CounterBasedCompilationPolicy policy = new CounterBasedCompilationPolicy();
+            CompilationProfile profile = new CompilationProfile();
+            Object source = new Object();
+            for (int i = 0; i < 2 * TruffleInvalidationStormNodeThreshold.getValue(); i++) {
+                policy.recordInvalidation(profile, source, null);
+                waitForNextNanoTime();
+            }
+            assertFalse(policy.isCompilationDisabled());
+        }
+    }
+
+    @Test
+    public void testNodeIdentity() {
+        try (OverrideScope s = OptionValue.override(TruffleInvalidationStormWindow, 0)) {
+            CounterBasedCompilationPolicy policy = new CounterBasedCompilationPolicy();
+            CompilationProfile profile = new CompilationProfile();
+            for (int i = 0; i < 2 * TruffleInvalidationStormNodeThreshold.getValue(); i++) {
+                // Nodes of the same class without a source section are counted separately.
+                policy.recordInvalidation(profile, new TestNode(), null);
+            }
+            assertFalse(policy.isCompilationDisabled());
+        }
+    }
+
+    private static final class TestNode extends Node {
+    }
+
+    private static void waitForNextNanoTime() {
+        long start = System.nanoTime();
+        while (System.nanoTime() == start) {
+            // spin
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.*;
+
+import org.junit.*;
+
+import com.oracle.graal.truffle.*;
+import com.oracle.truffle.api.frame.*;
+
+public class FrameWithoutBoxingTest {
+
+    private static final int FRAMES = 10000;
+
+    @Test
+    public void testObjectOnlyFrame() throws FrameSlotTypeException {
+        FrameDescriptor descriptor = new FrameDescriptor("default");
+        FrameSlot a = descriptor.addFrameSlot("a");
+        FrameSlot b = descriptor.addFrameSlot("b", FrameSlotKind.Object);
+        assertFalse(FrameWithoutBoxing.hasPrimitiveSlots(descriptor));
+
+        FrameWithoutBoxing frame = new FrameWithoutBoxing(descriptor, new Object[0]);
+        assertTrue(frame.isObject(a));
+        assertEquals("default", frame.getObject(a));
+        frame.setObject(b, "value");
+        assertEquals("value", frame.getObject(b));
+        assertEquals("value", frame.getValue(b));
+        try {
+            frame.getInt(a);
+            fail("expected FrameSlotTypeException");
+        } catch (FrameSlotTypeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPrimitiveStoreIntoObjectOnlyFrame() throws FrameSlotTypeException {
+        FrameDescriptor descriptor = new FrameDescriptor();
+        FrameSlot a = descriptor.addFrameSlot("a");
+        FrameSlot b = descriptor.addFrameSlot("b");
+        FrameWithoutBoxing frame = new FrameWithoutBoxing(descriptor, new Object[0]);
+        frame.setObject(a, "value");
+        assertFalse(FrameWithoutBoxing.hasPrimitiveSlots(descriptor));
+
+        b.setKind(FrameSlotKind.Int);
+        assertTrue(FrameWithoutBoxing.hasPrimitiveSlots(descriptor));
+        frame.setInt(b, 42);
+        assertTrue(frame.isInt(b));
+        assertEquals(42, frame.getInt(b));
+        assertEquals(42, frame.getValue(b));
+        assertTrue(frame.isObject(a));
+        assertEquals("value", frame.getObject(a));
+    }
+
+    @Test
+    public void testResizeObjectOnlyFrame() throws FrameSlotTypeException {
+        FrameDescriptor descriptor = new FrameDescriptor();
+        descriptor.addFrameSlot("a");
+        FrameWithoutBoxing frame = new FrameWithoutBoxing(descriptor, new Object[0]);
+        FrameSlot b = descriptor.addFrameSlot("b", FrameSlotKind.Long);
+        frame.setLong(b, 42L);
+        assertEquals(42L, frame.getLong(b));
+        FrameSlot c = descriptor.addFrameSlot("c");
+        assertNull(frame.getObject(c));
+    }
+
+    /**
+     * Compares the bytes allocated for frames of an object only descriptor with the bytes
+     * allocated for frames of a descriptor of the same size that has a primitive slot.
+     */
+    @Test
+    public void testObjectOnlyFrameAllocation() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+
+        FrameDescriptor objectDescriptor = new FrameDescriptor();
+        FrameDescriptor primitiveDescriptor = new FrameDescriptor();
+        for (int i = 0; i < 8; i++) {
+            objectDescriptor.addFrameSlot(i, FrameSlotKind.Object);
+            primitiveDescriptor.addFrameSlot(i, i == 0 ? FrameSlotKind.Long : FrameSlotKind.Object);
+        }
+        Object[] arguments = new Object[0];
+        FrameWithoutBoxing[] frames = new FrameWithoutBoxing[FRAMES];
+
+        long threadId = Thread.currentThread().getId();
+        long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < FRAMES; i++) {
+            frames[i] = new FrameWithoutBoxing(objectDescriptor, arguments);
+        }
+        long objectBytes = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+
+        start = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < FRAMES; i++) {
+            frames[i] = new FrameWithoutBoxing(primitiveDescriptor, arguments);
+        }
+        long primitiveBytes = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+
+        assertTrue(objectBytes + " >= " + primitiveBytes, objectBytes < primitiveBytes);
+    }
+}
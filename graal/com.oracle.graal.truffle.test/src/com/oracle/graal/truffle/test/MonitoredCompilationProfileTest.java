@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import com.oracle.graal.truffle.*;
+import com.oracle.graal.truffle.MonitoredCompilationProfile.Histogram;
+
+public class MonitoredCompilationProfileTest {
+
+    @Test
+    public void testCallCounts() {
+        MonitoredCompilationProfile profile = new MonitoredCompilationProfile();
+        profile.reportInterpreterCall();
+        profile.reportIndirectCall();
+        profile.reportDirectCall();
+        profile.reportDirectCall();
+        profile.reportInlinedCall();
+        assertEquals(4, profile.getCalls());
+        assertEquals(1, profile.getInterpreterCalls());
+        assertEquals(3, profile.getCompiledCalls());
+        assertEquals(4, profile.getTotalCallCount());
+    }
+
+    @Test
+    public void testInvalidations() {
+        MonitoredCompilationProfile profile = new MonitoredCompilationProfile();
+        profile.reportInvalidation(true);
+        profile.reportInvalidation(false);
+        assertEquals(2, profile.getInvalidations());
+        assertEquals(1, profile.getRewriteInvalidations());
+    }
+
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(i < 99 ? 5 : 1000);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(99 * 5 + 1000, histogram.getSum());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(99, histogram.getBuckets()[3]);
+        assertEquals(1, histogram.getBuckets()[10]);
+        assertEquals(7, histogram.getPercentile(0.5));
+        assertEquals(1000, histogram.getPercentile(1.0));
+
+        Histogram merged = new Histogram();
+        merged.add(histogram);
+        merged.record(0);
+        assertEquals(101, merged.getCount());
+        assertEquals(1, merged.getBuckets()[0]);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.truffle.*;
+
+public class OptimizedAssumptionTest {
+
+    private static final class TestInstalledCode extends InstalledCode {
+
+        int invalidations;
+
+        TestInstalledCode(String name) {
+            super(name);
+            setAddress(1);
+        }
+
+        @Override
+        public void invalidate() {
+            invalidations++;
+        }
+    }
+
+    @Test
+    public void testInvalidate() {
+        OptimizedAssumption assumption = new OptimizedAssumption("test");
+        TestInstalledCode code = new TestInstalledCode("code");
+        assumption.registerInstalledCode(code);
+        assertTrue(assumption.isValid());
+        assumption.invalidate();
+        assertFalse(assumption.isValid());
+        assertEquals(1, code.invalidations);
+        assumption.invalidate();
+        assertEquals(1, code.invalidations);
+    }
+
+    @Test
+    public void testRegisterAfterInvalidate() {
+        OptimizedAssumption assumption = new OptimizedAssumption("test");
+        assumption.invalidate();
+        TestInstalledCode code = new TestInstalledCode("code");
+        assumption.registerInstalledCode(code);
+        assertEquals(1, code.invalidations);
+    }
+
+    @Test
+    public void testObsoleteCodeIsPruned() {
+        OptimizedAssumption assumption = new OptimizedAssumption("test");
+        TestInstalledCode code = new TestInstalledCode("code");
+        for (int i = 0; i < 1000; i++) {
+            // Reinstalling the code makes the previous registration obsolete.
+            code.setAddress(1);
+            assumption.registerInstalledCode(code);
+        }
+        assertTrue(assumption.getDependencyCount() < 100);
+        assumption.invalidate();
+        assertEquals(1, code.invalidations);
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        OptimizedAssumption first = new OptimizedAssumption("first");
+        OptimizedAssumption second = new OptimizedAssumption("second");
+        TestInstalledCode shared = new TestInstalledCode("shared");
+        TestInstalledCode other = new TestInstalledCode("other");
+        first.registerInstalledCode(shared);
+        second.registerInstalledCode(shared);
+        second.registerInstalledCode(other);
+        OptimizedAssumption.invalidateAll(Arrays.asList(first, second));
+        assertFalse(first.isValid());
+        assertFalse(second.isValid());
+        assertEquals(1, shared.invalidations);
+        assertEquals(1, other.invalidations);
+    }
+}
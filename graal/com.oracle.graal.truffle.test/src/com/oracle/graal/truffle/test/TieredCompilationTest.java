@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.*;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.options.*;
+import com.oracle.graal.options.OptionValue.OverrideScope;
+import com.oracle.graal.truffle.*;
+import com.oracle.graal.truffle.debug.*;
+import com.oracle.graal.truffle.test.nodes.*;
+import com.oracle.truffle.api.*;
+import com.oracle.truffle.api.frame.*;
+
+public class TieredCompilationTest {
+
+    private static final class TierListener extends AbstractDebugCompilationListener {
+
+        private final OptimizedCallTarget target;
+        final List<Integer> tiers = Collections.synchronizedList(new ArrayList<>());
+
+        TierListener(OptimizedCallTarget target) {
+            this.target = target;
+        }
+
+        @Override
+        public void notifyCompilationSuccess(OptimizedCallTarget compiled, StructuredGraph graph, CompilationResult result) {
+            if (compiled == target) {
+                tiers.add(compiled.getCompilationTier());
+            }
+        }
+    }
+
+    @Test
+    public void testBothTiersReached() {
+        try (OverrideScope s = OptionValue.override(TruffleTieredCompilation, true, TruffleBackgroundCompilation, false, TruffleFirstTierCompilationThreshold, 10, TruffleCompilationThreshold, 100)) {
+            GraalTruffleRuntime runtime = (GraalTruffleRuntime) Truffle.getRuntime();
+            OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(new RootTestNode(new FrameDescriptor(), "tiered", new ConstantTestNode(42)));
+            TierListener listener = new TierListener(target);
+            runtime.addCompilationListener(listener);
+            try {
+                for (int i = 0; i < 10000 && target.getInstalledTier() != OptimizedCallTarget.LAST_TIER; i++) {
+                    assertEquals(42, target.call());
+                }
+            } finally {
+                runtime.removeCompilationListener(listener);
+            }
+            assertEquals(Arrays.asList(OptimizedCallTarget.FIRST_TIER, OptimizedCallTarget.LAST_TIER), listener.tiers);
+            assertEquals(OptimizedCallTarget.LAST_TIER, target.getInstalledTier());
+            assertTrue(target.isValid());
+        }
+    }
+}
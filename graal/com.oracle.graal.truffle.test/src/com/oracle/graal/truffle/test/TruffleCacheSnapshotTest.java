@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.truffle.*;
+
+public class TruffleCacheSnapshotTest {
+
+    private static final String VM_VERSION = "1.0-test";
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("truffle-cache", ".snapshot");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<TruffleCacheSnapshot.Entry> entries = new ArrayList<>();
+        entries.add(new TruffleCacheSnapshot.Entry("com.example.Node", "execute", "(Lcom/example/Frame;)Ljava/lang/Object;", "0123456789abcdef", new String[]{"com.example.Node", null},
+                        new byte[]{3, 4}));
+        entries.add(new TruffleCacheSnapshot.Entry("com.example.Node", "<init>", "()V", "fedcba9876543210", new String[0], new byte[0]));
+        TruffleCacheSnapshot.write(file, entries, VM_VERSION);
+        assertEquals(entries, TruffleCacheSnapshot.read(file, VM_VERSION));
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        TruffleCacheSnapshot.write(file, Collections.emptyList(), VM_VERSION);
+        assertTrue(TruffleCacheSnapshot.read(file, VM_VERSION).isEmpty());
+    }
+
+    @Test
+    public void testMissingFile() throws IOException {
+        file.delete();
+        assertTrue(TruffleCacheSnapshot.read(file, VM_VERSION).isEmpty());
+    }
+
+    @Test
+    public void testOtherVMVersion() throws IOException {
+        TruffleCacheSnapshot.write(file, Collections.singletonList(new TruffleCacheSnapshot.Entry("com.example.Node", "<init>", "()V", "0123", new String[0], new byte[0])), VM_VERSION);
+        assertFalse(TruffleCacheSnapshot.read(file, VM_VERSION).isEmpty());
+        assertTrue(TruffleCacheSnapshot.read(file, VM_VERSION + "-other").isEmpty());
+    }
+}
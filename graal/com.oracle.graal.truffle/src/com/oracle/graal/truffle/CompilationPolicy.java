@@ -24,7 +24,40 @@ package com.oracle.graal.truffle;
 
 public interface CompilationPolicy {
 
+    /**
+     * Determines if a call target should be compiled with the fully optimizing (last) tier.
+     */
     boolean shouldCompile(CompilationProfile profile);
 
+    /**
+     * Determines if a call target running in the interpreter should be compiled with the first
+     * tier. Only used with {@link TruffleCompilerOptions#TruffleTieredCompilation}.
+     */
+    boolean shouldCompileFirstTier(CompilationProfile profile);
+
+    /**
+     * Determines if a call target running first tier code should be recompiled with the last tier.
+     * Only used with {@link TruffleCompilerOptions#TruffleTieredCompilation}.
+     */
+    boolean shouldCompileLastTier(CompilationProfile profile);
+
     void recordCompilationFailure(Throwable t);
+
+    /**
+     * Records that the installed code of a call target was invalidated and delays or disables its
+     * recompilation if it is invalidated too often.
+     *
+     * @param source the source object that caused the invalidation, for example the rewritten
+     *            {@link com.oracle.truffle.api.nodes.Node}. May be <code>null</code>.
+     * @param reason a textual description of the reason of the invalidation. May be
+     *            <code>null</code>.
+     * @return a textual description of the backoff decision or <code>null</code> if the policy did
+     *         not change the compilation of the call target
+     */
+    CharSequence recordInvalidation(CompilationProfile profile, Object source, CharSequence reason);
+
+    /**
+     * Determines if the call target was excluded from compilation permanently.
+     */
+    boolean isCompilationDisabled();
 }
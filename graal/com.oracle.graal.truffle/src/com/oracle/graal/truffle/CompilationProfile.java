@@ -41,11 +41,17 @@ public class CompilationProfile {
     private int compilationCallThreshold;
     private int compilationCallAndLoopThreshold;
 
+    private int firstTierCompilationThreshold;
+    private int firstTierCallCount;
+    private int lastTierCompilationThreshold;
+
     private long timestamp;
 
     public CompilationProfile() {
         this.compilationCallThreshold = TruffleMinInvokeThreshold.getValue();
         this.compilationCallAndLoopThreshold = TruffleCompilationThreshold.getValue();
+        this.firstTierCompilationThreshold = Math.min(TruffleFirstTierCompilationThreshold.getValue(), compilationCallAndLoopThreshold);
+        this.lastTierCompilationThreshold = TruffleCompilationThreshold.getValue();
     }
 
     @Override
@@ -61,6 +67,10 @@ public class CompilationProfile {
         String invalidations = String.format("%5d", invalidationCount);
         properties.put("Calls/Thres", callsThreshold);
         properties.put("CallsAndLoop/Thres", loopsThreshold);
+        if (TruffleTieredCompilation.getValue()) {
+            properties.put("FirstTier/Thres", String.format("%5d/%5d|%7d/%5d", getInterpreterCallAndLoopCount(), getFirstTierCompilationThreshold(), getFirstTierCallCount(),
+                            getLastTierCompilationThreshold()));
+        }
         properties.put("Inval#", invalidations);
         return properties;
     }
@@ -89,12 +99,37 @@ public class CompilationProfile {
         return compilationCallThreshold;
     }
 
+    public int getFirstTierCompilationThreshold() {
+        return firstTierCompilationThreshold;
+    }
+
+    /**
+     * Returns the number of calls executed by first tier code of this call target.
+     */
+    public int getFirstTierCallCount() {
+        return firstTierCallCount;
+    }
+
+    public int getLastTierCompilationThreshold() {
+        return lastTierCompilationThreshold;
+    }
+
     void ensureProfiling(int calls, int callsAndLoop) {
         int increaseCallAndLoopThreshold = callsAndLoop - (this.compilationCallAndLoopThreshold - this.interpreterCallAndLoopCount);
         if (increaseCallAndLoopThreshold > 0) {
             this.compilationCallAndLoopThreshold += increaseCallAndLoopThreshold;
         }
 
+        int increaseFirstTierThreshold = callsAndLoop - (this.firstTierCompilationThreshold - this.interpreterCallAndLoopCount);
+        if (increaseFirstTierThreshold > 0) {
+            this.firstTierCompilationThreshold += increaseFirstTierThreshold;
+        }
+
+        int increaseLastTierThreshold = callsAndLoop - (this.lastTierCompilationThreshold - this.firstTierCallCount);
+        if (increaseLastTierThreshold > 0) {
+            this.lastTierCompilationThreshold += increaseLastTierThreshold;
+        }
+
         int increaseCallsThreshold = calls - (this.compilationCallThreshold - this.interpreterCallCount);
         if (increaseCallsThreshold > 0) {
             this.compilationCallThreshold += increaseCallsThreshold;
@@ -117,6 +152,10 @@ public class CompilationProfile {
         }
     }
 
+    void reportFirstTierCall() {
+        firstTierCallCount++;
+    }
+
     public void reportDirectCall() {
 
     }
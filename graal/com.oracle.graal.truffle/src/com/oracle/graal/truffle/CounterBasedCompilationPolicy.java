@@ -22,17 +22,119 @@
  */
 package com.oracle.graal.truffle;
 
+import static com.oracle.graal.truffle.TruffleCompilerOptions.*;
+
+import java.util.*;
+
+import com.oracle.truffle.api.nodes.*;
+import com.oracle.truffle.api.source.*;
+
 public class CounterBasedCompilationPolicy implements CompilationPolicy {
 
-    private boolean compilationFailed;
+    private static final int MAX_BACKOFF_SHIFT = 16;
+
+    private volatile boolean compilationFailed;
+
+    /**
+     * Number of invalidations that followed each other within
+     * {@link TruffleCompilerOptions#TruffleInvalidationStormWindow}.
+     */
+    private int recentInvalidations;
+    private long lastInvalidation;
+
+    /**
+     * Recent invalidations caused by a single source, weakly keyed by the
+     * {@linkplain #sourceKey(Object) source} so that the entries of collected nodes go away.
+     */
+    private Map<Object, SourceInvalidations> invalidationsBySource;
+
+    /**
+     * Number of invalidations of a single source that followed each other within
+     * {@link TruffleCompilerOptions#TruffleInvalidationStormNodeWindow}.
+     */
+    private static final class SourceInvalidations {
+        int count;
+        long last;
+    }
 
     public boolean shouldCompile(CompilationProfile profile) {
         return !compilationFailed && profile.getInterpreterCallCount() >= profile.getCompilationCallThreshold() &&
                         profile.getInterpreterCallAndLoopCount() >= profile.getCompilationCallAndLoopThreshold();
     }
 
+    public boolean shouldCompileFirstTier(CompilationProfile profile) {
+        return !compilationFailed && profile.getInterpreterCallCount() >= profile.getCompilationCallThreshold() &&
+                        profile.getInterpreterCallAndLoopCount() >= profile.getFirstTierCompilationThreshold();
+    }
+
+    public boolean shouldCompileLastTier(CompilationProfile profile) {
+        return !compilationFailed && profile.getFirstTierCallCount() >= profile.getLastTierCompilationThreshold();
+    }
+
     public void recordCompilationFailure(Throwable t) {
         compilationFailed = true;
     }
 
+    /**
+     * Applies an exponential backoff to the recompilation of a call target whose code is
+     * invalidated repeatedly and stops compiling it if either the call target or a single node
+     * exceeds its invalidation threshold.
+     */
+    public synchronized CharSequence recordInvalidation(CompilationProfile profile, Object source, CharSequence reason) {
+        if (compilationFailed) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (recentInvalidations > 0 && now - lastInvalidation > TruffleInvalidationStormWindow.getValue() * 1_000_000L) {
+            recentInvalidations = 0;
+        }
+        lastInvalidation = now;
+        recentInvalidations++;
+
+        int sourceInvalidations = 0;
+        Object key = sourceKey(source);
+        if (key != null) {
+            if (invalidationsBySource == null) {
+                invalidationsBySource = new WeakHashMap<>();
+            }
+            SourceInvalidations invalidations = invalidationsBySource.computeIfAbsent(key, k -> new SourceInvalidations());
+            if (invalidations.count > 0 && now - invalidations.last > TruffleInvalidationStormNodeWindow.getValue() * 1_000_000L) {
+                invalidations.count = 0;
+            }
+            invalidations.last = now;
+            sourceInvalidations = ++invalidations.count;
+        }
+
+        if (recentInvalidations >= TruffleInvalidationStormThreshold.getValue()) {
+            compilationFailed = true;
+            return String.format("Invalidated %d times in a row. Call target will not be compiled anymore.", recentInvalidations);
+        }
+        if (sourceInvalidations >= TruffleInvalidationStormNodeThreshold.getValue()) {
+            compilationFailed = true;
+            return String.format("Node %s caused %d invalidations. Call target will not be compiled anymore.", source, sourceInvalidations);
+        }
+        if (recentInvalidations > 1) {
+            int reprofile = TruffleInvalidationReprofileCount.getValue() << Math.min(recentInvalidations - 1, MAX_BACKOFF_SHIFT);
+            profile.ensureProfiling(reprofile, reprofile);
+            return String.format("Invalidated %d times in a row. Delaying recompilation by %d calls.", recentInvalidations, reprofile);
+        }
+        return null;
+    }
+
+    /**
+     * Nodes are identified by their source section, which is kept when a node is rewritten, and
+     * otherwise by their identity.
+     */
+    private static Object sourceKey(Object source) {
+        if (source instanceof Node) {
+            SourceSection section = ((Node) source).getSourceSection();
+            return section != null ? section : source;
+        }
+        return source;
+    }
+
+    public boolean isCompilationDisabled() {
+        return compilationFailed;
+    }
+
 }
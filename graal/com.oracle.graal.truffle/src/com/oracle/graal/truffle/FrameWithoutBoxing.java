@@ -33,12 +33,21 @@ import com.oracle.truffle.api.frame.*;
  * More efficient implementation of the Truffle frame that has no safety checks for frame accesses
  * and therefore is much faster. Should not be used during debugging as potential misuses of the
  * frame object would show up very late and would be hard to identify.
+ * <p>
+ * If none of the slots of the {@link FrameDescriptor} has a primitive kind when the frame is
+ * created, the frame only allocates the object array. Its primitive and tag arrays are empty and
+ * every slot is implicitly tagged as {@link FrameSlotKind#Object}. The primitive and tag arrays are
+ * allocated when a primitive value is stored for the first time, which is only possible after the
+ * kind of a slot changed and therefore the {@link FrameDescriptor#getVersion() version} of the
+ * descriptor was invalidated.
  */
 public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame {
     private static final long OBJECT_BASE_OFFSET = Unsafe.ARRAY_OBJECT_BASE_OFFSET;
     private static final long OBJECT_INDEX_SCALE = Unsafe.ARRAY_OBJECT_INDEX_SCALE;
     private static final long PRIMITIVE_BASE_OFFSET = Unsafe.ARRAY_LONG_BASE_OFFSET;
     private static final long PRIMITIVE_INDEX_SCALE = Unsafe.ARRAY_LONG_INDEX_SCALE;
+    private static final long[] EMPTY_PRIMITIVE_LOCALS = new long[0];
+    private static final byte[] EMPTY_TAGS = new byte[0];
 
     private final FrameDescriptor descriptor;
     private final Object[] arguments;
@@ -52,8 +61,22 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
         int size = descriptor.getSize();
         this.locals = new Object[size];
         Arrays.fill(locals, descriptor.getDefaultValue());
-        this.primitiveLocals = new long[size];
-        this.tags = new byte[size];
+        if (hasPrimitiveSlots(descriptor)) {
+            this.primitiveLocals = new long[size];
+            this.tags = new byte[size];
+        } else {
+            this.primitiveLocals = EMPTY_PRIMITIVE_LOCALS;
+            this.tags = EMPTY_TAGS;
+        }
+    }
+
+    /**
+     * Determines whether a frame for the given descriptor needs primitive and tag arrays. The
+     * answer is cached by the descriptor for each of its {@link FrameDescriptor#getVersion()
+     * versions}, so creating a frame does not iterate over the slots.
+     */
+    public static boolean hasPrimitiveSlots(FrameDescriptor descriptor) {
+        return descriptor.hasPrimitiveSlots();
     }
 
     @Override
@@ -86,7 +109,7 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
 
     private Object getObjectUnsafe(FrameSlot slot) {
         int slotIndex = slot.getIndex();
-        return CompilerDirectives.unsafeGetObject(getLocals(), OBJECT_BASE_OFFSET + slotIndex * OBJECT_INDEX_SCALE, this.getTags()[slotIndex] == FrameSlotKind.Object.ordinal(), slot);
+        return CompilerDirectives.unsafeGetObject(getLocals(), OBJECT_BASE_OFFSET + slotIndex * OBJECT_INDEX_SCALE, getTag(slotIndex) == FrameSlotKind.Object.ordinal(), slot);
     }
 
     @Override
@@ -107,7 +130,7 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
 
     private byte getByteUnsafe(FrameSlot slot) {
         int slotIndex = slot.getIndex();
-        return CompilerDirectives.unsafeGetByte(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, this.getTags()[slotIndex] == FrameSlotKind.Byte.ordinal(), slot);
+        return CompilerDirectives.unsafeGetByte(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, getTag(slotIndex) == FrameSlotKind.Byte.ordinal(), slot);
     }
 
     @Override
@@ -128,7 +151,7 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
 
     private boolean getBooleanUnsafe(FrameSlot slot) {
         int slotIndex = slot.getIndex();
-        return CompilerDirectives.unsafeGetBoolean(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, this.getTags()[slotIndex] == FrameSlotKind.Boolean.ordinal(), slot);
+        return CompilerDirectives.unsafeGetBoolean(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, getTag(slotIndex) == FrameSlotKind.Boolean.ordinal(), slot);
     }
 
     @Override
@@ -149,7 +172,7 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
 
     private float getFloatUnsafe(FrameSlot slot) {
         int slotIndex = slot.getIndex();
-        return CompilerDirectives.unsafeGetFloat(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, this.getTags()[slotIndex] == FrameSlotKind.Float.ordinal(), slot);
+        return CompilerDirectives.unsafeGetFloat(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, getTag(slotIndex) == FrameSlotKind.Float.ordinal(), slot);
     }
 
     @Override
@@ -170,7 +193,7 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
 
     private long getLongUnsafe(FrameSlot slot) {
         int slotIndex = slot.getIndex();
-        return CompilerDirectives.unsafeGetLong(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, this.getTags()[slotIndex] == FrameSlotKind.Long.ordinal(), slot);
+        return CompilerDirectives.unsafeGetLong(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, getTag(slotIndex) == FrameSlotKind.Long.ordinal(), slot);
     }
 
     @Override
@@ -191,7 +214,7 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
 
     private int getIntUnsafe(FrameSlot slot) {
         int slotIndex = slot.getIndex();
-        return CompilerDirectives.unsafeGetInt(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, this.getTags()[slotIndex] == FrameSlotKind.Int.ordinal(), slot);
+        return CompilerDirectives.unsafeGetInt(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, getTag(slotIndex) == FrameSlotKind.Int.ordinal(), slot);
     }
 
     @Override
@@ -212,7 +235,7 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
 
     private double getDoubleUnsafe(FrameSlot slot) {
         int slotIndex = slot.getIndex();
-        return CompilerDirectives.unsafeGetDouble(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, this.getTags()[slotIndex] == FrameSlotKind.Double.ordinal(), slot);
+        return CompilerDirectives.unsafeGetDouble(getPrimitiveLocals(), PRIMITIVE_BASE_OFFSET + slotIndex * PRIMITIVE_INDEX_SCALE, getTag(slotIndex) == FrameSlotKind.Double.ordinal(), slot);
     }
 
     @Override
@@ -232,24 +255,31 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
 
     private void verifySet(FrameSlot slot, FrameSlotKind accessKind) {
         int slotIndex = slot.getIndex();
-        if (slotIndex >= getTags().length) {
+        if (slotIndex >= getLocals().length) {
             CompilerDirectives.transferToInterpreter();
             if (!resize()) {
                 throw new IllegalArgumentException(String.format("The frame slot '%s' is not known by the frame descriptor.", slot));
             }
         }
+        if (getTags().length == 0) {
+            if (accessKind == FrameSlotKind.Object) {
+                return;
+            }
+            CompilerDirectives.transferToInterpreter();
+            allocatePrimitiveLocals();
+        }
         getTags()[slotIndex] = (byte) accessKind.ordinal();
     }
 
     private void verifyGet(FrameSlot slot, FrameSlotKind accessKind) throws FrameSlotTypeException {
         int slotIndex = slot.getIndex();
-        if (slotIndex >= getTags().length) {
+        if (slotIndex >= getLocals().length) {
             CompilerDirectives.transferToInterpreter();
             if (!resize()) {
                 throw new IllegalArgumentException(String.format("The frame slot '%s' is not known by the frame descriptor.", slot));
             }
         }
-        byte tag = this.getTags()[slotIndex];
+        byte tag = getTag(slotIndex);
         if (tag != accessKind.ordinal()) {
             CompilerDirectives.transferToInterpreter();
             throw new FrameSlotTypeException();
@@ -259,11 +289,11 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
     @Override
     public Object getValue(FrameSlot slot) {
         int slotIndex = slot.getIndex();
-        if (slotIndex >= getTags().length) {
+        if (slotIndex >= getLocals().length) {
             CompilerDirectives.transferToInterpreter();
             resize();
         }
-        byte tag = getTags()[slotIndex];
+        byte tag = getTag(slotIndex);
         if (tag == FrameSlotKind.Boolean.ordinal()) {
             return getBooleanUnsafe(slot);
         } else if (tag == FrameSlotKind.Byte.ordinal()) {
@@ -283,25 +313,43 @@ public final class FrameWithoutBoxing implements VirtualFrame, MaterializedFrame
     }
 
     private boolean resize() {
-        int oldSize = tags.length;
+        int oldSize = locals.length;
         int newSize = descriptor.getSize();
         if (newSize > oldSize) {
             locals = Arrays.copyOf(locals, newSize);
             Arrays.fill(locals, oldSize, newSize, descriptor.getDefaultValue());
-            primitiveLocals = Arrays.copyOf(primitiveLocals, newSize);
-            tags = Arrays.copyOf(tags, newSize);
+            if (tags.length != 0) {
+                primitiveLocals = Arrays.copyOf(primitiveLocals, newSize);
+                tags = Arrays.copyOf(tags, newSize);
+            }
             return true;
         }
         return false;
     }
 
+    private void allocatePrimitiveLocals() {
+        primitiveLocals = new long[locals.length];
+        tags = new byte[locals.length];
+    }
+
+    /**
+     * Returns the tag of a slot whose index is within the bounds of the object array.
+     */
+    private byte getTag(int slotIndex) {
+        byte[] cachedTags = getTags();
+        if (cachedTags.length == 0) {
+            return (byte) FrameSlotKind.Object.ordinal();
+        }
+        return cachedTags[slotIndex];
+    }
+
     private byte getTag(FrameSlot slot) {
         int slotIndex = slot.getIndex();
-        if (slotIndex >= getTags().length) {
+        if (slotIndex >= getLocals().length) {
             CompilerDirectives.transferToInterpreter();
             resize();
         }
-        return getTags()[slotIndex];
+        return getTag(slotIndex);
     }
 
     @Override
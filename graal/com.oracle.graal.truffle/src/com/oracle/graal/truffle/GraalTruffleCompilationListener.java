@@ -22,6 +22,8 @@
  */
 package com.oracle.graal.truffle;
 
+import java.util.*;
+
 import com.oracle.graal.api.code.*;
 import com.oracle.graal.nodes.*;
 import com.oracle.truffle.api.nodes.*;
@@ -33,8 +35,8 @@ import com.oracle.truffle.api.nodes.*;
  * <pre>
  * ( (split | (queue . unqueue))*
  *    . queue . started
- *    . (truffleTierFinished . graalTierFinished . success)
- *      | ([truffleTierFinished] . [graalTierFinished] . failed)
+ *    . (truffleTierTimings . truffleTierFinished . graalTierFinished . success)
+ *      | ([truffleTierTimings . truffleTierFinished] . [graalTierFinished] . failed)
  *    . invalidate )*
  * </pre>
  * </code>
@@ -47,6 +49,11 @@ import com.oracle.truffle.api.nodes.*;
  */
 public interface GraalTruffleCompilationListener {
 
+    /**
+     * Invoked if a call target or a split copy of a call target was created.
+     */
+    void notifyCallTargetCreated(OptimizedCallTarget target);
+
     void notifyCompilationSplit(OptimizedDirectCallNode callNode);
 
     /**
@@ -68,6 +75,15 @@ public interface GraalTruffleCompilationListener {
 
     void notifyCompilationStarted(OptimizedCallTarget target);
 
+    /**
+     * Invoked after the partial evaluation of a call target with the time spent in each of its
+     * phases.
+     *
+     * @param phaseTimes the time in nanoseconds spent in each phase by phase name, in the order
+     *            the phases were executed
+     */
+    void notifyCompilationTruffleTierTimings(OptimizedCallTarget target, Map<String, Long> phaseTimes);
+
     void notifyCompilationTruffleTierFinished(OptimizedCallTarget target, StructuredGraph graph);
 
     void notifyCompilationGraalTierFinished(OptimizedCallTarget target, StructuredGraph graph);
@@ -84,6 +100,17 @@ public interface GraalTruffleCompilationListener {
      */
     void notifyCompilationInvalidated(OptimizedCallTarget target, Object source, CharSequence reason);
 
+    /**
+     * Invoked if the compilation policy delays or stops the recompilation of a call target because
+     * its compiled code was invalidated too often.
+     *
+     * @param source the source object of the invalidation that caused the decision. May be
+     *            <code>null</code>.
+     * @param decision a textual description of the decision
+     * @param permanent whether the call target will no longer be compiled
+     */
+    void notifyCompilationBackoff(OptimizedCallTarget target, Object source, CharSequence decision, boolean permanent);
+
     /**
      * Invoked as the compiler gets shut down.
      */
@@ -65,6 +65,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
         TraceInliningListener.install(this);
         TraceSplittingListener.install(this);
         PrintCallTargetProfiling.install(this);
+        CallTargetProfilingListener.install(this);
         CompilationStatisticsListener.install(this);
         compilationNotify.notifyStartup(this);
     }
@@ -122,6 +123,11 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
         return new OptimizedAssumption(name);
     }
 
+    @Override
+    public void invalidateAssumptions(Iterable<? extends Assumption> assumptions) {
+        OptimizedAssumption.invalidateAll(assumptions);
+    }
+
     public GraalTruffleCompilationListener getCompilationNotify() {
         return compilationNotify;
     }
@@ -244,6 +250,33 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
 
     public abstract void invalidateInstalledCode(OptimizedCallTarget optimizedCallTarget, Object source, CharSequence reason);
 
+    /**
+     * Invalidates a number of call targets at once. Their installed code is deoptimized in a
+     * single operation of the VM before the listeners and compilation policies of the call targets
+     * are notified.
+     */
+    public void invalidateInstalledCode(Collection<OptimizedCallTarget> optimizedCallTargets, Object source, CharSequence reason) {
+        List<OptimizedCallTarget> valid = new ArrayList<>(optimizedCallTargets.size());
+        for (OptimizedCallTarget optimizedCallTarget : optimizedCallTargets) {
+            if (optimizedCallTarget.isValid()) {
+                valid.add(optimizedCallTarget);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        invalidateInstalledCode(valid.toArray(new InstalledCode[valid.size()]));
+        for (OptimizedCallTarget optimizedCallTarget : valid) {
+            getCompilationNotify().notifyCompilationInvalidated(optimizedCallTarget, source, reason);
+            optimizedCallTarget.invalidated(source, reason);
+        }
+    }
+
+    /**
+     * Deoptimizes the given installed code in a single operation of the VM.
+     */
+    protected abstract void invalidateInstalledCode(InstalledCode[] installedCodes);
+
     public abstract void reinstallStubs();
 
     private final class DispatchTruffleCompilationListener implements GraalTruffleCompilationListener {
@@ -264,6 +297,10 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
             compilationListeners.forEach(l -> l.notifyCompilationFailed(target, graph, t));
         }
 
+        public void notifyCallTargetCreated(OptimizedCallTarget target) {
+            compilationListeners.forEach(l -> l.notifyCallTargetCreated(target));
+        }
+
         public void notifyCompilationSplit(OptimizedDirectCallNode callNode) {
             compilationListeners.forEach(l -> l.notifyCompilationSplit(callNode));
         }
@@ -280,10 +317,18 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
             compilationListeners.forEach(l -> l.notifyCompilationStarted(target));
         }
 
+        public void notifyCompilationTruffleTierTimings(OptimizedCallTarget target, Map<String, Long> phaseTimes) {
+            compilationListeners.forEach(l -> l.notifyCompilationTruffleTierTimings(target, phaseTimes));
+        }
+
         public void notifyCompilationTruffleTierFinished(OptimizedCallTarget target, StructuredGraph graph) {
             compilationListeners.forEach(l -> l.notifyCompilationTruffleTierFinished(target, graph));
         }
 
+        public void notifyCompilationBackoff(OptimizedCallTarget target, Object source, CharSequence decision, boolean permanent) {
+            compilationListeners.forEach(l -> l.notifyCompilationBackoff(target, source, decision, permanent));
+        }
+
         public void notifyShutdown(GraalTruffleRuntime runtime) {
             compilationListeners.forEach(l -> l.notifyShutdown(runtime));
         }
@@ -28,7 +28,23 @@ public class InterpreterOnlyCompilationPolicy implements CompilationPolicy {
         return false;
     }
 
+    public boolean shouldCompileFirstTier(CompilationProfile profile) {
+        return false;
+    }
+
+    public boolean shouldCompileLastTier(CompilationProfile profile) {
+        return false;
+    }
+
     public void recordCompilationFailure(Throwable t) {
     }
 
+    public CharSequence recordInvalidation(CompilationProfile profile, Object source, CharSequence reason) {
+        return null;
+    }
+
+    public boolean isCompilationDisabled() {
+        return true;
+    }
+
 }
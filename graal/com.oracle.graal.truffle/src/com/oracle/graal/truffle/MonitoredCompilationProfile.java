@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Compilation profile that can be read while the program is running. Like the counters of the
+ * {@link TraceCompilationProfile}, the call counter is a plain field that compiled code increments
+ * inline, so counting adds no call to compiled code at the price of losing some increments if a
+ * call target is executed by many threads. Calls that enter the interpreter are counted with a
+ * striped counter, which keeps contention low. Compilation events are recorded by the
+ * {@link com.oracle.graal.truffle.debug.CallTargetProfilingListener}.
+ */
+public final class MonitoredCompilationProfile extends TraceCompilationProfile {
+
+    private long calls;
+    private final LongAdder interpreterCalls = new LongAdder();
+
+    private final AtomicInteger invalidations = new AtomicInteger();
+    private final AtomicInteger rewriteInvalidations = new AtomicInteger();
+    private final Histogram compilationTime = new Histogram();
+    private final Histogram codeSize = new Histogram();
+
+    /**
+     * Histogram with buckets of exponentially growing size. Bucket {@code i} counts the values in
+     * the range [2<sup>i-1</sup>, 2<sup>i</sup>), bucket 0 counts the value 0.
+     */
+    public static final class Histogram {
+
+        public static final int BUCKETS = 64;
+
+        private final long[] buckets = new long[BUCKETS];
+        private long count;
+        private long sum;
+        private long max;
+
+        public synchronized void record(long value) {
+            buckets[BUCKETS - Long.numberOfLeadingZeros(Math.max(value, 0))]++;
+            count++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        public synchronized void add(Histogram other) {
+            synchronized (other) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    buckets[i] += other.buckets[i];
+                }
+                count += other.count;
+                sum += other.sum;
+                max = Math.max(max, other.max);
+            }
+        }
+
+        public synchronized long[] getBuckets() {
+            return buckets.clone();
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getSum() {
+            return sum;
+        }
+
+        public synchronized long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns an upper bound of the value below which the given fraction of the recorded
+         * values lies.
+         */
+        public synchronized long getPercentile(double fraction) {
+            long rank = (long) Math.ceil(count * fraction);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("count=%d, avg=%.1f, p50<=%d, p99<=%d, max=%d", count, count == 0 ? 0.0 : sum / (double) count, getPercentile(0.5), getPercentile(0.99), max);
+        }
+    }
+
+    @Override
+    public void reportInterpreterCall() {
+        super.reportInterpreterCall();
+        interpreterCalls.increment();
+    }
+
+    @Override
+    public void reportIndirectCall() {
+        super.reportIndirectCall();
+        calls++;
+    }
+
+    @Override
+    public void reportDirectCall() {
+        super.reportDirectCall();
+        calls++;
+    }
+
+    @Override
+    public void reportInlinedCall() {
+        super.reportInlinedCall();
+        calls++;
+    }
+
+    /**
+     * Records a successful compilation.
+     *
+     * @param timeMicros the duration of the compilation in microseconds
+     * @param targetCodeSize the size of the installed code in bytes
+     */
+    public void reportCompilation(long timeMicros, int targetCodeSize) {
+        compilationTime.record(timeMicros);
+        codeSize.record(targetCodeSize);
+    }
+
+    /**
+     * Records an invalidation of the installed code.
+     *
+     * @param rewrite whether the invalidation was caused by a node rewrite
+     */
+    public void reportInvalidation(boolean rewrite) {
+        invalidations.incrementAndGet();
+        if (rewrite) {
+            rewriteInvalidations.incrementAndGet();
+        }
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getInterpreterCalls() {
+        return interpreterCalls.sum();
+    }
+
+    public long getCompiledCalls() {
+        return Math.max(getCalls() - getInterpreterCalls(), 0);
+    }
+
+    public int getInvalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * Returns the number of invalidations that were caused by a node rewrite.
+     */
+    public int getRewriteInvalidations() {
+        return rewriteInvalidations.get();
+    }
+
+    /**
+     * Returns the histogram of the compilation times in microseconds.
+     */
+    public Histogram getCompilationTime() {
+        return compilationTime;
+    }
+
+    public Histogram getCodeSize() {
+        return codeSize;
+    }
+}
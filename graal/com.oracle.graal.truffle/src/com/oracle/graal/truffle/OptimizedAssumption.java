@@ -26,23 +26,54 @@ import static com.oracle.graal.truffle.TruffleCompilerOptions.*;
 
 import java.lang.ref.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
 import java.util.stream.*;
 
 import com.oracle.graal.api.code.*;
 import com.oracle.graal.debug.*;
+import com.oracle.truffle.api.*;
 import com.oracle.truffle.api.CompilerDirectives.*;
 import com.oracle.truffle.api.impl.*;
 import com.oracle.truffle.api.nodes.*;
 
+/**
+ * An assumption that invalidates the installed code depending on it when it is invalidated. The
+ * dependencies are kept in a lock-free list that is pruned of collected or obsolete installed code
+ * as new code is registered.
+ */
 public final class OptimizedAssumption extends AbstractAssumption {
 
-    private static class Entry {
-        WeakReference<InstalledCode> installedCode;
-        long version;
-        Entry next;
+    private static final class Entry {
+        final WeakReference<InstalledCode> installedCode;
+        final long version;
+        volatile Entry next;
+
+        Entry(InstalledCode installedCode, Entry next) {
+            this.installedCode = new WeakReference<>(installedCode);
+            this.version = installedCode.getVersion();
+            this.next = next;
+        }
+
+        boolean isAlive() {
+            InstalledCode code = installedCode.get();
+            return code != null && code.getVersion() == version;
+        }
     }
 
-    private Entry first;
+    /**
+     * Marks the dependency list of an invalidated assumption.
+     */
+    private static final Entry INVALIDATED = new Entry(new InstalledCode(null), null);
+
+    private static final int MIN_PRUNE_INTERVAL = 16;
+
+    private final AtomicReference<Entry> first = new AtomicReference<>();
+
+    /**
+     * Number of registrations since the dependency list was last pruned.
+     */
+    private final AtomicInteger registrationsSincePrune = new AtomicInteger();
+    private volatile int sizeAfterPrune;
 
     public OptimizedAssumption(String name) {
         super(name);
@@ -56,7 +87,7 @@ public final class OptimizedAssumption extends AbstractAssumption {
     }
 
     @Override
-    public synchronized void invalidate() {
+    public void invalidate() {
         if (isValid) {
             invalidateImpl();
         }
@@ -64,39 +95,138 @@ public final class OptimizedAssumption extends AbstractAssumption {
 
     @TruffleBoundary
     private void invalidateImpl() {
-        boolean invalidatedInstalledCode = false;
-        Entry e = first;
+        Map<InstalledCode, Boolean> dependents = new IdentityHashMap<>();
+        if (detachDependents(dependents)) {
+            invalidateInstalledCode(dependents.keySet());
+        }
+    }
+
+    /**
+     * Invalidates a number of assumptions at once. The installed code depending on any of the
+     * given {@link OptimizedAssumption}s is collected first and then invalidated exactly once,
+     * even if it depends on several of them. Other assumptions are invalidated individually.
+     */
+    @TruffleBoundary
+    public static void invalidateAll(Iterable<? extends Assumption> assumptions) {
+        Map<InstalledCode, Boolean> dependents = new IdentityHashMap<>();
+        boolean invalidated = false;
+        for (Assumption assumption : assumptions) {
+            if (assumption instanceof OptimizedAssumption) {
+                invalidated |= ((OptimizedAssumption) assumption).detachDependents(dependents);
+            } else {
+                assumption.invalidate();
+            }
+        }
+        if (invalidated) {
+            invalidateInstalledCode(dependents.keySet());
+        }
+    }
+
+    /**
+     * Atomically marks this assumption as invalid and adds the installed code still depending on
+     * it to {@code dependents}.
+     *
+     * @return false if this assumption was already invalid
+     */
+    private boolean detachDependents(Map<InstalledCode, Boolean> dependents) {
+        Entry e = first.getAndSet(INVALIDATED);
+        if (e == INVALIDATED) {
+            return false;
+        }
+        isValid = false;
         while (e != null) {
             InstalledCode installedCode = e.installedCode.get();
             if (installedCode != null && installedCode.getVersion() == e.version) {
-                installedCode.invalidate();
-                invalidatedInstalledCode = true;
-                if (TraceTruffleAssumptions.getValue()) {
-                    logInvalidatedInstalledCode(installedCode);
-                }
+                dependents.put(installedCode, Boolean.TRUE);
             }
             e = e.next;
         }
-        first = null;
-        isValid = false;
+        if (TraceTruffleAssumptions.getValue()) {
+            for (InstalledCode installedCode : dependents.keySet()) {
+                logInvalidatedInstalledCode(installedCode);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Invalidates the dependent installed code. The dependent call targets of a runtime are
+     * deoptimized in one batch rather than one VM operation per call target.
+     */
+    private static void invalidateInstalledCode(Collection<InstalledCode> dependents) {
+        List<OptimizedCallTarget> callTargets = new ArrayList<>(dependents.size());
+        for (InstalledCode installedCode : dependents) {
+            if (installedCode instanceof OptimizedCallTarget) {
+                callTargets.add((OptimizedCallTarget) installedCode);
+            } else {
+                installedCode.invalidate();
+            }
+        }
+        if (!callTargets.isEmpty()) {
+            callTargets.get(0).runtime.invalidateInstalledCode(callTargets, null, null);
+        }
 
         if (TraceTruffleAssumptions.getValue()) {
-            if (invalidatedInstalledCode) {
+            if (!dependents.isEmpty()) {
                 logStackTrace();
             }
         }
     }
 
-    public synchronized void registerInstalledCode(InstalledCode installedCode) {
-        if (isValid) {
-            Entry e = new Entry();
-            e.installedCode = new WeakReference<>(installedCode);
-            e.version = installedCode.getVersion();
-            e.next = first;
-            first = e;
-        } else {
-            installedCode.invalidate();
+    public void registerInstalledCode(InstalledCode installedCode) {
+        Entry head;
+        Entry e;
+        do {
+            head = first.get();
+            if (head == INVALIDATED) {
+                installedCode.invalidate();
+                return;
+            }
+            e = new Entry(installedCode, head);
+        } while (!first.compareAndSet(head, e));
+
+        if (registrationsSincePrune.incrementAndGet() > Math.max(MIN_PRUNE_INTERVAL, sizeAfterPrune)) {
+            registrationsSincePrune.set(0);
+            prune(e);
+        }
+    }
+
+    /**
+     * Unlinks the entries of collected or obsolete installed code following {@code start}. The
+     * head of the list is never modified here, so concurrent registrations are not affected. A
+     * concurrent prune can at worst keep a dead entry linked until the next prune; live entries
+     * always stay reachable because links are only ever moved past dead entries.
+     */
+    private void prune(Entry start) {
+        int size = 1;
+        Entry prev = start;
+        Entry e = prev.next;
+        while (e != null) {
+            if (e.isAlive()) {
+                if (prev.next != e) {
+                    prev.next = e;
+                }
+                prev = e;
+                size++;
+            }
+            e = e.next;
+        }
+        prev.next = null;
+        sizeAfterPrune = size;
+    }
+
+    /**
+     * Returns the number of entries in the dependency list, including entries of collected or
+     * obsolete installed code that have not been pruned yet.
+     */
+    public int getDependencyCount() {
+        int count = 0;
+        Entry e = first.get();
+        while (e != null && e != INVALIDATED) {
+            count++;
+            e = e.next;
         }
+        return count;
     }
 
     @Override
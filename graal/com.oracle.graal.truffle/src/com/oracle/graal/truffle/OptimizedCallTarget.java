@@ -36,6 +36,7 @@ import com.oracle.graal.debug.*;
 import com.oracle.graal.truffle.debug.*;
 import com.oracle.truffle.api.*;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.frame.*;
 import com.oracle.truffle.api.nodes.*;
 import com.oracle.truffle.api.nodes.Node;
@@ -46,6 +47,17 @@ import com.oracle.truffle.api.utilities.*;
  */
 public class OptimizedCallTarget extends InstalledCode implements RootCallTarget, LoopCountReceiver, ReplaceObserver {
 
+    /**
+     * Quick compilation without inlining and with a reduced phase suite. Used with
+     * {@link TruffleCompilerOptions#TruffleTieredCompilation} only.
+     */
+    public static final int FIRST_TIER = 1;
+
+    /**
+     * Fully optimizing compilation.
+     */
+    public static final int LAST_TIER = 2;
+
     protected static final PrintStream OUT = TTY.out().out();
 
     protected final GraalTruffleRuntime runtime;
@@ -68,6 +80,20 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
     private TruffleStamp argumentStamp = DefaultTruffleStamp.getInstance();
 
     private TruffleInlining inlining;
+    private boolean splitCompiledEagerly;
+
+    /**
+     * The tier of the current or most recent compilation. Partial evaluation folds this field, so
+     * first tier code keeps counting its calls while last tier code does not.
+     */
+    @CompilationFinal private int compilationTier = LAST_TIER;
+
+    /**
+     * The tier of the code currently installed for this call target or 0 if no code was installed
+     * yet. Only advanced once the code of a compilation is installed, so that a last tier request
+     * that was dropped or failed is issued again by the first tier code.
+     */
+    private volatile int installedTier;
 
     /**
      * When this call target is inlined, the inlining {@link InstalledCode} registers this
@@ -90,7 +116,9 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
         this.rootNode.adoptChildren();
         this.rootNode.setCallTarget(this);
         this.uninitializedRootNode = sourceCallTarget == null ? cloneRootNode(rootNode) : sourceCallTarget.uninitializedRootNode;
-        if (TruffleCallTargetProfiling.getValue()) {
+        if (TruffleCallTargetProfilingMBean.getValue()) {
+            this.compilationProfile = new MonitoredCompilationProfile();
+        } else if (TruffleCallTargetProfiling.getValue()) {
             this.compilationProfile = new TraceCompilationProfile();
         } else {
             this.compilationProfile = new CompilationProfile();
@@ -254,6 +282,10 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
             }
         }
 
+        if (CompilerDirectives.inCompiledCode() && compilationTier == FIRST_TIER) {
+            firstTierCall();
+        }
+
         VirtualFrame frame = createFrame(getRootNode().getFrameDescriptor(), args);
         Object result = callProxy(frame);
 
@@ -283,6 +315,19 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
     protected void invalidate(Node source, CharSequence reason) {
         if (isValid()) {
             this.runtime.invalidateInstalledCode(this, source, reason);
+            invalidated(source, reason);
+        }
+    }
+
+    /**
+     * Updates the tier and the compilation policy after the installed code of this call target was
+     * invalidated.
+     */
+    void invalidated(Object source, CharSequence reason) {
+        installedTier = 0;
+        CharSequence decision = compilationPolicy.recordInvalidation(compilationProfile, source, reason);
+        if (decision != null) {
+            runtime.getCompilationNotify().notifyCompilationBackoff(this, source, decision, compilationPolicy.isCompilationDisabled());
         }
     }
 
@@ -305,18 +350,75 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
             this.runtime.reinstallStubs();
         } else {
             compilationProfile.reportInterpreterCall();
-            if (compilationPolicy.shouldCompile(compilationProfile)) {
+            if (TruffleTieredCompilation.getValue()) {
+                if (compilationPolicy.shouldCompileFirstTier(compilationProfile)) {
+                    compile(FIRST_TIER);
+                }
+            } else if (compilationPolicy.shouldCompile(compilationProfile) || shouldCompileSplitEagerly()) {
                 compile();
             }
         }
     }
 
+    /**
+     * Determines if a split copy of a compiled call target should be compiled before it reaches the
+     * regular compilation threshold. Most of its inlined graphs can be reused from the compilation
+     * of the source call target, which makes the compilation cheap. Only the first compilation of a
+     * split copy is done eagerly.
+     */
+    private boolean shouldCompileSplitEagerly() {
+        int threshold = TruffleSplitEagerCompilationThreshold.getValue();
+        if (threshold <= 0 || sourceCallTarget == null || splitCompiledEagerly || !sourceCallTarget.isValid() || compilationPolicy.isCompilationDisabled()) {
+            return false;
+        }
+        if (compilationProfile.getInterpreterCallAndLoopCount() < threshold) {
+            return false;
+        }
+        splitCompiledEagerly = true;
+        return true;
+    }
+
+    @TruffleBoundary
+    private void firstTierCall() {
+        compilationProfile.reportFirstTierCall();
+        if (installedTier == FIRST_TIER && compilationPolicy.shouldCompileLastTier(compilationProfile)) {
+            compile(LAST_TIER);
+        }
+    }
+
     public void compile() {
+        compile(LAST_TIER);
+    }
+
+    public void compile(int tier) {
         if (!runtime.isCompiling(this)) {
+            compilationTier = tier;
             runtime.compile(this, TruffleBackgroundCompilation.getValue() && !TruffleCompilationExceptionsAreThrown.getValue());
         }
     }
 
+    /**
+     * Returns the tier of the current or most recent compilation of this call target.
+     */
+    public int getCompilationTier() {
+        return compilationTier;
+    }
+
+    /**
+     * Returns the tier of the code currently installed for this call target or 0 if none was
+     * installed yet.
+     */
+    public int getInstalledTier() {
+        return installedTier;
+    }
+
+    /**
+     * Called by the compiler once the code of a compilation of the given tier was installed.
+     */
+    public void notifyCodeInstalled(int tier) {
+        installedTier = tier;
+    }
+
     public void notifyCompilationFailed(Throwable t) {
         if (!(t instanceof BailoutException) || ((BailoutException) t).isPermanent()) {
             compilationPolicy.recordCompilationFailure(t);
@@ -460,6 +562,9 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
         Map<String, Object> properties = new LinkedHashMap<>();
         AbstractDebugCompilationListener.addASTSizeProperty(this, properties);
         properties.putAll(getCompilationProfile().getDebugProperties());
+        if (TruffleTieredCompilation.getValue()) {
+            properties.put("Tier", compilationTier);
+        }
         return properties;
     }
 
@@ -26,6 +26,7 @@ import static com.oracle.graal.compiler.common.GraalOptions.*;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import com.oracle.graal.api.code.*;
 import com.oracle.graal.api.meta.*;
@@ -43,6 +44,8 @@ import com.oracle.graal.nodes.java.*;
 import com.oracle.graal.nodes.spi.*;
 import com.oracle.graal.nodes.util.*;
 import com.oracle.graal.nodes.virtual.*;
+import com.oracle.graal.options.*;
+import com.oracle.graal.options.OptionValue.OverrideScope;
 import com.oracle.graal.phases.*;
 import com.oracle.graal.phases.common.*;
 import com.oracle.graal.phases.common.CanonicalizerPhase.CustomCanonicalizer;
@@ -65,13 +68,15 @@ import com.oracle.truffle.api.nodes.*;
  */
 public class PartialEvaluator {
 
+    private static final DebugMetric metricSplitGraphReuse = Debug.metric("TruffleSplitGraphReuse");
+
     private final Providers providers;
     private final CanonicalizerPhase canonicalizer;
-    private Set<JavaConstant> constantReceivers;
     private final TruffleCache truffleCache;
     private final SnippetReflectionProvider snippetReflection;
     private final ResolvedJavaMethod callDirectMethod;
     private final ResolvedJavaMethod callSiteProxyMethod;
+    private final Map<OptimizedCallTarget, SplitGraphCache> splitGraphCaches = Collections.synchronizedMap(new WeakHashMap<>());
 
     public PartialEvaluator(Providers providers, TruffleCache truffleCache) {
         this.providers = providers;
@@ -84,6 +89,17 @@ public class PartialEvaluator {
     }
 
     public StructuredGraph createGraph(final OptimizedCallTarget callTarget, final Assumptions assumptions) {
+        return createGraph(callTarget, assumptions, null);
+    }
+
+    /**
+     * Creates the partially evaluated graph of a call target.
+     *
+     * @param phaseTimes if non-null, the time in nanoseconds spent in each phase of the partial
+     *            evaluation is added to this map in the order the phases are executed
+     */
+    public StructuredGraph createGraph(final OptimizedCallTarget callTarget, final Assumptions assumptions, final Map<String, Long> phaseTimes) {
+        Set<JavaConstant> constantReceivers = null;
         if (TraceTruffleCompilationHistogram.getValue() || TraceTruffleCompilationDetails.getValue()) {
             constantReceivers = new HashSet<>();
         }
@@ -97,6 +113,8 @@ public class PartialEvaluator {
         assert graph != null : "no graph for root method";
 
         try (Scope s = Debug.scope("CreateGraph", graph); Indent indent = Debug.logAndIndent("createGraph %s", graph)) {
+            long time = System.nanoTime();
+
             // Canonicalize / constant propagate.
             PhaseContext baseContext = new PhaseContext(providers, assumptions);
 
@@ -109,17 +127,23 @@ public class PartialEvaluator {
                 expansionLogger = new TruffleExpansionLogger(providers, graph);
             }
 
-            expandTree(graph, assumptions, expansionLogger);
+            expandTree(graph, assumptions, expansionLogger, constantReceivers);
+            time = recordPhase(phaseTimes, "ExpandTree", time);
 
             TruffleInliningCache inliningCache = null;
-            if (TruffleFunctionInlining.getValue()) {
+            if (callTarget.getCompilationTier() == OptimizedCallTarget.FIRST_TIER) {
+                // The first tier does not inline call targets.
+                callTarget.setInlining(null);
+            } else if (TruffleFunctionInlining.getValue()) {
                 callTarget.setInlining(new TruffleInlining(callTarget, new DefaultInliningPolicy()));
                 if (TruffleFunctionInliningCache.getValue()) {
-                    inliningCache = new TruffleInliningCache();
+                    inliningCache = new TruffleInliningCache(getSplitGraphCache(callTarget));
                 }
             }
+            time = recordPhase(phaseTimes, "InliningDecision", time);
 
-            expandDirectCalls(graph, assumptions, expansionLogger, callTarget.getInlining(), inliningCache);
+            expandDirectCalls(graph, assumptions, expansionLogger, constantReceivers, callTarget.getInlining(), inliningCache);
+            time = recordPhase(phaseTimes, "ExpandDirectCalls", time);
 
             if (Thread.currentThread().isInterrupted()) {
                 return null;
@@ -128,10 +152,12 @@ public class PartialEvaluator {
             new VerifyFrameDoesNotEscapePhase().apply(graph, false);
 
             if (TraceTruffleCompilationHistogram.getValue() && constantReceivers != null) {
-                createHistogram();
+                createHistogram(constantReceivers);
             }
 
             canonicalizer.apply(graph, baseContext);
+            time = recordPhase(phaseTimes, "Canonicalizer", time);
+
             Map<ResolvedJavaMethod, StructuredGraph> graphCache = null;
             if (CacheGraphs.getValue()) {
                 graphCache = new HashMap<>();
@@ -146,7 +172,7 @@ public class PartialEvaluator {
             }
 
             // to make frame propagations visible retry expandTree
-            while (expandTree(graph, assumptions, expansionLogger)) {
+            while (expandTree(graph, assumptions, expansionLogger, constantReceivers)) {
                 try (Scope pe = Debug.scope("TrufflePartialEscape", graph)) {
                     new PartialEscapePhase(true, canonicalizer).apply(graph, tierContext);
                 } catch (Throwable t) {
@@ -154,6 +180,8 @@ public class PartialEvaluator {
                 }
             }
 
+            time = recordPhase(phaseTimes, "PartialEscape", time);
+
             if (expansionLogger != null) {
                 expansionLogger.print(callTarget);
             }
@@ -180,6 +208,11 @@ public class PartialEvaluator {
                     }
                 }
             }
+            recordPhase(phaseTimes, "Verification", time);
+
+            if (inliningCache != null) {
+                inliningCache.publish();
+            }
 
         } catch (Throwable e) {
             throw Debug.handle(e);
@@ -188,6 +221,14 @@ public class PartialEvaluator {
         return graph;
     }
 
+    private static long recordPhase(Map<String, Long> phaseTimes, String phase, long start) {
+        long now = System.nanoTime();
+        if (phaseTimes != null) {
+            phaseTimes.merge(phase, now - start, Long::sum);
+        }
+        return now;
+    }
+
     private void injectConstantCallTarget(final StructuredGraph graph, final OptimizedCallTarget constantCallTarget, PhaseContext baseContext) {
         ParameterNode thisNode = graph.getParameter(0);
 
@@ -203,7 +244,7 @@ public class PartialEvaluator {
         new IncrementalCanonicalizerPhase<>(canonicalizer, new ReplaceIntrinsicsPhase(providers.getReplacements())).apply(graph, baseContext);
     }
 
-    private void createHistogram() {
+    private void createHistogram(Set<JavaConstant> constantReceivers) {
         DebugHistogram histogram = Debug.createHistogram("Expanded Truffle Nodes");
         for (JavaConstant c : constantReceivers) {
             String javaName = providers.getMetaAccess().lookupJavaType(c).toJavaName(false);
@@ -220,7 +261,11 @@ public class PartialEvaluator {
         new DebugHistogramAsciiPrinter(TTY.out().out()).print(histogram);
     }
 
-    private boolean expandTree(StructuredGraph graph, Assumptions assumptions, TruffleExpansionLogger expansionLogger) {
+    /**
+     * @param constantReceivers if non-null, the constant receivers of the expanded methods are
+     *            added to this set
+     */
+    private boolean expandTree(StructuredGraph graph, Assumptions assumptions, TruffleExpansionLogger expansionLogger, Set<JavaConstant> constantReceivers) {
         PhaseContext phaseContext = new PhaseContext(providers, assumptions);
         boolean changed = false;
         boolean changedInIteration;
@@ -230,7 +275,7 @@ public class PartialEvaluator {
                 InvokeKind kind = methodCallTargetNode.invokeKind();
                 try (Indent id1 = Debug.logAndIndent("try inlining %s, kind = %s", methodCallTargetNode.targetMethod(), kind)) {
                     if (kind == InvokeKind.Static || kind == InvokeKind.Special) {
-                        if ((TraceTruffleCompilationHistogram.getValue() || TraceTruffleCompilationDetails.getValue()) && kind == InvokeKind.Special && methodCallTargetNode.receiver().isConstant()) {
+                        if (constantReceivers != null && kind == InvokeKind.Special && methodCallTargetNode.receiver().isConstant()) {
                             constantReceivers.add(methodCallTargetNode.receiver().asJavaConstant());
                         }
 
@@ -337,21 +382,71 @@ public class PartialEvaluator {
         }
     }
 
-    private void expandDirectCalls(StructuredGraph graph, Assumptions assumptions, TruffleExpansionLogger expansionLogger, TruffleInlining inlining, TruffleInliningCache inliningCache) {
+    private void expandDirectCalls(StructuredGraph graph, Assumptions assumptions, TruffleExpansionLogger expansionLogger, Set<JavaConstant> constantReceivers, TruffleInlining inlining,
+                    TruffleInliningCache inliningCache) {
         PhaseContext phaseContext = new PhaseContext(providers, assumptions);
+        Map<TruffleInliningDecision, StructuredGraph> inlineGraphs = createInlineGraphsInParallel(graph, assumptions, expansionLogger, constantReceivers, inlining, inliningCache);
 
         for (MethodCallTargetNode methodCallTargetNode : graph.getNodes(MethodCallTargetNode.class).snapshot()) {
-            StructuredGraph inlineGraph = parseDirectCallGraph(phaseContext, assumptions, inlining, inliningCache, methodCallTargetNode);
+            StructuredGraph inlineGraph = parseDirectCallGraph(phaseContext, assumptions, constantReceivers, inlining, inliningCache, inlineGraphs, methodCallTargetNode);
 
             if (inlineGraph != null) {
                 expandTreeInline(graph, phaseContext, expansionLogger, methodCallTargetNode, inlineGraph);
             }
         }
         // non inlined direct calls need to be expanded until TruffleCallBoundary.
-        expandTree(graph, assumptions, expansionLogger);
+        expandTree(graph, assumptions, expansionLogger, constantReceivers);
         assert noDirectCallsLeft(graph);
     }
 
+    /**
+     * Builds the graphs of the call targets inlined directly into {@code graph} on the partial
+     * evaluation pool. The subtrees of the {@link TruffleInlining} decision tree are independent of
+     * each other, so each of them is expanded and canonicalized by its own task that records into
+     * its own {@link Assumptions} and constant receivers. Nested subtrees are forked from within
+     * these tasks. The option overrides of the current thread are applied to each task. The graphs
+     * are spliced into {@code graph} by the caller on the current thread.
+     *
+     * @return the graphs by inlining decision, or null if the graphs should be built sequentially
+     */
+    private Map<TruffleInliningDecision, StructuredGraph> createInlineGraphsInParallel(StructuredGraph graph, Assumptions assumptions, TruffleExpansionLogger expansionLogger,
+                    Set<JavaConstant> constantReceivers, TruffleInlining inlining, TruffleInliningCache inliningCache) {
+        // The expansion logger and debug scopes are not thread-safe.
+        if (inlining == null || TrufflePartialEvaluationThreads.getValue() <= 1 || expansionLogger != null || Debug.isEnabled()) {
+            return null;
+        }
+        List<InlineGraphTask> tasks = new ArrayList<>();
+        Set<TruffleInliningDecision> scheduled = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<OptionValue<?>, Object> optionOverrides = OptionValue.getOverrides();
+        for (MethodCallTargetNode methodCallTargetNode : graph.getNodes(MethodCallTargetNode.class)) {
+            OptimizedDirectCallNode callNode = resolveConstantCallNode(methodCallTargetNode);
+            TruffleInliningDecision decision = callNode == null ? null : inlining.findByCall(callNode);
+            if (decision != null && decision.isInline() && decision.getTarget() == decision.getProfile().getCallNode().getCurrentCallTarget() && scheduled.add(decision)) {
+                tasks.add(new InlineGraphTask(decision, inliningCache, new Assumptions(assumptions.useOptimisticAssumptions()), constantReceivers == null ? null : new HashSet<>(), optionOverrides));
+            }
+        }
+        if (tasks.size() < 2) {
+            return null;
+        }
+
+        for (InlineGraphTask task : tasks) {
+            if (ForkJoinTask.inForkJoinPool()) {
+                task.fork();
+            } else {
+                PartialEvaluationPool.INSTANCE.execute(task);
+            }
+        }
+        Map<TruffleInliningDecision, StructuredGraph> inlineGraphs = new IdentityHashMap<>();
+        for (InlineGraphTask task : tasks) {
+            inlineGraphs.put(task.decision, task.join());
+            assumptions.record(task.assumptions);
+            if (constantReceivers != null) {
+                constantReceivers.addAll(task.constantReceivers);
+            }
+        }
+        return inlineGraphs;
+    }
+
     private boolean noDirectCallsLeft(StructuredGraph graph) {
         for (MethodCallTargetNode methodCallTargetNode : graph.getNodes(MethodCallTargetNode.class).snapshot()) {
             if (methodCallTargetNode.targetMethod().equals(callDirectMethod)) {
@@ -361,15 +456,15 @@ public class PartialEvaluator {
         return true;
     }
 
-    private StructuredGraph parseDirectCallGraph(PhaseContext phaseContext, Assumptions assumptions, TruffleInlining inlining, TruffleInliningCache inliningCache,
-                    MethodCallTargetNode methodCallTargetNode) {
+    private StructuredGraph parseDirectCallGraph(PhaseContext phaseContext, Assumptions assumptions, Set<JavaConstant> constantReceivers, TruffleInlining inlining,
+                    TruffleInliningCache inliningCache, Map<TruffleInliningDecision, StructuredGraph> inlineGraphs, MethodCallTargetNode methodCallTargetNode) {
         OptimizedDirectCallNode callNode = resolveConstantCallNode(methodCallTargetNode);
         if (callNode == null) {
             return null;
         }
 
-        TruffleInliningDecision decision = inlining.findByCall(callNode);
-        if (decision == null) {
+        TruffleInliningDecision decision = inlining == null ? null : inlining.findByCall(callNode);
+        if (decision == null && inlining != null) {
             if (TruffleCompilerOptions.TraceTrufflePerformanceWarnings.getValue()) {
                 Map<String, Object> properties = new LinkedHashMap<>();
                 properties.put("callNode", callNode);
@@ -389,10 +484,13 @@ public class PartialEvaluator {
 
         StructuredGraph graph;
         if (decision != null && decision.isInline()) {
-            if (inliningCache == null) {
-                graph = createInlineGraph(phaseContext, assumptions, null, decision);
-            } else {
-                graph = inliningCache.getCachedGraph(phaseContext, assumptions, decision);
+            graph = inlineGraphs == null ? null : inlineGraphs.get(decision);
+            if (graph == null) {
+                if (inliningCache == null) {
+                    graph = createInlineGraph(phaseContext, assumptions, constantReceivers, null, decision);
+                } else {
+                    graph = inliningCache.getCachedGraph(assumptions, constantReceivers, decision);
+                }
             }
             decision.getProfile().setGraalDeepNodeCount(graph.getNodeCount());
 
@@ -445,7 +543,7 @@ public class PartialEvaluator {
         return (OptimizedDirectCallNode) value;
     }
 
-    private StructuredGraph createInlineGraph(PhaseContext phaseContext, Assumptions assumptions, TruffleInliningCache cache, TruffleInliningDecision decision) {
+    private StructuredGraph createInlineGraph(PhaseContext phaseContext, Assumptions assumptions, Set<JavaConstant> constantReceivers, TruffleInliningCache cache, TruffleInliningDecision decision) {
         try (Scope s = Debug.scope("GuestLanguageInlinedGraph", new DebugDumpScope(decision.getTarget().toString()))) {
             OptimizedCallTarget target = decision.getTarget();
             StructuredGraph inlineGraph = truffleCache.createInlineGraph(target.toString());
@@ -454,8 +552,8 @@ public class PartialEvaluator {
             if (TraceTruffleExpansion.getValue()) {
                 expansionLogger = new TruffleExpansionLogger(providers, inlineGraph);
             }
-            expandTree(inlineGraph, assumptions, expansionLogger);
-            expandDirectCalls(inlineGraph, assumptions, expansionLogger, decision, cache);
+            expandTree(inlineGraph, assumptions, expansionLogger, constantReceivers);
+            expandDirectCalls(inlineGraph, assumptions, expansionLogger, constantReceivers, decision, cache);
 
             if (expansionLogger != null) {
                 expansionLogger.print(target);
@@ -478,51 +576,230 @@ public class PartialEvaluator {
         return sortedLoops;
     }
 
-    private final class TruffleInliningCache {
+    /**
+     * Pool of the threads that build inlined graphs in parallel. It is shared by all compilations.
+     */
+    private static final class PartialEvaluationPool {
+
+        static final ForkJoinPool INSTANCE = new ForkJoinPool(TrufflePartialEvaluationThreads.getValue(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("TrufflePartialEvaluator-" + thread.getPoolIndex());
+            thread.setContextClassLoader(PartialEvaluator.class.getClassLoader());
+            return thread;
+        }, null, false);
+    }
+
+    private final class InlineGraphTask extends RecursiveTask<StructuredGraph> {
 
-        private final Map<CacheKey, StructuredGraph> cache;
+        private static final long serialVersionUID = 6290432462766316546L;
 
-        public TruffleInliningCache() {
-            this.cache = new HashMap<>();
+        final TruffleInliningDecision decision;
+        final TruffleInliningCache inliningCache;
+        final Assumptions assumptions;
+        final Set<JavaConstant> constantReceivers;
+        final Map<OptionValue<?>, Object> optionOverrides;
+
+        InlineGraphTask(TruffleInliningDecision decision, TruffleInliningCache inliningCache, Assumptions assumptions, Set<JavaConstant> constantReceivers,
+                        Map<OptionValue<?>, Object> optionOverrides) {
+            this.decision = decision;
+            this.inliningCache = inliningCache;
+            this.assumptions = assumptions;
+            this.constantReceivers = constantReceivers;
+            this.optionOverrides = optionOverrides;
         }
 
-        public StructuredGraph getCachedGraph(PhaseContext phaseContext, Assumptions assumptions, TruffleInliningDecision decision) {
-            CacheKey cacheKey = new CacheKey(decision);
-            StructuredGraph inlineGraph = cache.get(cacheKey);
-            if (inlineGraph == null) {
-                inlineGraph = createInlineGraph(phaseContext, assumptions, this, decision);
-                cache.put(cacheKey, inlineGraph);
+        @Override
+        protected StructuredGraph compute() {
+            try (OverrideScope s = OptionValue.override(optionOverrides)) {
+                if (inliningCache == null) {
+                    return createInlineGraph(new PhaseContext(providers, assumptions), assumptions, constantReceivers, null, decision);
+                }
+                return inliningCache.getCachedGraph(assumptions, constantReceivers, decision);
             }
-            return inlineGraph;
         }
+    }
 
-        private final class CacheKey {
+    /**
+     * An inlined graph together with the assumptions recorded while it was built.
+     */
+    private static final class CachedInlineGraph {
 
-            public final TruffleInliningDecision decision;
+        final StructuredGraph graph;
+        final Assumptions assumptions;
 
-            public CacheKey(TruffleInliningDecision decision) {
-                this.decision = decision;
-                /*
-                 * If decision.isInline() is not true CacheKey#hashCode does not match
-                 * CacheKey#equals
-                 */
-                assert decision.isInline();
+        /**
+         * The Truffle assumptions the graph was built under: the node rewriting assumption of the
+         * inlined call target as it was before the graph was built, which acts as the version of
+         * its AST, and the Truffle assumptions recorded while building the graph. The latter
+         * include the node rewriting assumptions of the call targets inlined into the graph.
+         */
+        private final OptimizedAssumption[] truffleAssumptions;
+
+        CachedInlineGraph(StructuredGraph graph, Assumptions assumptions, OptimizedAssumption astVersion) {
+            this.graph = graph;
+            this.assumptions = assumptions;
+            List<OptimizedAssumption> recorded = new ArrayList<>();
+            recorded.add(astVersion);
+            for (Assumptions.Assumption assumption : assumptions.getAssumptions()) {
+                if (assumption instanceof AssumptionValidAssumption) {
+                    recorded.add(((AssumptionValidAssumption) assumption).getAssumption());
+                }
             }
+            this.truffleAssumptions = recorded.toArray(new OptimizedAssumption[recorded.size()]);
+        }
 
-            @Override
-            public int hashCode() {
-                return decision.getTarget().hashCode();
+        /**
+         * A graph may only be reused as long as none of the ASTs it was built from were rewritten
+         * and all Truffle assumptions it was built under still hold.
+         */
+        boolean isReusable() {
+            for (OptimizedAssumption assumption : truffleAssumptions) {
+                if (!assumption.isValid()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Inlined graphs shared by the compilations of a call target and its split copies. Split copies
+     * usually inline the same callees as their source call target, so their graphs only need to be
+     * built once.
+     * <p>
+     * The graphs fold {@link CompilerDirectives.CompilationFinal} profiling state of the inlined
+     * ASTs, such as whether a branch profile was visited. Compiled code changes that state with
+     * {@link CompilerDirectives#transferToInterpreterAndInvalidate()} without rewriting a node, so
+     * the assumptions of a graph do not notice it. Such a transfer is always followed by a
+     * recompilation of the call target that deoptimized, so all graphs are dropped when a member of
+     * the split family is compiled again. Until then, the other members may still reuse the old
+     * graphs and deoptimize at the same place, which is why
+     * {@link TruffleCompilerOptions#TruffleSplittingGraphReuse} is off by default.
+     */
+    private static final class SplitGraphCache {
+
+        private final Map<CacheKey, CachedInlineGraph> graphs = new HashMap<>();
+        private final Map<OptimizedCallTarget, Boolean> compiledTargets = new WeakHashMap<>();
+
+        /**
+         * Records the start of a compilation of a member of the split family and drops all graphs
+         * if the member was compiled before.
+         */
+        synchronized void beginCompilation(OptimizedCallTarget callTarget) {
+            if (compiledTargets.put(callTarget, Boolean.TRUE) != null) {
+                graphs.clear();
+                compiledTargets.clear();
+                compiledTargets.put(callTarget, Boolean.TRUE);
             }
+        }
 
-            @Override
-            public boolean equals(Object obj) {
-                if (!(obj instanceof CacheKey)) {
-                    return false;
+        synchronized CachedInlineGraph lookup(CacheKey key) {
+            CachedInlineGraph cached = graphs.get(key);
+            if (cached != null && !cached.isReusable()) {
+                graphs.remove(key);
+                return null;
+            }
+            return cached;
+        }
+
+        /**
+         * Adds the graphs of a compilation and drops the graphs that cannot be reused anymore, so
+         * that the cache only holds graphs that are still valid.
+         */
+        synchronized void publish(Map<CacheKey, CachedInlineGraph> compilationGraphs) {
+            graphs.values().removeIf(cached -> !cached.isReusable());
+            for (Map.Entry<CacheKey, CachedInlineGraph> entry : compilationGraphs.entrySet()) {
+                if (entry.getValue().isReusable()) {
+                    graphs.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    private SplitGraphCache getSplitGraphCache(OptimizedCallTarget callTarget) {
+        OptimizedCallTarget source = callTarget.getSourceCallTarget() != null ? callTarget.getSourceCallTarget() : callTarget;
+        if (!TruffleSplittingGraphReuse.getValue() || source.getCloneIndex() == 0) {
+            // only keep graphs of call targets that were actually split
+            return null;
+        }
+        SplitGraphCache cache = splitGraphCaches.computeIfAbsent(source, s -> new SplitGraphCache());
+        cache.beginCompilation(callTarget);
+        return cache;
+    }
+
+    private final class TruffleInliningCache {
+
+        private final ConcurrentMap<CacheKey, CachedInlineGraph> cache;
+        private final SplitGraphCache splitGraphCache;
+
+        public TruffleInliningCache(SplitGraphCache splitGraphCache) {
+            this.cache = new ConcurrentHashMap<>();
+            this.splitGraphCache = splitGraphCache;
+        }
+
+        /**
+         * Returns the cached graph of an inlining decision and records the assumptions of the
+         * graph. The cache may be accessed by several partial evaluation threads, in which case a
+         * graph may be built more than once but only one of them is cached.
+         */
+        public StructuredGraph getCachedGraph(Assumptions assumptions, Set<JavaConstant> constantReceivers, TruffleInliningDecision decision) {
+            CacheKey cacheKey = new CacheKey(decision);
+            CachedInlineGraph cached = cache.get(cacheKey);
+            if (cached == null) {
+                cached = splitGraphCache == null ? null : splitGraphCache.lookup(cacheKey);
+                if (cached != null) {
+                    metricSplitGraphReuse.increment();
+                } else {
+                    // Read the AST version before building so that a concurrent rewrite is noticed.
+                    OptimizedAssumption astVersion = (OptimizedAssumption) decision.getTarget().getNodeRewritingAssumption();
+                    Assumptions inlineAssumptions = new Assumptions(assumptions.useOptimisticAssumptions());
+                    StructuredGraph inlineGraph = createInlineGraph(new PhaseContext(providers, inlineAssumptions), inlineAssumptions, constantReceivers, this, decision);
+                    cached = new CachedInlineGraph(inlineGraph, inlineAssumptions, astVersion);
+                }
+                CachedInlineGraph existing = cache.putIfAbsent(cacheKey, cached);
+                if (existing != null) {
+                    cached = existing;
                 }
-                CacheKey other = (CacheKey) obj;
-                return decision.isSameAs(other.decision);
+            }
+            assumptions.record(cached.assumptions);
+            return cached.graph;
+        }
+
+        /**
+         * Makes the graphs used by the compilation of a call target available to the compilations
+         * of the other call targets of its split family.
+         */
+        public void publish() {
+            if (splitGraphCache != null) {
+                splitGraphCache.publish(cache);
             }
         }
     }
 
+    private static final class CacheKey {
+
+        public final TruffleInliningDecision decision;
+
+        public CacheKey(TruffleInliningDecision decision) {
+            this.decision = decision;
+            /*
+             * If decision.isInline() is not true CacheKey#hashCode does not match CacheKey#equals
+             */
+            assert decision.isInline();
+        }
+
+        @Override
+        public int hashCode() {
+            return decision.getTarget().hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return decision.isSameAs(other.decision);
+        }
+    }
 }
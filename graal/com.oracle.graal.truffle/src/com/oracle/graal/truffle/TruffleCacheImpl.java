@@ -22,11 +22,13 @@
  */
 package com.oracle.graal.truffle;
 
+import java.io.*;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.concurrent.*;
 
 import com.oracle.graal.api.code.*;
 import com.oracle.graal.api.meta.*;
+import com.oracle.graal.compiler.common.type.*;
 import com.oracle.graal.debug.*;
 import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.graph.Graph.Mark;
@@ -51,19 +53,98 @@ import com.oracle.truffle.api.*;
 import com.oracle.truffle.api.nodes.*;
 
 /**
- * Implementation of a cache for Truffle graphs for improving partial evaluation time.
+ * Implementation of a cache for Truffle graphs for improving partial evaluation time. The cache can
+ * be shared by multiple compiler threads: it is bounded by {@link TruffleCompilerOptions#TruffleMaxCompilationCacheSize}
+ * and evicts the least recently used graph in constant time.
  */
 public class TruffleCacheImpl implements TruffleCache {
 
+    private static final DebugMetric metricCacheHits = Debug.metric("TruffleCacheHits");
+    private static final DebugMetric metricCacheMisses = Debug.metric("TruffleCacheMisses");
+    private static final DebugMetric metricCacheEvictions = Debug.metric("TruffleCacheEvictions");
+
+    /**
+     * Key of a cached graph: the method plus the stamps of its object arguments.
+     */
+    private static final class CacheKey {
+
+        private final ResolvedJavaMethod method;
+        private final Stamp[] stamps;
+        private final int hash;
+
+        CacheKey(ResolvedJavaMethod method, Stamp[] stamps) {
+            this.method = method;
+            this.stamps = stamps;
+            this.hash = method.hashCode() * 31 + Arrays.hashCode(stamps);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof CacheKey) {
+                CacheKey other = (CacheKey) obj;
+                return hash == other.hash && method.equals(other.method) && Arrays.equals(stamps, other.stamps);
+            }
+            return false;
+        }
+    }
+
     private final Providers providers;
     private final GraphBuilderConfiguration config;
     private final GraphBuilderConfiguration configForRoot;
     private final OptimisticOptimizations optimisticOptimizations;
 
-    private final HashMap<List<Object>, StructuredGraph> cache = new HashMap<>();
-    private final HashMap<List<Object>, Long> lastUsed = new HashMap<>();
+    private final Map<CacheKey, StructuredGraph> cache = Collections.synchronizedMap(new LinkedHashMap<CacheKey, StructuredGraph>(16, 0.75f, true) {
+        private static final long serialVersionUID = -6046262036427568837L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, StructuredGraph> eldest) {
+            if (size() > TruffleCompilerOptions.TruffleMaxCompilationCacheSize.getValue()) {
+                metricCacheEvictions.increment();
+                return true;
+            }
+            return false;
+        }
+    });
+
+    /**
+     * The keys of the graphs currently being built by the compiler thread. Used to detect
+     * recursive calls without blocking other compiler threads building the same graph.
+     */
+    private final ThreadLocal<Set<CacheKey>> inProgress = ThreadLocal.withInitial(HashSet::new);
     private final StructuredGraph markerGraph = new StructuredGraph();
 
+    /**
+     * Loader used to resolve the classes of {@link TruffleCacheSnapshot} entries.
+     */
+    private final ClassLoader snapshotLoader;
+
+    /**
+     * The entries of the {@link TruffleCacheSnapshot} of an earlier run that were not rebuilt yet,
+     * grouped by {@linkplain TruffleCacheSnapshot#getMethodKey method}.
+     */
+    private final Map<String, List<TruffleCacheSnapshot.Entry>> pendingSnapshotEntries = new ConcurrentHashMap<>();
+
+    /**
+     * Rebuilds the other recorded variants of a method in the background once the method was
+     * parsed for the first time, so that the compiler thread does not wait for them. Only created
+     * if a snapshot with entries was read.
+     */
+    private ExecutorService snapshotRebuilder;
+
+    /**
+     * Class file hashes computed by the {@link #snapshotRebuilder}, so that a class with many
+     * cached methods is only hashed once. Only accessed by the rebuilder thread.
+     */
+    private final Map<String, String> snapshotClassHashes = new HashMap<>();
+
     private final ResolvedJavaType stringBuilderClass;
     private final ResolvedJavaType runtimeExceptionClass;
     private final ResolvedJavaType errorClass;
@@ -72,8 +153,6 @@ public class TruffleCacheImpl implements TruffleCache {
     private final ResolvedJavaMethod callRootMethod;
     private final ResolvedJavaMethod callInlinedMethod;
 
-    private long counter;
-
     public TruffleCacheImpl(Providers providers, GraphBuilderConfiguration config, GraphBuilderConfiguration configForRoot, OptimisticOptimizations optimisticOptimizations) {
         this.providers = providers;
         this.config = config;
@@ -91,6 +170,95 @@ public class TruffleCacheImpl implements TruffleCache {
             throw new RuntimeException(ex);
         }
         this.callInlinedMethod = providers.getMetaAccess().lookupJavaMethod(OptimizedCallTarget.getCallInlinedMethod());
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        this.snapshotLoader = loader != null ? loader : ClassLoader.getSystemClassLoader();
+        if (TruffleCompilerOptions.TruffleCacheSnapshotFile.getValue() != null) {
+            File file = new File(TruffleCompilerOptions.TruffleCacheSnapshotFile.getValue());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> writeSnapshot(file)));
+            readSnapshot(file);
+        }
+    }
+
+    /**
+     * Reads the entries of a {@link TruffleCacheSnapshot} file written by an earlier run. No graph
+     * is built here: the entries of a method are only rebuilt once the method is first looked up.
+     */
+    private void readSnapshot(File file) {
+        List<TruffleCacheSnapshot.Entry> entries;
+        try {
+            entries = TruffleCacheSnapshot.read(file, System.getProperty("java.vm.version", ""));
+        } catch (IOException e) {
+            TTY.println("[truffle] cannot read cache snapshot " + file + ": " + e);
+            return;
+        }
+        for (TruffleCacheSnapshot.Entry entry : entries) {
+            pendingSnapshotEntries.computeIfAbsent(entry.getMethodKey(), k -> new ArrayList<>()).add(entry);
+        }
+        if (!entries.isEmpty()) {
+            snapshotRebuilder = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "TruffleCacheSnapshotRebuilder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (TruffleCompilerOptions.TraceTruffleCacheDetails.getValue()) {
+            TTY.println(String.format("[truffle] read %d entries for %d methods from cache snapshot %s.", entries.size(), pendingSnapshotEntries.size(), file));
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot entries of a method that was just parsed. Runs on the
+     * {@link #snapshotRebuilder}. Entries whose classes cannot be loaded or have changed since the
+     * snapshot was written are skipped.
+     */
+    private void rebuildSnapshotEntries(ResolvedJavaMethod method, List<TruffleCacheSnapshot.Entry> entries, CanonicalizerPhase canonicalizer) {
+        TruffleCacheSnapshot.Entry first = entries.get(0);
+        String classHash = snapshotClassHashes.computeIfAbsent(first.className, name -> TruffleCacheSnapshot.computeClassHash(name, snapshotLoader));
+        if (!first.classHash.equals(classHash)) {
+            return;
+        }
+        int loaded = 0;
+        for (TruffleCacheSnapshot.Entry entry : entries) {
+            Stamp[] stamps = entry.resolveStamps(providers.getMetaAccess(), snapshotLoader);
+            if (stamps == null) {
+                continue;
+            }
+            try {
+                if (cacheLookup(new CacheKey(method, stamps), canonicalizer) != null) {
+                    loaded++;
+                }
+            } catch (Throwable e) {
+                // The variant is now marked as failed, just as it would be on a regular lookup.
+            }
+        }
+        if (TruffleCompilerOptions.TraceTruffleCacheDetails.getValue()) {
+            TTY.println(String.format("[truffle] rebuilt %d of %d snapshot graphs of method %s.", loaded, entries.size(), method));
+        }
+    }
+
+    private void writeSnapshot(File file) {
+        List<CacheKey> keys;
+        synchronized (cache) {
+            keys = new ArrayList<>();
+            for (Map.Entry<CacheKey, StructuredGraph> entry : cache.entrySet()) {
+                if (entry.getValue() != markerGraph) {
+                    keys.add(entry.getKey());
+                }
+            }
+        }
+        List<TruffleCacheSnapshot.Entry> entries = new ArrayList<>(keys.size());
+        for (CacheKey key : keys) {
+            TruffleCacheSnapshot.Entry entry = TruffleCacheSnapshot.createEntry(key.method, key.stamps, snapshotLoader);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        try {
+            TruffleCacheSnapshot.write(file, entries, System.getProperty("java.vm.version", ""));
+        } catch (IOException e) {
+            TTY.println("[truffle] cannot write cache snapshot " + file + ": " + e);
+        }
     }
 
     public StructuredGraph createInlineGraph(String name) {
@@ -105,19 +273,25 @@ public class TruffleCacheImpl implements TruffleCache {
         return graph;
     }
 
-    private static List<Object> computeCacheKey(ResolvedJavaMethod method, NodeInputList<ValueNode> arguments) {
-        List<Object> key = new ArrayList<>(arguments.size() + 1);
-        key.add(method);
+    private static CacheKey computeCacheKey(ResolvedJavaMethod method, NodeInputList<ValueNode> arguments) {
+        int count = 0;
         for (ValueNode v : arguments) {
             if (v.getKind() == Kind.Object) {
-                key.add(v.stamp());
+                count++;
             }
         }
-        return key;
+        Stamp[] stamps = new Stamp[count];
+        int i = 0;
+        for (ValueNode v : arguments) {
+            if (v.getKind() == Kind.Object) {
+                stamps[i++] = v.stamp();
+            }
+        }
+        return new CacheKey(method, stamps);
     }
 
     public StructuredGraph lookup(ResolvedJavaMethod method, NodeInputList<ValueNode> arguments, CanonicalizerPhase canonicalizer) {
-        List<Object> key = computeCacheKey(method, arguments);
+        CacheKey key = computeCacheKey(method, arguments);
         StructuredGraph resultGraph = cache.get(key);
         if (resultGraph == markerGraph) {
             // compilation failed previously, don't try again
@@ -132,18 +306,23 @@ public class TruffleCacheImpl implements TruffleCache {
         if (method.getAnnotation(CompilerDirectives.TruffleBoundary.class) != null) {
             return null;
         }
+        return cacheLookup(computeCacheKey(method, arguments), canonicalizer);
+    }
 
-        List<Object> key = computeCacheKey(method, arguments);
+    private StructuredGraph cacheLookup(CacheKey key, CanonicalizerPhase canonicalizer) {
+        ResolvedJavaMethod method = key.method;
+        Set<CacheKey> building = inProgress.get();
+        if (building.contains(key)) {
+            return markerGraph;
+        }
         StructuredGraph resultGraph = cache.get(key);
         if (resultGraph != null) {
-            lastUsed.put(key, counter++);
+            metricCacheHits.increment();
             return resultGraph;
         }
+        metricCacheMisses.increment();
 
-        if (lastUsed.values().size() >= TruffleCompilerOptions.TruffleMaxCompilationCacheSize.getValue()) {
-            lookupExceedsMaxSize();
-        }
-
+        building.add(key);
         try (Scope s = Debug.scope("TruffleCache", providers.getMetaAccess(), method)) {
 
             final PhaseContext phaseContext = new PhaseContext(providers, new Assumptions(false));
@@ -154,13 +333,10 @@ public class TruffleCacheImpl implements TruffleCache {
                 return null;
             }
 
-            lastUsed.put(key, counter++);
-            cache.put(key, markerGraph);
-
+            int[] stampIndices = objectParameterStampIndices(method);
             for (ParameterNode param : graph.getNodes(ParameterNode.class)) {
                 if (param.getKind() == Kind.Object) {
-                    ValueNode actualArgument = arguments.get(param.index());
-                    param.setStamp(param.stamp().join(actualArgument.stamp()));
+                    param.setStamp(param.stamp().join(key.stamps[stampIndices[param.index()]]));
                 }
             }
 
@@ -215,34 +391,43 @@ public class TruffleCacheImpl implements TruffleCache {
             }
 
             cache.put(key, graph);
+            if (!pendingSnapshotEntries.isEmpty()) {
+                List<TruffleCacheSnapshot.Entry> entries = pendingSnapshotEntries.remove(TruffleCacheSnapshot.getMethodKey(method));
+                if (entries != null) {
+                    snapshotRebuilder.execute(() -> rebuildSnapshotEntries(method, entries, canonicalizer));
+                }
+            }
             if (TruffleCompilerOptions.TraceTruffleCacheDetails.getValue()) {
                 TTY.println(String.format("[truffle] added to graph cache method %s with %d nodes.", method, graph.getNodeCount()));
             }
             return graph;
         } catch (Throwable e) {
+            // Remember the failure so that the method is not parsed again.
+            cache.put(key, markerGraph);
             throw Debug.handle(e);
+        } finally {
+            building.remove(key);
         }
     }
 
-    private void lookupExceedsMaxSize() {
-        List<Long> lastUsedList = new ArrayList<>();
-        for (long l : lastUsed.values()) {
-            lastUsedList.add(l);
+    /**
+     * Maps each parameter index of a method to the index of its stamp in a {@link CacheKey}, which
+     * only contains the stamps of object parameters.
+     */
+    private static int[] objectParameterStampIndices(ResolvedJavaMethod method) {
+        Signature signature = method.getSignature();
+        int offset = method.isStatic() ? 0 : 1;
+        int[] indices = new int[signature.getParameterCount(false) + offset];
+        int next = 0;
+        if (offset == 1) {
+            indices[0] = next++;
         }
-        Collections.sort(lastUsedList);
-        long mid = lastUsedList.get(lastUsedList.size() / 2);
-
-        List<List<Object>> toRemoveList = new ArrayList<>();
-        for (Entry<List<Object>, Long> entry : lastUsed.entrySet()) {
-            if (entry.getValue() < mid) {
-                toRemoveList.add(entry.getKey());
+        for (int i = 0; i < signature.getParameterCount(false); i++) {
+            if (signature.getParameterKind(i) == Kind.Object) {
+                indices[i + offset] = next++;
             }
         }
-
-        for (List<Object> entry : toRemoveList) {
-            cache.remove(entry);
-            lastUsed.remove(entry);
-        }
+        return indices;
     }
 
     private Mark lookupProcessMacroSubstitutions(StructuredGraph graph, Mark mark) {
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle;
+
+import java.io.*;
+import java.security.*;
+import java.util.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.compiler.common.type.*;
+import com.oracle.graal.debug.*;
+
+/**
+ * Persistent snapshot of the keys of a {@link TruffleCacheImpl}. Graal graphs reference VM
+ * internal objects and cannot be stored directly, so the snapshot records which methods were
+ * cached for which argument stamps. On the next run the other recorded stamp variants of a method
+ * are rebuilt in the background once the method was parsed for the first time.
+ *
+ * The file starts with a format version and the VM version. Each entry is validated against a
+ * hash of the class file of the method's declaring class, so entries of classes that changed
+ * between runs are ignored.
+ */
+public final class TruffleCacheSnapshot {
+
+    private static final int MAGIC = 0x54434348;
+    private static final int VERSION = 1;
+
+    private static final int STAMP_EXACT = 1;
+    private static final int STAMP_NON_NULL = 2;
+    private static final int STAMP_ALWAYS_NULL = 4;
+
+    /**
+     * A cached method and the stamps of its object arguments in symbolic form.
+     */
+    public static final class Entry {
+
+        final String className;
+        final String methodName;
+        final String signature;
+        final String classHash;
+        final String[] stampTypes;
+        final byte[] stampFlags;
+
+        public Entry(String className, String methodName, String signature, String classHash, String[] stampTypes, byte[] stampFlags) {
+            this.className = className;
+            this.methodName = methodName;
+            this.signature = signature;
+            this.classHash = classHash;
+            this.stampTypes = stampTypes;
+            this.stampFlags = stampFlags;
+        }
+
+        /**
+         * Returns the key under which entries of the same method are grouped.
+         */
+        String getMethodKey() {
+            return className + "." + methodName + signature;
+        }
+
+        @Override
+        public int hashCode() {
+            return getMethodKey().hashCode() * 31 + Arrays.hashCode(stampTypes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof Entry) {
+                Entry other = (Entry) obj;
+                return className.equals(other.className) && methodName.equals(other.methodName) && signature.equals(other.signature) && classHash.equals(other.classHash) &&
+                                Arrays.equals(stampTypes, other.stampTypes) && Arrays.equals(stampFlags, other.stampFlags);
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return getMethodKey() + Arrays.toString(stampTypes);
+        }
+
+        /**
+         * Resolves the argument stamps of this entry or returns null if a type cannot be loaded.
+         */
+        Stamp[] resolveStamps(MetaAccessProvider metaAccess, ClassLoader loader) {
+            Stamp[] stamps = new Stamp[stampTypes.length];
+            for (int i = 0; i < stamps.length; i++) {
+                ResolvedJavaType type = null;
+                if (stampTypes[i] != null) {
+                    Class<?> clazz = loadClass(stampTypes[i], loader);
+                    if (clazz == null) {
+                        return null;
+                    }
+                    type = metaAccess.lookupJavaType(clazz);
+                }
+                int flags = stampFlags[i];
+                stamps[i] = new ObjectStamp(type, (flags & STAMP_EXACT) != 0, (flags & STAMP_NON_NULL) != 0, (flags & STAMP_ALWAYS_NULL) != 0);
+            }
+            return stamps;
+        }
+    }
+
+    private TruffleCacheSnapshot() {
+    }
+
+    /**
+     * Returns the key under which the {@link Entry entries} of a method are grouped.
+     */
+    static String getMethodKey(ResolvedJavaMethod method) {
+        return method.getDeclaringClass().toClassName() + "." + method.getName() + method.getSignature().toMethodDescriptor();
+    }
+
+    /**
+     * Creates a snapshot entry for a cached method or returns null if the method or one of the
+     * stamps cannot be represented symbolically.
+     */
+    static Entry createEntry(ResolvedJavaMethod method, Stamp[] stamps, ClassLoader loader) {
+        String className = method.getDeclaringClass().toClassName();
+        Class<?> clazz = loadClass(className, loader);
+        if (clazz == null) {
+            return null;
+        }
+        String classHash = computeClassHash(clazz);
+        if (classHash == null) {
+            return null;
+        }
+        String[] stampTypes = new String[stamps.length];
+        byte[] stampFlags = new byte[stamps.length];
+        for (int i = 0; i < stamps.length; i++) {
+            if (!(stamps[i] instanceof ObjectStamp)) {
+                return null;
+            }
+            ObjectStamp stamp = (ObjectStamp) stamps[i];
+            stampTypes[i] = stamp.type() == null ? null : stamp.type().toClassName();
+            stampFlags[i] = (byte) ((stamp.isExactType() ? STAMP_EXACT : 0) | (stamp.nonNull() ? STAMP_NON_NULL : 0) | (stamp.alwaysNull() ? STAMP_ALWAYS_NULL : 0));
+        }
+        return new Entry(className, method.getName(), method.getSignature().toMethodDescriptor(), classHash, stampTypes, stampFlags);
+    }
+
+    /**
+     * Writes a snapshot file for the VM version {@code vmVersion}.
+     */
+    public static void write(File file, List<Entry> entries, String vmVersion) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(vmVersion);
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeUTF(entry.className);
+                out.writeUTF(entry.methodName);
+                out.writeUTF(entry.signature);
+                out.writeUTF(entry.classHash);
+                out.writeInt(entry.stampTypes.length);
+                for (int i = 0; i < entry.stampTypes.length; i++) {
+                    out.writeByte(entry.stampFlags[i]);
+                    out.writeBoolean(entry.stampTypes[i] != null);
+                    if (entry.stampTypes[i] != null) {
+                        out.writeUTF(entry.stampTypes[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the entries of a snapshot file. Returns an empty list if the file does not exist or
+     * was written by a different format or for another VM version than {@code vmVersion}.
+     */
+    public static List<Entry> read(File file, String vmVersion) throws IOException {
+        if (!file.isFile()) {
+            return Collections.emptyList();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(vmVersion)) {
+                return Collections.emptyList();
+            }
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String className = in.readUTF();
+                String methodName = in.readUTF();
+                String signature = in.readUTF();
+                String classHash = in.readUTF();
+                int stampCount = in.readInt();
+                String[] stampTypes = new String[stampCount];
+                byte[] stampFlags = new byte[stampCount];
+                for (int j = 0; j < stampCount; j++) {
+                    stampFlags[j] = in.readByte();
+                    stampTypes[j] = in.readBoolean() ? in.readUTF() : null;
+                }
+                entries.add(new Entry(className, methodName, signature, classHash, stampTypes, stampFlags));
+            }
+            return entries;
+        }
+    }
+
+    private static Class<?> loadClass(String name, ClassLoader loader) {
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Computes the hash of the class file of the class named {@code className} or returns null if
+     * the class or its class file is not available.
+     */
+    static String computeClassHash(String className, ClassLoader loader) {
+        Class<?> clazz = loadClass(className, loader);
+        return clazz == null ? null : computeClassHash(clazz);
+    }
+
+    /**
+     * Computes a hex encoded SHA-1 hash of the class file of a class or returns null if the class
+     * file is not available.
+     */
+    static String computeClassHash(Class<?> clazz) {
+        String resource = "/" + clazz.getName().replace('.', '/') + ".class";
+        try (InputStream in = clazz.getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b & 0xFF));
+            }
+            return sb.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            if (TruffleCompilerOptions.TraceTruffleCacheDetails.getValue()) {
+                TTY.println("[truffle] cannot hash class file of " + clazz.getName() + ": " + e);
+            }
+            return null;
+        }
+    }
+}
@@ -24,6 +24,7 @@ package com.oracle.graal.truffle;
 
 import static com.oracle.graal.api.code.CodeUtil.*;
 import static com.oracle.graal.compiler.GraalCompiler.*;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.*;
 
 import java.util.*;
 
@@ -39,14 +40,19 @@ import com.oracle.graal.debug.DebugMemUseTracker.Closeable;
 import com.oracle.graal.debug.internal.*;
 import com.oracle.graal.java.*;
 import com.oracle.graal.lir.asm.*;
+import com.oracle.graal.loop.phases.*;
 import com.oracle.graal.nodes.*;
 import com.oracle.graal.nodes.spi.*;
 import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.common.*;
+import com.oracle.graal.phases.common.cfs.*;
+import com.oracle.graal.phases.common.inlining.*;
 import com.oracle.graal.phases.tiers.*;
 import com.oracle.graal.phases.util.*;
 import com.oracle.graal.printer.*;
 import com.oracle.graal.runtime.*;
 import com.oracle.graal.truffle.nodes.*;
+import com.oracle.graal.virtual.phases.ea.*;
 import com.oracle.truffle.api.*;
 import com.oracle.truffle.api.nodes.*;
 
@@ -57,6 +63,7 @@ public class TruffleCompilerImpl {
 
     private final Providers providers;
     private final Suites suites;
+    private final Suites firstTierSuites;
     private final PartialEvaluator partialEvaluator;
     private final Backend backend;
     private final GraphBuilderConfiguration config;
@@ -77,6 +84,7 @@ public class TruffleCompilerImpl {
         Replacements truffleReplacements = graalTruffleRuntime.getReplacements();
         this.providers = backend.getProviders().copyWith(truffleReplacements);
         this.suites = backend.getSuites().getDefaultSuites();
+        this.firstTierSuites = TruffleTieredCompilation.getValue() ? createFirstTierSuites(backend.getSuites().createSuites()) : null;
 
         ResolvedJavaType[] skippedExceptionTypes = getSkippedExceptionTypes(providers.getMetaAccess());
         GraphBuilderConfiguration eagerConfig = GraphBuilderConfiguration.getEagerDefault().withSkippedExceptionTypes(skippedExceptionTypes);
@@ -90,6 +98,25 @@ public class TruffleCompilerImpl {
         }
     }
 
+    /**
+     * Removes the expensive optional phases from the high tier of {@code suites}: inlining,
+     * partial escape analysis, tail duplication, iterative conditional elimination and loop
+     * transformations. The result is used for the quick first tier compilation.
+     */
+    @SuppressWarnings("unchecked")
+    private static Suites createFirstTierSuites(Suites suites) {
+        Class<?>[] expensivePhases = {InliningPhase.class, IterativeInliningPhase.class, PartialEscapePhase.class, TailDuplicationPhase.class, IterativeConditionalEliminationPhase.class,
+                        IterativeFlowSensitiveReductionPhase.class, LoopFullUnrollPhase.class, LoopTransformHighPhase.class, LoopTransformLowPhase.class};
+        PhaseSuite<HighTierContext> highTier = suites.getHighTier();
+        for (Class<?> phaseClass : expensivePhases) {
+            ListIterator<BasePhase<? super HighTierContext>> phase;
+            while ((phase = highTier.findPhase((Class<? extends BasePhase<? super HighTierContext>>) phaseClass)) != null) {
+                phase.remove();
+            }
+        }
+        return suites;
+    }
+
     public static ResolvedJavaType[] getSkippedExceptionTypes(MetaAccessProvider metaAccess) {
         ResolvedJavaType[] skippedExceptionTypes = new ResolvedJavaType[SKIPPED_EXCEPTION_CLASSES.length];
         for (int i = 0; i < SKIPPED_EXCEPTION_CLASSES.length; i++) {
@@ -110,20 +137,25 @@ public class TruffleCompilerImpl {
         StructuredGraph graph = null;
 
         compilationNotify.notifyCompilationStarted(compilable);
+        int tier = compilable.getCompilationTier();
 
         try {
             Assumptions assumptions = new Assumptions(true);
+            Map<String, Long> phaseTimes = new LinkedHashMap<>();
 
             try (TimerCloseable a = PartialEvaluationTime.start(); Closeable c = PartialEvaluationMemUse.start()) {
-                graph = partialEvaluator.createGraph(compilable, assumptions);
+                graph = partialEvaluator.createGraph(compilable, assumptions, phaseTimes);
             }
 
             if (Thread.currentThread().isInterrupted()) {
                 return;
             }
 
+            compilationNotify.notifyCompilationTruffleTierTimings(compilable, phaseTimes);
+
             compilationNotify.notifyCompilationTruffleTierFinished(compilable, graph);
             CompilationResult compilationResult = compileMethodHelper(graph, assumptions, compilable.toString(), compilable.getSpeculationLog(), compilable);
+            compilable.notifyCodeInstalled(tier);
             compilationNotify.notifyCompilationSuccess(compilable, graph, compilationResult);
         } catch (Throwable t) {
             compilationNotify.notifyCompilationFailed(compilable, graph, t);
@@ -144,7 +176,7 @@ public class TruffleCompilerImpl {
             CallingConvention cc = getCallingConvention(codeCache, Type.JavaCallee, graph.method(), false);
             CompilationResult compilationResult = new CompilationResult(name);
             result = compileGraph(graph, null, cc, graph.method(), providers, backend, codeCache.getTarget(), null, createGraphBuilderSuite(), Optimizations, getProfilingInfo(graph), speculationLog,
-                            suites, compilationResult, CompilationResultBuilderFactory.Default);
+                            selectSuites(predefinedInstalledCode), compilationResult, CompilationResultBuilderFactory.Default);
         } catch (Throwable e) {
             throw Debug.handle(e);
         }
@@ -184,6 +216,13 @@ public class TruffleCompilerImpl {
         return result;
     }
 
+    private Suites selectSuites(InstalledCode predefinedInstalledCode) {
+        if (firstTierSuites != null && predefinedInstalledCode instanceof OptimizedCallTarget && ((OptimizedCallTarget) predefinedInstalledCode).getCompilationTier() == OptimizedCallTarget.FIRST_TIER) {
+            return firstTierSuites;
+        }
+        return suites;
+    }
+
     private PhaseSuite<HighTierContext> createGraphBuilderSuite() {
         PhaseSuite<HighTierContext> suite = backend.getSuites().getDefaultGraphBuilderSuite().copy();
         ListIterator<BasePhase<? super HighTierContext>> iterator = suite.findPhase(GraphBuilderPhase.class);
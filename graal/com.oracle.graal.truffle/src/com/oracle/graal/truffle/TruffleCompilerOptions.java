@@ -47,16 +47,34 @@ public class TruffleCompilerOptions {
     public static final OptionValue<Integer> TruffleCompilationThreshold = new OptionValue<>(1000);
     @Option(help = "Defines the maximum timespan in milliseconds that is required for a call target to be queued for compilation.")
     public static final OptionValue<Integer> TruffleTimeThreshold = new OptionValue<>(5000);
+    @Option(help = "Experimental: Compile call targets quickly without inlining first and recompile them fully optimized once they stay hot")
+    public static final OptionValue<Boolean> TruffleTieredCompilation = new OptionValue<>(false);
+    @Option(help = "Tiered compilation only: Compile call target with the first tier when call count exceeds this threshold")
+    public static final OptionValue<Integer> TruffleFirstTierCompilationThreshold = new OptionValue<>(100);
     @Option(help = "Minimum number of calls before a call target is compiled")
     public static final OptionValue<Integer> TruffleMinInvokeThreshold = new OptionValue<>(3);
     @Option(help = "Delay compilation after an invalidation to allow for reprofiling")
     public static final OptionValue<Integer> TruffleInvalidationReprofileCount = new OptionValue<>(3);
+    @Option(help = "Stop compiling a CallTarget after its code was invalidated this many times with less than TruffleInvalidationStormWindow between two invalidations")
+    public static final OptionValue<Integer> TruffleInvalidationStormThreshold = new OptionValue<>(10);
+    @Option(help = "Stop compiling a CallTarget after the same node caused this many invalidations of its code with less than TruffleInvalidationStormNodeWindow between two of them")
+    public static final OptionValue<Integer> TruffleInvalidationStormNodeThreshold = new OptionValue<>(5);
+    @Option(help = "Time in milliseconds after which an invalidation no longer counts towards an invalidation storm")
+    public static final OptionValue<Integer> TruffleInvalidationStormWindow = new OptionValue<>(10000);
+    @Option(help = "Time in milliseconds after which an invalidation no longer counts towards the invalidations caused by its node")
+    public static final OptionValue<Integer> TruffleInvalidationStormNodeWindow = new OptionValue<>(60000);
     @Option(help = "Delay compilation after a node replacement")
     public static final OptionValue<Integer> TruffleReplaceReprofileCount = new OptionValue<>(10);
     @Option(help = "Enable automatic inlining of call targets")
     public static final OptionValue<Boolean> TruffleFunctionInlining = new OptionValue<>(true);
     @Option(help = "Enable an expansion cache per CallTarget. Only functionable with TruffleContextSensitiveInlining enabled.")
     public static final OptionValue<Boolean> TruffleFunctionInliningCache = new OptionValue<>(true);
+    @Option(help = "Number of threads building the graphs of inlined call targets in parallel during partial evaluation")
+    public static final OptionValue<Integer> TrufflePartialEvaluationThreads = new OptionValue<>(1);
+    @Option(help = "Reuse the graphs of inlined call targets between the compilations of a split CallTarget and its split copies")
+    public static final OptionValue<Boolean> TruffleSplittingGraphReuse = new OptionValue<>(false);
+    @Option(help = "Compile a split copy of a compiled CallTarget after this many calls and loop iterations (0 disables eager compilation)")
+    public static final OptionValue<Integer> TruffleSplitEagerCompilationThreshold = new OptionValue<>(250);
     @Option(help = "Maximum number of Graal IR nodes during partial evaluation")
     public static final OptionValue<Integer> TruffleGraphMaxNodes = new OptionValue<>(200000);
     @Option(help = "Stop inlining if caller's cumulative tree size would exceed this limit")
@@ -83,8 +101,12 @@ public class TruffleCompilerOptions {
     public static final OptionValue<Integer> TruffleSplittingMaxCalleeSize = new OptionValue<>(100);
     @Option(help = "Number of most recently used methods in truffle cache")
     public static final OptionValue<Integer> TruffleMaxCompilationCacheSize = new OptionValue<>(512);
+    @Option(help = "File used to persist the keys of the truffle cache across runs; the cached graphs of a method are rebuilt when it is first used")
+    public static final OptionValue<String> TruffleCacheSnapshotFile = new OptionValue<>(null);
     @Option(help = "Enable asynchronous truffle compilation in background thread")
     public static final OptionValue<Boolean> TruffleBackgroundCompilation = new OptionValue<>(true);
+    @Option(help = "Number of threads used for background truffle compilation (defaults to half the available processors)")
+    public static final OptionValue<Integer> TruffleCompilerThreads = new OptionValue<>(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
     @Option(help = "")
     public static final OptionValue<Integer> TruffleCompilationDecisionTime = new OptionValue<>(100);
     @Option(help = "")
@@ -131,6 +153,8 @@ public class TruffleCompilerOptions {
     public static final OptionValue<Integer> TraceTruffleStackTraceLimit = new OptionValue<>(20);
     @Option(help = "Print a summary of execution counts for all executed CallTargets. Introduces counter overhead for each call.")
     public static final OptionValue<Boolean> TruffleCallTargetProfiling = new StableOptionValue<>(false);
+    @Option(help = "Expose live execution and compilation counts of all CallTargets through the com.oracle.graal.truffle:type=CallTargetProfiling MBean. Introduces counter overhead for each call.")
+    public static final OptionValue<Boolean> TruffleCallTargetProfilingMBean = new StableOptionValue<>(false);
     @Option(help = "Print Truffle compilation statistics at the end of a run.")
     public static final OptionValue<Boolean> TruffleCompilationStatistics = new OptionValue<>(false);
     @Option(help = "Print additional more verbose Truffle compilation statistics at the end of a run.")
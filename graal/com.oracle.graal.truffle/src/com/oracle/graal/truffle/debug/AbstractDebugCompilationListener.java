@@ -34,6 +34,9 @@ public abstract class AbstractDebugCompilationListener implements GraalTruffleCo
 
     protected static final PrintStream OUT = TTY.out().out();
 
+    public void notifyCallTargetCreated(OptimizedCallTarget target) {
+    }
+
     public void notifyCompilationQueued(OptimizedCallTarget target) {
     }
 
@@ -46,6 +49,9 @@ public abstract class AbstractDebugCompilationListener implements GraalTruffleCo
     public void notifyCompilationStarted(OptimizedCallTarget target) {
     }
 
+    public void notifyCompilationTruffleTierTimings(OptimizedCallTarget target, Map<String, Long> phaseTimes) {
+    }
+
     public void notifyCompilationTruffleTierFinished(OptimizedCallTarget target, StructuredGraph graph) {
     }
 
@@ -61,6 +67,9 @@ public abstract class AbstractDebugCompilationListener implements GraalTruffleCo
     public void notifyCompilationInvalidated(OptimizedCallTarget target, Object source, CharSequence reason) {
     }
 
+    public void notifyCompilationBackoff(OptimizedCallTarget target, Object source, CharSequence decision, boolean permanent) {
+    }
+
     public void notifyShutdown(GraalTruffleRuntime runtime) {
     }
 
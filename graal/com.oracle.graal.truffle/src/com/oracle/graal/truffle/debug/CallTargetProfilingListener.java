@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.debug;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.*;
+
+import java.lang.management.*;
+import java.lang.ref.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+import javax.management.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.truffle.*;
+import com.oracle.graal.truffle.MonitoredCompilationProfile.Histogram;
+import com.oracle.truffle.api.nodes.*;
+
+/**
+ * Records compilation events into the {@link MonitoredCompilationProfile} of each call target and
+ * publishes the profiles through the {@link CallTargetProfilingMXBean}. A call target and its split
+ * copies are published under one name, which is the name of the source call target followed by an
+ * id that distinguishes source call targets with equal names. The call targets are indexed by that
+ * name as they are created, so that queries do not have to scan all call targets of the runtime.
+ */
+public final class CallTargetProfilingListener extends AbstractDebugCompilationListener implements CallTargetProfilingMXBean {
+
+    public static final String OBJECT_NAME = "com.oracle.graal.truffle:type=CallTargetProfiling";
+
+    private final ThreadLocal<Long> compilationStarted = new ThreadLocal<>();
+    private final Map<OptimizedCallTarget, String> names = Collections.synchronizedMap(new WeakHashMap<>());
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Map<String, List<WeakReference<OptimizedCallTarget>>> index = new ConcurrentHashMap<>();
+    private ObjectName objectName;
+
+    private CallTargetProfilingListener() {
+    }
+
+    public static void install(GraalTruffleRuntime runtime) {
+        if (TruffleCallTargetProfilingMBean.getValue()) {
+            runtime.addCompilationListener(new CallTargetProfilingListener());
+        }
+    }
+
+    @Override
+    public void notifyStartup(GraalTruffleRuntime truffleRuntime) {
+        try {
+            objectName = new ObjectName(OBJECT_NAME);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            objectName = null;
+            TTY.println("[truffle] cannot register " + OBJECT_NAME + ": " + e);
+        }
+    }
+
+    @Override
+    public void notifyShutdown(GraalTruffleRuntime truffleRuntime) {
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                // the platform server is going away as well
+            }
+        }
+    }
+
+    @Override
+    public void notifyCallTargetCreated(OptimizedCallTarget target) {
+        if (target.getCompilationProfile() instanceof MonitoredCompilationProfile) {
+            OptimizedCallTarget source = target.getSourceCallTarget() != null ? target.getSourceCallTarget() : target;
+            List<WeakReference<OptimizedCallTarget>> targets = index.computeIfAbsent(nameOf(source), n -> new ArrayList<>());
+            synchronized (targets) {
+                targets.add(new WeakReference<>(target));
+            }
+        }
+    }
+
+    @Override
+    public void notifyCompilationStarted(OptimizedCallTarget target) {
+        compilationStarted.set(System.nanoTime());
+    }
+
+    @Override
+    public void notifyCompilationSuccess(OptimizedCallTarget target, StructuredGraph graph, CompilationResult result) {
+        Long started = compilationStarted.get();
+        if (started != null && target.getCompilationProfile() instanceof MonitoredCompilationProfile) {
+            long micros = (System.nanoTime() - started) / 1000;
+            ((MonitoredCompilationProfile) target.getCompilationProfile()).reportCompilation(micros, result.getTargetCodeSize());
+        }
+        compilationStarted.remove();
+    }
+
+    @Override
+    public void notifyCompilationFailed(OptimizedCallTarget target, StructuredGraph graph, Throwable t) {
+        compilationStarted.remove();
+    }
+
+    @Override
+    public void notifyCompilationInvalidated(OptimizedCallTarget target, Object source, CharSequence reason) {
+        if (target.getCompilationProfile() instanceof MonitoredCompilationProfile) {
+            ((MonitoredCompilationProfile) target.getCompilationProfile()).reportInvalidation(source instanceof Node);
+        }
+    }
+
+    /**
+     * Returns the name under which a source call target and its split copies are published. The
+     * name is assigned when the source call target is first seen, keyed by identity.
+     */
+    private String nameOf(OptimizedCallTarget source) {
+        return names.computeIfAbsent(source, s -> s + "#" + nextId.incrementAndGet());
+    }
+
+    /**
+     * Returns the live call targets published under {@code name} and drops the collected ones from
+     * the index. A name whose call targets were all collected is removed; no call target is added
+     * to it afterwards because split copies are only created while their source is alive.
+     */
+    private List<OptimizedCallTarget> targetsOf(String name) {
+        List<WeakReference<OptimizedCallTarget>> targets = index.get(name);
+        if (targets == null) {
+            return Collections.emptyList();
+        }
+        List<OptimizedCallTarget> live = new ArrayList<>();
+        synchronized (targets) {
+            for (Iterator<WeakReference<OptimizedCallTarget>> iter = targets.iterator(); iter.hasNext();) {
+                OptimizedCallTarget target = iter.next().get();
+                if (target == null) {
+                    iter.remove();
+                } else {
+                    live.add(target);
+                }
+            }
+            if (targets.isEmpty()) {
+                index.remove(name, targets);
+            }
+        }
+        return live;
+    }
+
+    private Map<String, List<OptimizedCallTarget>> targetsByName() {
+        Map<String, List<OptimizedCallTarget>> targets = new HashMap<>();
+        for (String name : index.keySet()) {
+            List<OptimizedCallTarget> live = targetsOf(name);
+            if (!live.isEmpty()) {
+                targets.put(name, live);
+            }
+        }
+        return targets;
+    }
+
+    private static MonitoredCompilationProfile profileOf(OptimizedCallTarget target) {
+        return (MonitoredCompilationProfile) target.getCompilationProfile();
+    }
+
+    private static long sum(List<OptimizedCallTarget> targets, ToLongFunction<MonitoredCompilationProfile> counter) {
+        return targets.stream().map(CallTargetProfilingListener::profileOf).mapToLong(counter).sum();
+    }
+
+    private static Histogram merge(List<OptimizedCallTarget> targets, Function<MonitoredCompilationProfile, Histogram> histogram) {
+        Histogram merged = new Histogram();
+        for (OptimizedCallTarget target : targets) {
+            merged.add(histogram.apply(profileOf(target)));
+        }
+        return merged;
+    }
+
+    private List<String> sortedNames(int limit, ToLongFunction<MonitoredCompilationProfile> counter) {
+        Map<String, List<OptimizedCallTarget>> targets = targetsByName();
+        return targets.keySet().stream().sorted(Comparator.comparingLong((String name) -> -sum(targets.get(name), counter))).limit(Math.max(limit, 0)).collect(Collectors.toList());
+    }
+
+    public List<String> getHottestCallTargets(int limit) {
+        return sortedNames(limit, MonitoredCompilationProfile::getCalls);
+    }
+
+    public List<String> getMostInvalidatedCallTargets(int limit) {
+        return sortedNames(limit, MonitoredCompilationProfile::getInvalidations);
+    }
+
+    public Map<String, Long> getCallTargetCounters(String name) {
+        List<OptimizedCallTarget> targets = targetsOf(name);
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("Calls", sum(targets, MonitoredCompilationProfile::getCalls));
+        counters.put("InterpreterCalls", sum(targets, MonitoredCompilationProfile::getInterpreterCalls));
+        counters.put("CompiledCalls", sum(targets, MonitoredCompilationProfile::getCompiledCalls));
+        counters.put("RewriteInvalidations", sum(targets, MonitoredCompilationProfile::getRewriteInvalidations));
+        counters.put("Invalidations", sum(targets, MonitoredCompilationProfile::getInvalidations));
+        counters.put("Compilations", merge(targets, MonitoredCompilationProfile::getCompilationTime).getCount());
+        counters.put("SplitCopies", targets.stream().filter(target -> target.getSourceCallTarget() != null).count());
+        return counters;
+    }
+
+    public long[] getCompilationTimeHistogram(String name) {
+        return merge(targetsOf(name), MonitoredCompilationProfile::getCompilationTime).getBuckets();
+    }
+
+    public long[] getCodeSizeHistogram(String name) {
+        return merge(targetsOf(name), MonitoredCompilationProfile::getCodeSize).getBuckets();
+    }
+
+    public String getReport(int limit) {
+        Map<String, List<OptimizedCallTarget>> targets = targetsByName();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-50s | %12s | %12s | %12s | %6s | %6s | %s | %s%n", "Call Target", "Calls", "Interp. Calls", "Opt. Calls", "Rewr.", "Inval.", "Compilation Time (us)",
+                        "Code Size (bytes)"));
+        for (String name : getHottestCallTargets(limit)) {
+            List<OptimizedCallTarget> p = targets.getOrDefault(name, Collections.emptyList());
+            sb.append(String.format("%-50s | %12d | %12d | %12d | %6d | %6d | %s | %s%n", name, sum(p, MonitoredCompilationProfile::getCalls), sum(p, MonitoredCompilationProfile::getInterpreterCalls),
+                            sum(p, MonitoredCompilationProfile::getCompiledCalls), sum(p, MonitoredCompilationProfile::getRewriteInvalidations),
+                            sum(p, MonitoredCompilationProfile::getInvalidations), merge(p, MonitoredCompilationProfile::getCompilationTime),
+                            merge(p, MonitoredCompilationProfile::getCodeSize)));
+        }
+        return sb.toString();
+    }
+
+    private long total(ToLongFunction<MonitoredCompilationProfile> counter) {
+        return targetsByName().values().stream().mapToLong(targets -> sum(targets, counter)).sum();
+    }
+
+    public long getTotalCalls() {
+        return total(MonitoredCompilationProfile::getCalls);
+    }
+
+    public long getTotalInterpreterCalls() {
+        return total(MonitoredCompilationProfile::getInterpreterCalls);
+    }
+
+    public long getTotalInvalidations() {
+        return total(MonitoredCompilationProfile::getInvalidations);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.debug;
+
+import java.util.*;
+
+/**
+ * Management interface for live profiling information of Truffle call targets. Call targets are
+ * identified by their name followed by an id, for example {@code fib#3}. Split copies of a call
+ * target share its name and are reported together.
+ */
+public interface CallTargetProfilingMXBean {
+
+    /**
+     * Returns the names of the call targets with the most calls, most called first.
+     */
+    List<String> getHottestCallTargets(int limit);
+
+    /**
+     * Returns the names of the call targets whose installed code was invalidated most often.
+     */
+    List<String> getMostInvalidatedCallTargets(int limit);
+
+    /**
+     * Returns the call, invalidation and compilation counts of a call target by counter name.
+     */
+    Map<String, Long> getCallTargetCounters(String name);
+
+    /**
+     * Returns the histogram of the compilation times of a call target in microseconds. Bucket
+     * {@code i} counts the values in the range [2<sup>i-1</sup>, 2<sup>i</sup>).
+     */
+    long[] getCompilationTimeHistogram(String name);
+
+    /**
+     * Returns the histogram of the code sizes in bytes of a call target, bucketed like
+     * {@link #getCompilationTimeHistogram(String)}.
+     */
+    long[] getCodeSizeHistogram(String name);
+
+    /**
+     * Returns a table of the {@code limit} hottest call targets.
+     */
+    String getReport(int limit);
+
+    long getTotalCalls();
+
+    long getTotalInterpreterCalls();
+
+    long getTotalInvalidations();
+}
@@ -80,6 +80,17 @@ public final class TraceCompilationListener extends AbstractDebugCompilationList
         currentCompilation.set(compilation);
     }
 
+    @Override
+    public void notifyCompilationTruffleTierTimings(OptimizedCallTarget target, Map<String, Long> phaseTimes) {
+        if (TraceTruffleCompilationDetails.getValue()) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            for (Map.Entry<String, Long> entry : phaseTimes.entrySet()) {
+                properties.put(entry.getKey(), String.format("%.1fms", entry.getValue() / 1e6));
+            }
+            log(0, "opt pe phases", target.toString(), properties);
+        }
+    }
+
     @Override
     public void notifyCompilationTruffleTierFinished(OptimizedCallTarget target, StructuredGraph graph) {
         super.notifyCompilationTruffleTierFinished(target, graph);
@@ -115,6 +126,9 @@ public final class TraceCompilationListener extends AbstractDebugCompilationList
         properties.put("DirectCallNodes", String.format("I %4d/D %4d", inlinedCalls, dispatchedCalls));
         properties.put("GraalNodes", String.format("%5d/%5d", compilation.nodeCountPartialEval, nodeCountLowered));
         properties.put("CodeSize", result.getTargetCodeSize());
+        if (TruffleTieredCompilation.getValue()) {
+            properties.put("Tier", target.getCompilationTier());
+        }
         properties.put("Source", formatSourceSection(target.getRootNode().getSourceSection()));
 
         log(0, "opt done", target.toString(), properties);
@@ -134,6 +148,14 @@ public final class TraceCompilationListener extends AbstractDebugCompilationList
         log(0, "opt invalidated", target.toString(), properties);
     }
 
+    @Override
+    public void notifyCompilationBackoff(OptimizedCallTarget target, Object source, CharSequence decision, boolean permanent) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        addSourceInfo(properties, source);
+        properties.put("Decision", decision);
+        log(0, permanent ? "opt disabled" : "opt backoff", target.toString(), properties);
+    }
+
     private static void addSourceInfo(Map<String, Object> properties, Object source) {
         if (source != null) {
             properties.put("SourceClass", source.getClass().getSimpleName());
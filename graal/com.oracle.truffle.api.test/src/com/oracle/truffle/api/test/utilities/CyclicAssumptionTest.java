@@ -59,4 +59,21 @@ public class CyclicAssumptionTest {
         assertFalse(secondAssumption.isValid());
     }
 
+    @Test
+    public void testInvalidateAll() {
+        final CyclicAssumption first = new CyclicAssumption("first");
+        final CyclicAssumption second = new CyclicAssumption("second");
+
+        final Assumption firstAssumption = first.getAssumption();
+        final Assumption secondAssumption = second.getAssumption();
+
+        CyclicAssumption.invalidateAll(first, second);
+
+        assertFalse(firstAssumption.isValid());
+        assertFalse(secondAssumption.isValid());
+        assertTrue(first.getAssumption().isValid());
+        assertTrue(second.getAssumption().isValid());
+        assertEquals("second", second.getAssumption().getName());
+    }
+
 }
@@ -87,6 +87,14 @@ public interface TruffleRuntime {
      */
     Assumption createAssumption(String name);
 
+    /**
+     * Invalidates a number of assumptions at once. The runtime may use this to deoptimize the code
+     * depending on any of the assumptions in a single operation rather than once per assumption.
+     *
+     * @param assumptions the assumptions to invalidate
+     */
+    void invalidateAssumptions(Iterable<? extends Assumption> assumptions);
+
     /**
      * Creates a new virtual frame object that can be used to store values and is potentially
      * optimizable by the runtime.
@@ -40,6 +40,14 @@ public final class FrameDescriptor implements Cloneable {
     private Assumption version;
     private HashMap<Object, Assumption> identifierToNotInFrameAssumptionMap;
 
+    /**
+     * The {@linkplain #getVersion() versions} for which {@link #hasPrimitiveSlots()} was last
+     * computed to be true or false, respectively. Two fields instead of a version and a flag so
+     * that a thread never sees a result together with the wrong version.
+     */
+    private Assumption primitiveSlotsVersion;
+    private Assumption noPrimitiveSlotsVersion;
+
     public FrameDescriptor() {
         this(null);
     }
@@ -157,6 +165,29 @@ public final class FrameDescriptor implements Cloneable {
         return version;
     }
 
+    /**
+     * Determines if any slot of this descriptor has a primitive kind. Slots of kind
+     * {@link FrameSlotKind#Illegal} do not count, as assigning them a primitive kind changes the
+     * {@linkplain #getVersion() version}. The result is cached until the version changes.
+     */
+    public boolean hasPrimitiveSlots() {
+        Assumption currentVersion = version;
+        if (currentVersion == primitiveSlotsVersion) {
+            return true;
+        } else if (currentVersion == noPrimitiveSlotsVersion) {
+            return false;
+        }
+        for (FrameSlot slot : slots) {
+            FrameSlotKind kind = slot.getKind();
+            if (kind != FrameSlotKind.Object && kind != FrameSlotKind.Illegal) {
+                primitiveSlotsVersion = currentVersion;
+                return true;
+            }
+        }
+        noPrimitiveSlotsVersion = currentVersion;
+        return false;
+    }
+
     private static Assumption createVersion() {
         return Truffle.getRuntime().createAssumption("frame version");
     }
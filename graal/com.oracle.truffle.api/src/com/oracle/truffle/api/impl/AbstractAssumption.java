@@ -29,7 +29,7 @@ import com.oracle.truffle.api.*;
 public abstract class AbstractAssumption implements Assumption {
 
     protected final String name;
-    protected boolean isValid;
+    protected volatile boolean isValid;
 
     protected AbstractAssumption(String name) {
         this.name = name;
@@ -94,6 +94,13 @@ public final class DefaultTruffleRuntime implements TruffleRuntime {
         return new DefaultAssumption(name);
     }
 
+    @Override
+    public void invalidateAssumptions(Iterable<? extends Assumption> assumptions) {
+        for (Assumption assumption : assumptions) {
+            assumption.invalidate();
+        }
+    }
+
     private LinkedList<FrameInstance> getThreadLocalStackTrace() {
         LinkedList<FrameInstance> result = stackTraces.get();
         if (result == null) {
@@ -24,6 +24,8 @@
  */
 package com.oracle.truffle.api.utilities;
 
+import java.util.*;
+
 import com.oracle.truffle.api.*;
 
 /**
@@ -51,6 +53,23 @@ public class CyclicAssumption {
         assumption = Truffle.getRuntime().createAssumption(name);
     }
 
+    /**
+     * Invalidates the current assumptions of a number of cyclic assumptions at once and recreates
+     * them. Code depending on several of the assumptions is only invalidated once.
+     */
+    public static void invalidateAll(CyclicAssumption... cyclicAssumptions) {
+        List<Assumption> assumptions = new ArrayList<>(cyclicAssumptions.length);
+        for (CyclicAssumption cyclicAssumption : cyclicAssumptions) {
+            if (cyclicAssumption.assumption != null) {
+                assumptions.add(cyclicAssumption.assumption);
+            }
+        }
+        Truffle.getRuntime().invalidateAssumptions(assumptions);
+        for (CyclicAssumption cyclicAssumption : cyclicAssumptions) {
+            cyclicAssumption.assumption = Truffle.getRuntime().createAssumption(cyclicAssumption.name);
+        }
+    }
+
     public Assumption getAssumption() {
         return assumption;
     }
@@ -24,6 +24,8 @@
  */
 package com.oracle.truffle.api.utilities;
 
+import java.util.*;
+
 import com.oracle.truffle.api.*;
 import com.oracle.truffle.api.nodes.*;
 
@@ -55,8 +57,7 @@ public class UnionAssumption implements Assumption {
 
     @Override
     public void invalidate() {
-        first.invalidate();
-        second.invalidate();
+        Truffle.getRuntime().invalidateAssumptions(Arrays.asList(first, second));
     }
 
     @Override
@@ -688,6 +688,25 @@ C2V_VMENTRY(void, invalidateInstalledCode, (JNIEnv*, jobject, jobject hotspotIns
   InstalledCode::set_address(hotspotInstalledCode, 0);
 C2V_END
 
+C2V_VMENTRY(void, invalidateInstalledCodes, (JNIEnv*, jobject, jobjectArray hotspotInstalledCodes))
+  objArrayOop codes = (objArrayOop) JNIHandles::resolve(hotspotInstalledCodes);
+  bool deoptimize = false;
+  for (int i = 0; i < codes->length(); i++) {
+    oop code = codes->obj_at(i);
+    nmethod* m = (nmethod*) InstalledCode::address(code);
+    if (m != NULL && !m->is_not_entrant()) {
+      m->mark_for_deoptimization();
+      deoptimize = true;
+    }
+    InstalledCode::set_address(code, 0);
+  }
+  if (deoptimize) {
+    // A single safepoint operation deoptimizes all marked nmethods.
+    VM_Deoptimize op;
+    VMThread::execute(&op);
+  }
+C2V_END
+
 C2V_VMENTRY(jobject, getJavaMirror, (JNIEnv*, jobject, jlong metaspace_klass))
   Klass* klass = asKlass(metaspace_klass);
   return JNIHandles::make_local(klass->java_mirror());
@@ -1076,6 +1095,7 @@ JNINativeMethod CompilerToVM_methods[] = {
   {CC"getLocalVariableTableLength",                  CC"("METASPACE_METHOD")I",                                                FN_PTR(getLocalVariableTableLength)},
   {CC"reprofile",                                    CC"("METASPACE_METHOD")V",                                                FN_PTR(reprofile)},
   {CC"invalidateInstalledCode",                      CC"("INSTALLED_CODE")V",                                                  FN_PTR(invalidateInstalledCode)},
+  {CC"invalidateInstalledCodes",                     CC"(["INSTALLED_CODE")V",                                                 FN_PTR(invalidateInstalledCodes)},
   {CC"getJavaMirror",                                CC"("METASPACE_KLASS")"CLASS,                                             FN_PTR(getJavaMirror)},
   {CC"readUnsafeKlassPointer",                       CC"("OBJECT")J",                                                          FN_PTR(readUnsafeKlassPointer)},
   {CC"collectCounters",                              CC"()[J",                                                                 FN_PTR(collectCounters)},